@@ -0,0 +1,206 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file CowPax.java
+ */
+
+package de.graetz23.pax;
+
+import java.util.List;
+
+/**
+ * Copy-on-write Pax sharing an immutable state with all of its copies. Copying a node that was not
+ * changed costs O(1); the children and attributes of a node are turned into own objects first when
+ * they are touched, so changing a node deep down materializes the path from the root to it only,
+ * while all untouched subtrees stay shared. Behaves like any Pax otherwise.
+ */
+public class CowPax extends Pax {
+
+  private static final Data[] NO_CHILDREN = new Data[0]; // member
+
+  private static final String[] NO_ATTRIBS = new String[0]; // member
+
+  private Data _data; // member
+
+  private boolean _children; // member, true if own children
+
+  private boolean _attribs; // member, true if own attributes
+
+  private boolean _dirty; // member, true if changed since _data
+
+  private boolean _loading; // member
+
+  private CowPax(Data data) {
+    super(data._tag, data._val);
+    _data = data;
+    _children = data._children.length == 0;
+    _attribs = data._names.length == 0;
+    _dirty = false;
+    _loading = false;
+  } // constructor
+
+  /**
+   * Take an immutable snapshot of some tree in one pass; use it as a template and copy it by the
+   * factory, each copy costing O(1).
+   *
+   * @param pax as the root of the template
+   * @return a copy-on-write copy of the tree
+   */
+  public static CowPax of(IPax pax) {
+    return pax == null ? null : new CowPax(Data.of(pax));
+  } // method
+
+  /**
+   * @return a detached copy sharing all unchanged subtrees with this one
+   */
+  public CowPax copy() {
+    return new CowPax(snapshot());
+  } // method
+
+  @Override
+  public IChildren Child() {
+    if (!_children) { // make the children own ones, sharing their states ..
+      _children = true;
+      _loading = true;
+      IChildren children = super.Child();
+      for (Data child : _data._children) {
+        children.add(new CowPax(child));
+      } // loop
+      _loading = false;
+    } // if
+    return super.Child();
+  } // method
+
+  @Override
+  public boolean hasChild() {
+    return _children ? super.hasChild() : true;
+  } // method
+
+  @Override
+  public IAttributes Attrib() {
+    if (!_attribs) {
+      _attribs = true;
+      _loading = true;
+      IAttributes attribs = super.Attrib();
+      for (int a = 0; a < _data._names.length; a++) {
+        attribs.add(_data._names[a], _data._vals[a]);
+      } // loop
+      _loading = false;
+    } // if
+    return super.Attrib();
+  } // method
+
+  @Override
+  public boolean hasAttrib() {
+    return _attribs ? super.hasAttrib() : true;
+  } // method
+
+  @Override
+  void changed() {
+    if (!_loading) {
+      CowPax node = this;
+      while (node != null && !node._dirty) { // dirty ones have dirty ancestors already
+        node._dirty = true;
+        node = node.Parent() instanceof CowPax ? (CowPax) node.Parent() : null;
+      } // loop
+    } // if
+  } // method
+
+  /**
+   * @return the immutable state of this node, taken anew only if something changed
+   */
+  Data snapshot() {
+    if (!_dirty) {
+      return _data;
+    } // if
+    boolean dirty = false;
+
+    String[] names = NO_ATTRIBS;
+    String[] vals = NO_ATTRIBS;
+    if (!_attribs) {
+      names = _data._names;
+      vals = _data._vals;
+    } else if (super.hasAttrib()) {
+      List<IPax> attribs = super.Attrib().all();
+      names = new String[attribs.size()];
+      vals = new String[attribs.size()];
+      for (int a = 0; a < names.length; a++) {
+        names[a] = attribs.get(a).Tag();
+        vals[a] = attribs.get(a).Val();
+      } // loop
+    } // if
+
+    Data[] children = NO_CHILDREN;
+    if (!_children) {
+      children = _data._children;
+    } else if (super.hasChild()) {
+      List<IPax> all = super.Child().all();
+      children = new Data[all.size()];
+      for (int c = 0; c < children.length; c++) {
+        IPax child = all.get(c);
+        children[c] = Data.of(child);
+        if (!(child instanceof CowPax) || ((CowPax) child)._dirty) {
+          dirty = true; // changes below other nodes are not followed, take it anew next time
+        } // if
+      } // loop
+    } // if
+
+    _data = new Data(Tag(), Val(), names, vals, children);
+    _dirty = dirty;
+    return _data;
+  } // method
+
+  /**
+   * Immutable state of a node; shared by any number of copies and threads.
+   */
+  static final class Data {
+
+    private final String _tag; // member
+
+    private final String _val; // member
+
+    private final String[] _names; // member
+
+    private final String[] _vals; // member
+
+    private final Data[] _children; // member
+
+    private Data(String tag, String val, String[] names, String[] vals, Data[] children) {
+      _tag = tag;
+      _val = val;
+      _names = names;
+      _vals = vals;
+      _children = children;
+    } // constructor
+
+    static Data of(IPax pax) {
+      if (pax instanceof CowPax) {
+        return ((CowPax) pax).snapshot();
+      } // if
+      String[] names = NO_ATTRIBS;
+      String[] vals = NO_ATTRIBS;
+      if (pax.hasAttrib()) {
+        List<IPax> attribs = pax.Attrib().all();
+        names = new String[attribs.size()];
+        vals = new String[attribs.size()];
+        for (int a = 0; a < names.length; a++) {
+          names[a] = attribs.get(a).Tag();
+          vals[a] = attribs.get(a).Val();
+        } // loop
+      } // if
+      Data[] children = NO_CHILDREN;
+      if (pax.hasChild()) {
+        List<IPax> all = pax.Child().all();
+        children = new Data[all.size()];
+        for (int c = 0; c < children.length; c++) { // go recursive ..
+          children[c] = of(all.get(c));
+        } // loop
+      } // if
+      return new Data(pax.Tag(), pax.Val(), names, vals, children);
+    } // method
+
+  } // class
+
+} // class
@@ -19,6 +19,9 @@ public class Factory implements IFactory {
     } // method
 
     public IPax copy(IPax Pax) {
+        if (Pax instanceof CowPax) { // share, don't copy
+            return ((CowPax) Pax).copy();
+        } // if
         return new Pax(Pax);
     } // method
 
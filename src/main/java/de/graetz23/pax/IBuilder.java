@@ -0,0 +1,35 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file IBuilder.java
+ */
+
+package de.graetz23.pax;
+
+/**
+ * Class is part of the reading, receiving the events of some parser in document order and building
+ * a tree of them; either of IPax objects or of some compact store.
+ */
+interface IBuilder {
+
+  void open(String tag); // method
+
+  void attrib(String name, String val); // method
+
+  void text(String val); // method
+
+  void comment(String val); // method
+
+  void close(); // method
+
+  /**
+   * Put a new root above the current one, which becomes its first child, and open it; for inputs
+   * having more than one root, called while no element is open.
+   */
+  void wrap(String tag); // method
+
+  IPax Root(); // method
+
+} // interface
@@ -19,4 +19,14 @@ public interface IChildren extends ISubset {
    */
   IPax search(String path);
 
+  /**
+   * Select the first node of a path query, e.g. //book[@id='x'] or chapter[2]/*; the path is
+   * compiled once and cached, see PaxPath. Absolute paths start at the tag of the root, and // is
+   * the descendant axis.
+   * @param path as the path having slashes as hierarchical separators
+   * @return null or the first node found
+   * @throws IllegalArgumentException if the path is null or not a valid expression
+   */
+  IPax select(String path);
+
 } // interface
@@ -32,6 +32,14 @@ interface ISubset {
 
     IPax get(String tag); // method
 
+    /**
+     * Get the n-th of the same named siblings.
+     * @param tag as the tag of the siblings
+     * @param n as the zero based position among the siblings having that tag
+     * @return null or the found IPax object
+     */
+    IPax get(String tag, int n); // method
+
     boolean add(String tag); // method
 
     boolean add(String tag, String val); // method
@@ -50,6 +58,8 @@ interface ISubset {
 
     int cnt(); // method
 
+    int cnt(String tag); // method
+
     List<IPax> all(); // method
 
     List<IPax> all(String tag); // method
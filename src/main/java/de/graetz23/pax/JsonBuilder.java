@@ -0,0 +1,666 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file JsonBuilder.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the tree of JsonReader from the tokens of a JsonTokenizer, creating the nodes it returns
+ * only. Each object or array open is a frame on an explicit stack, so deep nesting takes heap, not
+ * stack; the kind of a frame is decided by its parent when it is opened, e.g. the value of a
+ * __tag__ is read for its text, an item of __attributes__ for its name and value, and the members
+ * of __children__ are added to the object owning them. So no node is built just to be copied or
+ * dropped again. Frames are reused as the stack shrinks and grows.
+ *
+ * The tree is the same as built before: scalars are tagged string, number, boolean, or null at top
+ * level; items of arrays are tagged item, carrying their index and former tag as attributes; the
+ * members of an object become children tagged by their keys, grouped by tag in the order the tags
+ * first occur.
+ */
+final class JsonBuilder {
+
+  private static final int ROOT = 0; // member, kinds of frames ..
+
+  private static final int OBJECT = 1; // member, an object built as node
+
+  private static final int ARRAY = 2; // member, an array built as node, its items tagged item
+
+  private static final int TEXT = 3; // member, an object read for its __value__ only
+
+  private static final int ATTRIBUTES = 4; // member, the value of __attributes__, adding to the target
+
+  private static final int ATTRIBUTE = 5; // member, an item of __attributes__, read for name and value
+
+  private static final int CHILDREN = 6; // member, an object of __children__, adding to the target
+
+  private static final int LISTED = 7; // member, an array of __children__, adding to the target
+
+  private static final int SPLICE = 8; // member, an array whose items are added to the target
+
+  private static final int SKIP = 9; // member, read without building anything
+
+  private static final int OTHER = 0; // member, keys of members ..
+
+  private static final int TAG = 1; // member
+
+  private static final int VALUE = 2; // member
+
+  private static final int ATTRIBS = 3; // member
+
+  private static final int CHILDS = 4; // member
+
+  private static final int NAME = 5; // member, of an attribute
+
+  private static final int VAL = 6; // member, of an attribute
+
+  private static final String ITEM = "item"; // member
+
+  private static final String INDEX = "index"; // member
+
+  private static final String ELEMENT_TAG = "#arrayElementTag"; // member
+
+  private final JsonTokenizer _tokens; // member
+
+  private Frame[] _stack = new Frame[16]; // member, frames kept for reuse
+
+  private int _depth = 0; // member
+
+  private IPax _root = null; // member
+
+  JsonBuilder(JsonTokenizer tokens) {
+    _tokens = tokens;
+  } // constructor
+
+  /**
+   * @return the top-level value, or null for no value at all; anything behind it is not read
+   */
+  IPax parse() throws IOException {
+    int token = _tokens.next();
+    if (token == JsonTokenizer.END) {
+      return null;
+    } // if
+    Frame top = push(ROOT, false, null);
+    while (true) {
+      if (token == JsonTokenizer.BEGIN_OBJECT || token == JsonTokenizer.BEGIN_ARRAY) {
+        top = open(top, token == JsonTokenizer.BEGIN_OBJECT);
+        token = _tokens.next();
+        if (token != top.closing()) {
+          if (top._isObject) {
+            key(top, token);
+            token = _tokens.next();
+          } // if
+          continue;
+        } // if
+        top = close(top);
+      } else {
+        scalar(top, token);
+      } // if
+      while (true) { // the value is complete; go on in the frame it was handed to
+        if (top._kind == ROOT) {
+          return _root;
+        } // if
+        token = _tokens.next();
+        if (token == JsonTokenizer.COMMA) {
+          token = _tokens.next();
+          if (top._isObject) {
+            key(top, token);
+            token = _tokens.next();
+          } // if
+          break;
+        } // if
+        if (token != top.closing()) {
+          throw new RuntimeException("Expected ',' or '" + (top._isObject ? '}' : ']') + "' at position " + _tokens.position());
+        } // if
+        top = close(top);
+      } // loop
+    } // loop
+  } // method
+
+  /**
+   * Read a key and its colon; the key is compared in the buffer of the tokenizer and becomes a
+   * string only if it is needed as tag.
+   */
+  private void key(Frame frame, int token) throws IOException {
+    if (token != JsonTokenizer.STRING) {
+      throw new RuntimeException("Expected '\"' at position " + _tokens.position());
+    } // if
+    frame._key = null;
+    frame._member = OTHER;
+    if (frame._kind != SKIP) {
+      if (_tokens.is("__tag__")) {
+        frame._member = TAG;
+      } else if (_tokens.is("__value__")) {
+        frame._member = VALUE;
+      } else if (_tokens.is("__attributes__")) {
+        frame._member = ATTRIBS;
+      } else if (_tokens.is("__children__")) {
+        frame._member = CHILDS;
+      } else if (_tokens.is("name")) {
+        frame._member = NAME;
+        frame._key = "name";
+      } else if (_tokens.is("value")) {
+        frame._member = VAL;
+        frame._key = "value";
+      } else if (frame._kind == OBJECT || frame._kind == CHILDREN) {
+        frame._key = _tokens.name();
+      } // if
+    } // if
+    if (_tokens.next() != JsonTokenizer.COLON) {
+      throw new RuntimeException("Expected ':' at position " + _tokens.position());
+    } // if
+  } // method
+
+  /**
+   * @return the frame of an object or array opened in the parent, of the kind the parent needs
+   */
+  private Frame open(Frame parent, boolean isObject) {
+    int member = parent._member;
+    switch (parent._kind) {
+      case ROOT:
+      case ARRAY:
+      case SPLICE:
+        return push(isObject ? OBJECT : ARRAY, isObject, null);
+      case OBJECT:
+        if (member == TAG || member == VALUE) {
+          return push(isObject ? TEXT : SKIP, isObject, null);
+        } else if (member == ATTRIBS) {
+          return push(ATTRIBUTES, isObject, parent);
+        } else if (member == CHILDS) {
+          return push(isObject ? CHILDREN : LISTED, isObject, parent);
+        } // if
+        return push(isObject ? OBJECT : ARRAY, isObject, null);
+      case TEXT:
+        return push(member == VALUE && isObject ? TEXT : SKIP, isObject, null);
+      case ATTRIBUTES:
+        if (!parent._isObject || member == OTHER || member == NAME || member == VAL) {
+          return push(isObject ? ATTRIBUTE : SKIP, isObject, parent._target);
+        } else if (member == CHILDS) { // its children are items, too
+          return push(isObject ? CHILDREN : LISTED, isObject, parent);
+        } // if
+        return push(SKIP, isObject, null);
+      case ATTRIBUTE:
+        if (member == ATTRIBS) {
+          return push(ATTRIBUTES, isObject, parent);
+        } else if (member == CHILDS) {
+          return push(isObject ? CHILDREN : LISTED, isObject, parent);
+        } else if (member == NAME || member == VAL) {
+          if (isObject) {
+            return push(TEXT, true, null);
+          } // if
+          parent.record(member, null); // an array has no value
+        } // if
+        return push(SKIP, isObject, null);
+      case CHILDREN:
+        if (member == CHILDS) { // its children are added as members of its own
+          return push(isObject ? CHILDREN : LISTED, isObject, parent);
+        } else if (member == TAG || member == VALUE || member == ATTRIBS) { // of the object dropped
+          return push(SKIP, isObject, null);
+        } // if
+        return isObject ? push(OBJECT, true, null) : push(SPLICE, false, parent._target).fallback(parent._key, -1);
+      case LISTED:
+        return isObject ? push(OBJECT, true, null) : push(SPLICE, false, parent._target).fallback(ITEM, parent._index);
+      default:
+        return push(SKIP, isObject, null);
+    } // switch
+  } // method
+
+  /**
+   * Hand a scalar to the frame reading it.
+   */
+  private void scalar(Frame frame, int token) {
+    if (token < JsonTokenizer.STRING) { // neither a string, number, nor literal
+      text(token);
+    } // if
+    int member = frame._member;
+    switch (frame._kind) {
+      case ROOT:
+        _root = produce(kind(token), text(token));
+        break;
+      case OBJECT:
+        if (member == TAG) {
+          text(frame, token == JsonTokenizer.STRING ? _tokens.name() : text(token)); // tags repeat, as keys do
+        } else if (member == VALUE) {
+          text(frame, text(token));
+        } else if (member != ATTRIBS && member != CHILDS) {
+          frame.child(frame._key, produce(frame._key, text(token)));
+        } // if
+        break;
+      case ARRAY:
+        frame._node.Child().add(item(produce(ITEM, text(token)), frame._index, kind(token)));
+        break;
+      case TEXT:
+        if (member == VALUE) {
+          text(frame, text(token));
+        } // if
+        break;
+      case ATTRIBUTE:
+        if (member == NAME || member == VAL) {
+          text(frame, text(token));
+        } // if
+        break;
+      case CHILDREN:
+        if (member == OTHER || member == NAME || member == VAL) {
+          frame._target.child(frame._key, produce(frame._key, text(token)));
+        } // if
+        break;
+      case LISTED:
+        frame._target.child(ITEM, item(produce(ITEM, text(token)), frame._index, kind(token)));
+        break;
+      case SPLICE:
+        frame._target.child(kind(token), produce(kind(token), text(token)));
+        break;
+      default:
+        break;
+    } // switch
+    frame._index++;
+  } // method
+
+  /**
+   * Hand the text of a scalar, or of an object having a __value__, to the frame reading it.
+   */
+  private static void text(Frame frame, String text) {
+    boolean isVal = Pax.isVal(text);
+    int member = frame._member;
+    if (frame._kind == OBJECT && isVal) {
+      if (member == TAG) {
+        frame._node.Tag(text);
+      } else if (member == VALUE) {
+        frame._node.Val(text);
+      } // if
+    } else if (frame._kind == TEXT && member == VALUE && isVal) {
+      frame._text = text;
+    } else if (frame._kind == ATTRIBUTE && (member == NAME || member == VAL)) {
+      frame.record(member, isVal ? text : null);
+    } // if
+  } // method
+
+  /**
+   * Close the frame on top, handing what it read to its parent.
+   *
+   * @return the parent
+   */
+  private Frame close(Frame frame) {
+    Frame parent = _stack[--_depth - 1];
+    switch (frame._kind) {
+      case OBJECT:
+        frame.group();
+        node(parent, frame._node);
+        break;
+      case ARRAY:
+        node(parent, frame._node);
+        break;
+      case TEXT:
+        text(parent, frame._text);
+        break;
+      case ATTRIBUTE:
+        frame.resolve();
+        break;
+      case SPLICE:
+        if (frame._index == 0) { // nothing spliced, the empty array is the child
+          IPax empty = Instances.Factory().produce(frame._key);
+          empty.Attrib().add(Identity.LIST, "true");
+          if (frame._fallbackIndex >= 0) {
+            item(empty, frame._fallbackIndex, "array");
+          } // if
+          frame._target.child(frame._key, empty);
+        } // if
+        break;
+      default:
+        break;
+    } // switch
+    frame.clear();
+    parent._index++;
+    return parent;
+  } // method
+
+  /**
+   * Hand an object or array built to the frame reading it.
+   */
+  private void node(Frame frame, IPax node) {
+    switch (frame._kind) {
+      case ROOT:
+        _root = node;
+        break;
+      case OBJECT:
+        frame.child(frame._key, node);
+        break;
+      case ARRAY:
+        frame._node.Child().add(item(node, frame._index, node.Tag()));
+        break;
+      case CHILDREN:
+        adopt(frame._target, node, frame._key);
+        break;
+      case LISTED:
+        adopt(frame._target, item(node, frame._index, node.Tag()), ITEM);
+        break;
+      case SPLICE:
+        if (node.hasAttrib() && (node.Attrib().has(INDEX) || node.Attrib().has(ELEMENT_TAG))) { // own ones go first
+          frame._target.child(unlisted(item(node, frame._index, node.Tag())), node);
+        } else {
+          frame._target.child(node.Tag(), node);
+        } // if
+        break;
+      default:
+        break;
+    } // switch
+  } // method
+
+  /**
+   * Add a child of __children__ to the target; a node marked as list, e.g. an array written as
+   * object before, has its children added instead.
+   */
+  private static void adopt(Frame target, IPax node, String tag) {
+    IPax list = node.hasAttrib() ? node.Attrib().get(Identity.LIST) : null;
+    if (list != null && "true".equals(list.Val()) && node.hasChild()) {
+      List<IPax> elements = node.Child().all();
+      node.Child().del();
+      for (IPax element : elements) {
+        target.child(unlisted(element), element);
+      } // loop
+    } else {
+      target.child(tagged(node, tag), node);
+    } // if
+  } // method
+
+  /**
+   * Add the attribute an item of __attributes__ built as node names, by its children or attributes
+   * named name and value.
+   */
+  private static void addNamed(Frame target, IPax item) {
+    IPax nameNode = null;
+    IPax valueNode = null;
+    if (item.hasChild()) {
+      for (IPax child : item.Child().all()) {
+        if ("name".equals(child.Tag())) {
+          nameNode = child;
+        } else if ("value".equals(child.Tag())) {
+          valueNode = child;
+        } // if
+      } // loop
+    } // if
+    if (nameNode == null && item.hasAttrib()) {
+      nameNode = item.Attrib().get("name");
+    } // if
+    if (valueNode == null && item.hasAttrib()) {
+      valueNode = item.Attrib().get("value");
+    } // if
+    if (nameNode != null && nameNode.hasVal()) {
+      target.attribute(nameNode.Val(), valueNode != null && valueNode.hasVal() ? valueNode.Val() : "");
+    } // if
+  } // method
+
+  /**
+   * Drop the index and former tag an item carries as attributes.
+   *
+   * @return the former tag, or item if it has none
+   */
+  private static String unlisted(IPax item) {
+    String tag = ITEM;
+    IPax former = item.Attrib().get(ELEMENT_TAG);
+    if (former != null && former.hasVal()) {
+      tag = former.Val();
+      item.Attrib().del(ELEMENT_TAG);
+    } // if
+    item.Attrib().del(INDEX);
+    return tag;
+  } // method
+
+  /**
+   * @return the value of a child tagged __tag__, which a child of __children__ is tagged by, or tag
+   */
+  private static String tagged(IPax node, String tag) {
+    if (node.hasChild()) {
+      IPax tagNode = node.Child().get("__tag__");
+      if (tagNode != null && tagNode.hasVal()) {
+        return tagNode.Val();
+      } // if
+    } // if
+    return tag;
+  } // method
+
+  /**
+   * @return the node tagged item, carrying its index and former tag as attributes
+   */
+  private static IPax item(IPax node, int index, String tag) {
+    node.Tag(ITEM);
+    node.Attrib().add(INDEX, String.valueOf(index));
+    node.Attrib().add(ELEMENT_TAG, tag);
+    return node;
+  } // method
+
+  private static IPax produce(String tag, String text) {
+    return text == null ? Instances.Factory().produce(tag) : Instances.Factory().produce(tag, text);
+  } // method
+
+  private String text(int token) {
+    switch (token) {
+      case JsonTokenizer.STRING:
+      case JsonTokenizer.NUMBER:
+        return _tokens.text();
+      case JsonTokenizer.TRUE:
+        return "true";
+      case JsonTokenizer.FALSE:
+        return "false";
+      case JsonTokenizer.NULL:
+        return null;
+      case JsonTokenizer.END:
+        throw new RuntimeException("Unexpected end at position " + _tokens.position());
+      default:
+        throw new RuntimeException("Unexpected token at position " + _tokens.position());
+    } // switch
+  } // method
+
+  /**
+   * @return the tag a scalar had as node of its own
+   */
+  private static String kind(int token) {
+    switch (token) {
+      case JsonTokenizer.STRING:
+        return "string";
+      case JsonTokenizer.NUMBER:
+        return "number";
+      case JsonTokenizer.NULL:
+        return "null";
+      default:
+        return "boolean";
+    } // switch
+  } // method
+
+  private Frame push(int kind, boolean isObject, Frame target) {
+    if (_depth == _stack.length) {
+      _stack = Arrays.copyOf(_stack, _depth * 2);
+    } // if
+    Frame frame = _stack[_depth];
+    if (frame == null) {
+      frame = new Frame();
+      _stack[_depth] = frame;
+    } // if
+    _depth++;
+    frame._kind = kind;
+    frame._isObject = isObject;
+    frame._target = target;
+    if (kind == OBJECT) {
+      frame._node = Instances.Factory().produce("object");
+    } else if (kind == ARRAY) {
+      frame._node = Instances.Factory().produce("array");
+      frame._node.Attrib().add(Identity.LIST, "true");
+    } // if
+    return frame;
+  } // method
+
+  /**
+   * An object or array open, reused for the next one opened at its depth.
+   */
+  private static final class Frame {
+
+    private int _kind; // member
+
+    private boolean _isObject; // member
+
+    private IPax _node; // member, of OBJECT and ARRAY
+
+    private Frame _target; // member, the OBJECT or ATTRIBUTE getting children and attributes
+
+    private int _member; // member, key of the member read, e.g. TAG
+
+    private String _key; // member, of the member read, if needed as tag
+
+    private int _index; // member, of the next item
+
+    private int _fallbackIndex; // member, of an empty SPLICE
+
+    private String _lastTag; // member, of the child added last
+
+    private boolean _isScattered; // member, true if children of a tag are not adjacent
+
+    private String _text; // member, of TEXT
+
+    private boolean _hasName; // member, of ATTRIBUTE ..
+
+    private String _name; // member
+
+    private boolean _hasValue; // member
+
+    private String _value; // member
+
+    private boolean _hasAttribName; // member
+
+    private String _attribName; // member
+
+    private boolean _hasAttribValue; // member
+
+    private String _attribValue; // member
+
+    int closing() {
+      return _isObject ? JsonTokenizer.END_OBJECT : JsonTokenizer.END_ARRAY;
+    } // method
+
+    Frame fallback(String tag, int index) {
+      _key = tag;
+      _fallbackIndex = index;
+      return this;
+    } // method
+
+    /**
+     * Add a child to the node of an OBJECT, note a name or value of an ATTRIBUTE, or hand a child
+     * on as member of CHILDREN or as item of ATTRIBUTES.
+     */
+    void child(String tag, IPax child) {
+      if (_kind == OBJECT) {
+        if (!tag.equals(child.Tag())) {
+          child.Tag(tag);
+        } // if
+        if (_lastTag != null && !tag.equals(_lastTag) && _node.Child().has(tag)) {
+          _isScattered = true;
+        } // if
+        _node.Child().add(child);
+        _lastTag = tag;
+      } else if (_kind == ATTRIBUTE) {
+        if ("name".equals(tag)) {
+          record(NAME, child.hasVal() ? child.Val() : null);
+        } else if ("value".equals(tag)) {
+          record(VAL, child.hasVal() ? child.Val() : null);
+        } // if
+      } else if (_kind == CHILDREN) {
+        adopt(_target, child, tag);
+      } else if (_kind == ATTRIBUTES) {
+        addNamed(_target, child);
+      } // if
+    } // method
+
+    /**
+     * Add an attribute to the node of an OBJECT, or note the first name or value of an ATTRIBUTE.
+     */
+    void attribute(String name, String value) {
+      if (_kind == OBJECT) {
+        _node.Attrib().add(name, value);
+      } else if (_kind == ATTRIBUTE) {
+        if ("name".equals(name) && !_hasAttribName) {
+          _hasAttribName = true;
+          _attribName = Pax.isVal(value) ? value : null;
+        } else if ("value".equals(name) && !_hasAttribValue) {
+          _hasAttribValue = true;
+          _attribValue = Pax.isVal(value) ? value : null;
+        } // if
+      } // if
+    } // method
+
+    /**
+     * Note the last name or value of an ATTRIBUTE; null for having none.
+     */
+    void record(int member, String text) {
+      if (member == NAME) {
+        _hasName = true;
+        _name = text;
+      } else {
+        _hasValue = true;
+        _value = text;
+      } // if
+    } // method
+
+    /**
+     * Add the attribute read by an ATTRIBUTE to its target, if it has a name; children named name
+     * or value go before attributes named so.
+     */
+    void resolve() {
+      String name = _hasName ? _name : _attribName;
+      if (name != null) {
+        String value = _hasValue ? _value : _attribValue;
+        _target.attribute(name, value != null ? value : "");
+      } // if
+    } // method
+
+    /**
+     * Group the children of an OBJECT by tag, in the order the tags first occur, if they are not.
+     */
+    void group() {
+      if (_isScattered) {
+        IChildren children = _node.Child();
+        List<IPax> grouped = new ArrayList<>(children.cnt());
+        for (IPax child : children.all()) {
+          String tag = child.Tag();
+          if (children.get(tag) == child) { // the first of its tag brings all of them
+            int cnt = children.cnt(tag);
+            for (int n = 0; n < cnt; n++) {
+              grouped.add(children.get(tag, n));
+            } // loop
+          } // if
+        } // loop
+        children.del();
+        for (IPax child : grouped) {
+          children.add(child);
+        } // loop
+      } // if
+    } // method
+
+    void clear() {
+      _node = null;
+      _target = null;
+      _member = OTHER;
+      _key = null;
+      _index = 0;
+      _lastTag = null;
+      _isScattered = false;
+      _text = null;
+      _hasName = false;
+      _name = null;
+      _hasValue = false;
+      _value = null;
+      _hasAttribName = false;
+      _attribName = null;
+      _hasAttribValue = false;
+      _attribValue = null;
+    } // method
+
+  } // class
+
+} // class
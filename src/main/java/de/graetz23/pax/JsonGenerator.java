@@ -8,139 +8,283 @@
 
 package de.graetz23.pax;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
 public class JsonGenerator {
 
+  static final byte STRING = 1;
+
+  static final byte NUMBER = 2;
+
+  static final byte LITERAL = 3;
+
+  static final byte NULL = 4;
+
   public static String generate(IPax pax) {
+    return generate(pax, false);
+  }
+
+  /**
+   * @param cached as true for keeping the classification of each value in its node, so rendering
+   * the same tree again does not classify its values anew
+   */
+  public static String generate(IPax pax, boolean cached) {
     StringBuilder json = new StringBuilder();
-    toJson(pax, json, 0, true);
+    try {
+      generate(pax, json, cached);
+    } catch (IOException e) {
+      e.printStackTrace(); // never thrown by a StringBuilder
+    }
     return json.toString();
   }
 
-  private static void toJson(IPax pax, StringBuilder json, int indent, boolean isRoot) {
+  /**
+   * Stream the JSON of a tree into some Appendable, node by node, without building the document as
+   * a whole.
+   */
+  public static void generate(IPax pax, Appendable json) throws IOException {
+    toJson(pax, json, false);
+  }
+
+  /**
+   * @param cached as true for keeping the classification of each value in its node
+   */
+  public static void generate(IPax pax, Appendable json, boolean cached) throws IOException {
+    toJson(pax, json, cached);
+  }
+
+  /**
+   * Stream the JSON of a tree into a Writer through a bounded buffer; the writer is flushed, not
+   * closed.
+   */
+  public static void generate(IPax pax, java.io.Writer writer) throws IOException {
+    BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer, XmlGenerator.BUFFER);
+    toJson(pax, out, false);
+    out.flush();
+  }
+
+  /**
+   * Stream the JSON of a tree as UTF-8 into an OutputStream through a bounded buffer; the stream is
+   * flushed, not closed.
+   */
+  public static void generate(IPax pax, OutputStream stream) throws IOException {
+    generate(pax, new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+  }
+
+  private static void toJson(IPax pax, Appendable json, boolean cached) throws IOException {
     if (pax == null || !pax.hasTag()) {
       json.append("null");
       return;
     }
 
-    String tag = pax.Tag();
-
     json.append("{");
-
-    boolean hasContent = false;
-
     json.append("\"__tag__\": \"");
-    json.append(escapeJson(tag));
+    escapeJson(pax.Tag(), json);
     json.append("\"");
-    hasContent = true;
 
     if (pax.hasVal()) {
-      if (hasContent) json.append(", ");
+      json.append(", ");
       json.append("\"__value__\": ");
-      appendJsonValue(pax.Val(), json);
-      hasContent = true;
+      appendJsonValue(pax, json, cached);
     }
 
-    List<IPax> attrs = pax.Attrib().all();
-    if (!attrs.isEmpty()) {
-      if (hasContent) json.append(", ");
+    if (pax.hasAttrib()) {
+      List<IPax> attrs = pax.Attrib().all();
+      json.append(", ");
       json.append("\"__attributes__\": [");
       for (int i = 0; i < attrs.size(); i++) {
         if (i > 0) json.append(", ");
         IPax attr = attrs.get(i);
         json.append("{");
-        json.append("\"name\": \"").append(escapeJson(attr.Tag())).append("\", ");
+        json.append("\"name\": \"");
+        escapeJson(attr.Tag(), json);
+        json.append("\", ");
         json.append("\"value\": ");
-        appendJsonValue(attr.Val(), json);
+        appendJsonValue(attr, json, cached);
         json.append("}");
       }
       json.append("]");
-      hasContent = true;
     }
 
-    List<IPax> children = pax.Child().all();
-    if (!children.isEmpty()) {
-      if (hasContent) json.append(", ");
+    if (pax.hasChild()) {
+      List<IPax> children = pax.Child().all();
+      json.append(", ");
       json.append("\"__children__\": {");
-
-      Map<String, List<IPax>> childGroups = new LinkedHashMap<>();
-      for (IPax child : children) {
-        String childTag = child.Tag();
-        if (!childGroups.containsKey(childTag)) {
-          childGroups.put(childTag, new ArrayList<>());
-        }
-        childGroups.get(childTag).add(child);
-      }
-
+      int n = children.size();
+      int[] next = new int[n];
+      boolean[] follower = new boolean[n];
+      group(children, next, follower);
       boolean firstChild = true;
-      for (Map.Entry<String, List<IPax>> entry : childGroups.entrySet()) {
-        if (!firstChild) json.append(", ");
-
-        String childTag = entry.getKey();
-        List<IPax> childList = entry.getValue();
+      for (int i = 0; i < n; i++) {
+        if (follower[i]) continue; // written with the first sibling having its tag
 
-        if (childList.size() == 1) {
-          json.append("\"").append(escapeJson(childTag)).append("\": ");
-          toJsonValue(childList.get(0), json, false, true);
+        if (!firstChild) json.append(", ");
+        json.append("\"");
+        escapeJson(children.get(i).Tag(), json);
+        json.append("\": ");
+        if (next[i] == LAST) {
+          toJsonValue(children.get(i), json, cached);
         } else {
-          json.append("\"").append(escapeJson(childTag)).append("\": [");
-          for (int i = 0; i < childList.size(); i++) {
-            if (i > 0) json.append(", ");
-            toJsonValue(childList.get(i), json, false, true);
+          json.append("[");
+          for (int j = i; j != LAST; j = next[j]) {
+            if (j > i) json.append(", ");
+            toJsonValue(children.get(j), json, cached);
           }
           json.append("]");
         }
         firstChild = false;
       }
-
       json.append("}");
     }
 
     json.append("}");
   }
 
-  private static void toJsonValue(IPax pax, StringBuilder json, boolean isRoot, boolean forceObject) {
-    if (forceObject && pax.hasTag()) {
-      toJson(pax, json, 0, false);
+  private static final int LAST = -1;
+
+  /**
+   * Groups siblings of equal tags in the order they first occur, without any map: positions are
+   * sorted by the hash of their tags, then chained per tag.
+   *
+   * @param next as filled with the next position having the same tag, or LAST
+   * @param follower as filled with true for all but the first position of each tag
+   */
+  private static void group(List<IPax> children, int[] next, boolean[] follower) {
+    int n = children.size();
+    Arrays.fill(next, LAST);
+    if (n < 2) {
+      return;
+    }
+    String[] tags = new String[n];
+    long[] keys = new long[n];
+    for (int i = 0; i < n; i++) {
+      tags[i] = children.get(i).Tag();
+      keys[i] = ((long) Objects.hashCode(tags[i]) << 32) | i;
+    }
+    Arrays.sort(keys); // equal hashes are adjacent, each in document order
+    for (int k = 0; k < n; ) {
+      int end = k + 1;
+      while (end < n && (keys[end] >>> 32) == (keys[k] >>> 32)) end++;
+      for (int a = k; a < end; a++) {
+        int first = (int) keys[a];
+        if (follower[first]) continue;
+        int last = first;
+        for (int b = a + 1; b < end; b++) { // mostly one tag per hash, so a single pass
+          int j = (int) keys[b];
+          if (!follower[j] && Objects.equals(tags[first], tags[j])) {
+            next[last] = j;
+            follower[j] = true;
+            last = j;
+          }
+        }
+      }
+      k = end;
+    }
+  }
+
+  private static void toJsonValue(IPax pax, Appendable json, boolean cached) throws IOException {
+    if (pax.hasTag()) {
+      toJson(pax, json, cached);
     } else if (pax.hasVal()) {
-      appendJsonValue(pax.Val(), json);
+      appendJsonValue(pax, json, cached);
     } else if (pax.hasChild() || pax.hasAttrib()) {
-      toJson(pax, json, 0, false);
-    } else if (isRoot && pax.hasTag()) {
-      toJson(pax, json, 0, true);
+      toJson(pax, json, cached);
     } else {
       json.append("{}");
     }
   }
 
-  private static void appendJsonValue(String val, StringBuilder json) {
-    if (val == null) {
+  private static void appendJsonValue(IPax pax, Appendable json, boolean cached) throws IOException {
+    String val = pax.Val();
+    byte kind = cached && pax instanceof Pax ? ((Pax) pax).Kind() : classify(val);
+    if (kind == NULL) {
       json.append("null");
-    } else if (val.equals("true") || val.equals("false")) {
-      json.append(val);
-    } else if (isNumeric(val)) {
-      json.append(val);
+    } else if (kind == STRING) {
+      json.append("\"");
+      escapeJson(val, json);
+      json.append("\"");
     } else {
-      json.append("\"").append(escapeJson(val)).append("\"");
+      json.append(val);
     }
   }
 
-  private static String escapeJson(String str) {
-    if (str == null) return "";
-    return str.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t").replace("\b", "\\b").replace("\f", "\\f");
+  /**
+   * Single pass over the string, appending the runs between the characters to be escaped as they
+   * are; nothing is copied if there is nothing to escape.
+   */
+  private static void escapeJson(String str, Appendable json) throws IOException {
+    if (str == null) return;
+    int length = str.length();
+    int from = 0;
+    for (int i = 0; i < length; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') continue; // the common case, a single test for most
+      json.append(str, from, i);
+      switch (c) {
+        case '"': json.append("\\\""); break;
+        case '\\': json.append("\\\\"); break;
+        case '\n': json.append("\\n"); break;
+        case '\r': json.append("\\r"); break;
+        case '\t': json.append("\\t"); break;
+        case '\b': json.append("\\b"); break;
+        case '\f': json.append("\\f"); break;
+        default: json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]); // other controls
+      }
+      from = i + 1;
+    }
+    if (from == 0) {
+      json.append(str);
+    } else {
+      json.append(str, from, length);
+    }
   }
 
-  private static boolean isNumeric(String str) {
-    if (str == null || str.isEmpty()) return false;
-    try {
-      Double.parseDouble(str);
-      return true;
-    } catch (NumberFormatException e) {
-      return false;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Classify a value by the JSON grammar, without parsing it or throwing anything: true and false
+   * are LITERAL, numbers like -0.5e3 are NUMBER, all else is STRING; null is NULL.
+   */
+  static byte classify(String val) {
+    if (val == null) return NULL;
+    int n = val.length();
+    if ((n == 4 && val.equals("true")) || (n == 5 && val.equals("false"))) return LITERAL;
+    int i = 0;
+    if (i < n && val.charAt(i) == '-') i++;
+    if (i == n) return STRING;
+    char c = val.charAt(i);
+    if (c == '0') {
+      i++; // no leading zeros
+    } else if (c >= '1' && c <= '9') {
+      i = digits(val, i);
+    } else {
+      return STRING;
+    }
+    if (i < n && val.charAt(i) == '.') {
+      int start = ++i;
+      i = digits(val, i);
+      if (i == start) return STRING;
     }
+    if (i < n && (val.charAt(i) == 'e' || val.charAt(i) == 'E')) {
+      i++;
+      if (i < n && (val.charAt(i) == '+' || val.charAt(i) == '-')) i++;
+      int start = i;
+      i = digits(val, i);
+      if (i == start) return STRING;
+    }
+    return i == n ? NUMBER : STRING;
+  }
+
+  private static int digits(String val, int i) {
+    int n = val.length();
+    while (i < n && val.charAt(i) >= '0' && val.charAt(i) <= '9') i++;
+    return i;
   }
 }
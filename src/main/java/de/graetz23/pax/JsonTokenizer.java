@@ -0,0 +1,524 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file JsonTokenizer.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull tokenizer of JSON working on UTF-8 bytes: a byte[] or heap buffer is read in place; other
+ * buffers, streams, and readers, encoded chunk by chunk, are read through a bounded window, so the
+ * input is never held as a whole. A string is found by scanning its bytes for the closing quote and
+ * is decoded only if its text is asked for; keys are compared as bytes. Structure is left to the
+ * caller, which asks for one token after another. Malformed input throws a RuntimeException
+ * telling the byte position; not thread safe.
+ */
+final class JsonTokenizer {
+
+  static final int END = 0; // member, of the input
+
+  static final int BEGIN_OBJECT = 1; // member
+
+  static final int END_OBJECT = 2; // member
+
+  static final int BEGIN_ARRAY = 3; // member
+
+  static final int END_ARRAY = 4; // member
+
+  static final int COLON = 5; // member
+
+  static final int COMMA = 6; // member
+
+  static final int STRING = 7; // member, see text()
+
+  static final int NUMBER = 8; // member, see text()
+
+  static final int TRUE = 9; // member
+
+  static final int FALSE = 10; // member
+
+  static final int NULL = 11; // member
+
+  private static final int WINDOW = 64 * 1024; // member
+
+  private final InputStream _stream; // member, or null
+
+  private final ByteBuffer _buffer; // member, copied into the window, or null
+
+  private final java.io.Reader _reader; // member, encoded into the window, or null
+
+  private CharsetEncoder _encoder = null; // member, of the reader
+
+  private CharBuffer _chars = null; // member, read from the reader, not encoded yet
+
+  private boolean _isDrained = false; // member, true if the reader is read to its end
+
+  private byte[] _bytes; // member, the input itself or the window
+
+  private int _pos; // member
+
+  private int _limit; // member
+
+  private long _offset; // member, bytes of the input before _bytes[0]
+
+  private int _start; // member, of the current token; the window keeps the bytes from here on
+
+  private int _end; // member, of the last string or number
+
+  private boolean _isEscaped = false; // member, true if the last string is decoded to _text
+
+  private final StringBuilder _text = new StringBuilder(); // member, reused for strings having escapes
+
+  private static final int NAMES = 256; // member
+
+  private final String[] _names = new String[NAMES]; // member, cache of name()
+
+  private final byte[][] _encoded = new byte[NAMES][]; // member, the bytes of each name cached
+
+  /**
+   * @param bytes read in place, from offset on for length bytes
+   */
+  JsonTokenizer(byte[] bytes, int offset, int length) {
+    this(null, null, null, bytes, offset, offset + length);
+  } // constructor
+
+  /**
+   * @param buffer read from its position to its limit; in place if it is backed by an array
+   */
+  JsonTokenizer(ByteBuffer buffer) {
+    this(null, buffer.hasArray() ? null : buffer.slice(), null,
+        buffer.hasArray() ? buffer.array() : new byte[WINDOW],
+        buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0,
+        buffer.hasArray() ? buffer.arrayOffset() + buffer.limit() : 0);
+  } // constructor
+
+  JsonTokenizer(InputStream stream) {
+    this(stream, null, null, new byte[WINDOW], 0, 0);
+  } // constructor
+
+  /**
+   * @param reader whose chars are encoded to UTF-8 as the window is filled
+   */
+  JsonTokenizer(java.io.Reader reader) {
+    this(null, null, reader, new byte[WINDOW], 0, 0);
+    _encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    _chars = CharBuffer.allocate(WINDOW / 4);
+    _chars.flip();
+  } // constructor
+
+  private JsonTokenizer(InputStream stream, ByteBuffer buffer, java.io.Reader reader, byte[] bytes, int pos, int limit) {
+    _stream = stream;
+    _buffer = buffer;
+    _reader = reader;
+    _bytes = bytes;
+    _pos = pos;
+    _limit = limit;
+    _start = pos;
+    _offset = -pos; // positions count from the first byte given
+  } // constructor
+
+  /**
+   * @return the text of the last STRING or NUMBER, decoded now
+   */
+  String text() {
+    if (_isEscaped) {
+      return _text.toString();
+    } // if
+    return new String(_bytes, _start, _end - _start, StandardCharsets.UTF_8);
+  } // method
+
+  /**
+   * @return the text of the last STRING as a name, e.g. a key; equal names share one string, taken
+   * from a small cache, as keys repeat in most documents
+   */
+  String name() {
+    if (_isEscaped) {
+      return _text.toString();
+    } // if
+    byte[] bytes = _bytes;
+    int hash = 0;
+    for (int i = _start; i < _end; i++) {
+      hash = 31 * hash + bytes[i];
+    } // loop
+    int slot = (hash ^ (hash >>> 16)) & (NAMES - 1);
+    byte[] encoded = _encoded[slot];
+    if (encoded == null || !Arrays.equals(encoded, 0, encoded.length, bytes, _start, _end)) {
+      _encoded[slot] = Arrays.copyOfRange(bytes, _start, _end);
+      _names[slot] = text();
+    } // if
+    return _names[slot];
+  } // method
+
+  /**
+   * @param ascii a string of ASCII chars, e.g. a key looked for
+   * @return true if the text of the last STRING equals the string given; compared to the bytes in
+   * place, without decoding them
+   */
+  boolean is(String ascii) {
+    if (_isEscaped) {
+      return ascii.contentEquals(_text);
+    } // if
+    int length = _end - _start;
+    if (length != ascii.length()) {
+      return false;
+    } // if
+    byte[] bytes = _bytes;
+    for (int i = 0; i < length; i++) {
+      if (bytes[_start + i] != ascii.charAt(i)) {
+        return false;
+      } // if
+    } // loop
+    return true;
+  } // method
+
+  /**
+   * @return the position of the next byte in the input
+   */
+  long position() {
+    return _offset + _pos;
+  } // method
+
+  /**
+   * @return the next token, or END
+   */
+  int next() throws IOException {
+    int c = skipWhitespace();
+    _start = _pos;
+    switch (c) {
+      case -1:
+        return END;
+      case '{':
+        _pos++;
+        return BEGIN_OBJECT;
+      case '}':
+        _pos++;
+        return END_OBJECT;
+      case '[':
+        _pos++;
+        return BEGIN_ARRAY;
+      case ']':
+        _pos++;
+        return END_ARRAY;
+      case ':':
+        _pos++;
+        return COLON;
+      case ',':
+        _pos++;
+        return COMMA;
+      case '"':
+        _start = ++_pos;
+        string();
+        return STRING;
+      case 't':
+        return literal("true", TRUE, "boolean");
+      case 'f':
+        return literal("false", FALSE, "boolean");
+      case 'n':
+        return literal("null", NULL, "null");
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          number();
+          return NUMBER;
+        } // if
+        throw new RuntimeException("Unexpected character: " + new String(Character.toChars(c)) + " at position " + position());
+    } // switch
+  } // method
+
+  /**
+   * @return the next byte not being whitespace, left in the window, or the code point starting
+   * there if it is not ASCII, or -1 at the end; a byte order mark heading the input is skipped
+   */
+  private int skipWhitespace() throws IOException {
+    while (true) {
+      byte[] bytes = _bytes;
+      int limit = _limit;
+      int i = _pos;
+      while (i < limit) {
+        int b = bytes[i];
+        if (b == ' ' || (b >= 0x09 && b <= 0x1F && (b <= 0x0D || b >= 0x1C))) { // as Character.isWhitespace
+          i++;
+          continue;
+        } // if
+        _pos = i;
+        if (b >= 0) {
+          return b;
+        } // if
+        int codePoint = codePoint();
+        if (!Character.isWhitespace(codePoint) && (codePoint != 0xFEFF || position() != 0)) {
+          return codePoint;
+        } // if
+        _pos += codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+        bytes = _bytes;
+        limit = _limit;
+        i = _pos;
+      } // loop
+      _pos = i;
+      _start = i;
+      if (!fill()) {
+        return -1;
+      } // if
+    } // loop
+  } // method
+
+  /**
+   * @return the code point encoded by the bytes at the position, which are left in the window, or
+   * U+FFFD if they are malformed
+   */
+  private int codePoint() throws IOException {
+    _start = _pos;
+    int b = _bytes[_pos] & 0xFF;
+    int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+    while (_limit - _pos < length && fill()) {
+      // read on up to the end of the sequence
+    } // loop
+    if (length == 1 || _limit - _pos < length) {
+      return 0xFFFD;
+    } // if
+    return new String(_bytes, _pos, length, StandardCharsets.UTF_8).codePointAt(0);
+  } // method
+
+  private int literal(String literal, int token, String kind) throws IOException {
+    long start = position();
+    for (int i = 0; i < literal.length(); i++) {
+      if (read() != literal.charAt(i)) {
+        throw new RuntimeException("Invalid " + kind + " at position " + start);
+      } // if
+    } // loop
+    return token;
+  } // method
+
+  /**
+   * Read a string behind its opening quote; its bytes are scanned for the closing quote, neither
+   * copied nor decoded, unless an escape is met.
+   */
+  private void string() throws IOException {
+    _isEscaped = false;
+    while (true) {
+      byte[] bytes = _bytes;
+      int limit = _limit;
+      int i = _pos;
+      while (i < limit) {
+        byte b = bytes[i];
+        if (b == '"') {
+          _end = i;
+          _pos = i + 1;
+          return;
+        } // if
+        if (b == '\\') {
+          _pos = i;
+          escaped();
+          return;
+        } // if
+        i++;
+      } // loop
+      _pos = i;
+      if (!fill()) {
+        throw new RuntimeException("Unterminated string at position " + position());
+      } // if
+    } // loop
+  } // method
+
+  /**
+   * Read the rest of a string from its first escape on, decoding it to the text; the runs between
+   * escapes are appended in bulk.
+   */
+  private void escaped() throws IOException {
+    _isEscaped = true;
+    _text.setLength(0);
+    append(_start, _pos);
+    _start = _pos;
+    while (read() == '\\') {
+      int escaped = read();
+      switch (escaped) {
+        case 'b':
+          _text.append('\b');
+          break;
+        case 'f':
+          _text.append('\f');
+          break;
+        case 'n':
+          _text.append('\n');
+          break;
+        case 'r':
+          _text.append('\r');
+          break;
+        case 't':
+          _text.append('\t');
+          break;
+        case 'u':
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+              throw new RuntimeException("Invalid unicode escape at position " + position());
+            } // if
+            code = code * 16 + digit;
+          } // loop
+          _text.append((char) code); // a surrogate pair is escaped as two
+          break;
+        case -1:
+          throw new RuntimeException("Unterminated string at position " + position());
+        default: // " \ / and any other char stand for themselves
+          if (escaped < 0x80) {
+            _text.append((char) escaped);
+          } else {
+            _pos--; // decoded with the run following
+          } // if
+          break;
+      } // switch
+      _start = _pos;
+      while (true) {
+        byte[] bytes = _bytes;
+        int limit = _limit;
+        int i = _pos;
+        while (i < limit && bytes[i] != '"' && bytes[i] != '\\') {
+          i++;
+        } // loop
+        _pos = i;
+        if (i < limit) {
+          break;
+        } // if
+        if (!fill()) {
+          throw new RuntimeException("Unterminated string at position " + position());
+        } // if
+      } // loop
+      append(_start, _pos);
+      _start = _pos;
+    } // loop
+  } // method
+
+  /**
+   * Append bytes of the window to the text, ASCII as it is and all else decoded from UTF-8.
+   */
+  private void append(int from, int to) {
+    byte[] bytes = _bytes;
+    int i = from;
+    while (i < to) {
+      if (bytes[i] >= 0) {
+        _text.append((char) bytes[i++]);
+      } else {
+        int run = i;
+        while (i < to && bytes[i] < 0) {
+          i++;
+        } // loop
+        _text.append(new String(bytes, run, i - run, StandardCharsets.UTF_8));
+      } // if
+    } // loop
+  } // method
+
+  /**
+   * Read a number as it is written: -, digits, fraction, and exponent; it is not converted.
+   */
+  private void number() throws IOException {
+    _isEscaped = false;
+    if (peek() == '-') {
+      _pos++;
+    } // if
+    digits();
+    if (peek() == '.') {
+      _pos++;
+      digits();
+    } // if
+    if (peek() == 'e' || peek() == 'E') {
+      _pos++;
+      if (peek() == '+' || peek() == '-') {
+        _pos++;
+      } // if
+      digits();
+    } // if
+    _end = _pos;
+  } // method
+
+  private void digits() throws IOException {
+    int c = peek();
+    while (c >= '0' && c <= '9') {
+      _pos++;
+      c = peek();
+    } // loop
+  } // method
+
+  private int peek() throws IOException {
+    return _pos < _limit || fill() ? _bytes[_pos] & 0xFF : -1;
+  } // method
+
+  private int read() throws IOException {
+    return _pos < _limit || fill() ? _bytes[_pos++] & 0xFF : -1;
+  } // method
+
+  /**
+   * Read on into the window, moving the bytes of the current token to its front; the window grows
+   * if a single token fills it.
+   *
+   * @return false at the end of the input, or true having read some bytes
+   */
+  private boolean fill() throws IOException {
+    if (_stream == null && _buffer == null && _reader == null) {
+      return false; // read in place, as a whole
+    } // if
+    int keep = _start;
+    if (keep > 0) {
+      System.arraycopy(_bytes, keep, _bytes, 0, _limit - keep);
+      _offset += keep;
+      _pos -= keep;
+      _end -= keep;
+      _limit -= keep;
+      _start = 0;
+    } // if
+    if (_bytes.length - _limit < 16) { // room for a char encoded, at least
+      _bytes = Arrays.copyOf(_bytes, _bytes.length * 2);
+    } // if
+    int read;
+    if (_stream != null) {
+      read = _stream.read(_bytes, _limit, _bytes.length - _limit);
+    } else if (_buffer != null) {
+      read = Math.min(_buffer.remaining(), _bytes.length - _limit);
+      _buffer.get(_bytes, _limit, read);
+    } else {
+      read = encode(_limit, _bytes.length - _limit);
+    } // if
+    if (read <= 0) {
+      return false;
+    } // if
+    _limit += read;
+    return true;
+  } // method
+
+  /**
+   * Encode chars of the reader into the window; a surrogate pair split by reading is kept until
+   * both of its halves are read.
+   *
+   * @return the count of bytes encoded, or -1 at the end
+   */
+  private int encode(int offset, int length) throws IOException {
+    ByteBuffer out = ByteBuffer.wrap(_bytes, offset, length);
+    while (out.position() == offset && !_isDrained) {
+      _chars.compact();
+      int read = _reader.read(_chars);
+      _chars.flip();
+      if (read < 0) {
+        _isDrained = true;
+        _encoder.encode(_chars, out, true);
+        _encoder.flush(out);
+      } else {
+        _encoder.encode(_chars, out, false);
+      } // if
+    } // loop
+    int encoded = out.position() - offset;
+    return encoded > 0 ? encoded : -1;
+  } // method
+
+} // class
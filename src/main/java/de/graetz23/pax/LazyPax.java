@@ -0,0 +1,88 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file LazyPax.java
+ */
+
+package de.graetz23.pax;
+
+/**
+ * Pax loaded on demand from an offset index over the bytes of a document, e.g. a memory mapped
+ * file; see Reader.lazy(..). A node knows its tag only, until its value, attributes, or children
+ * are touched first; then its own byte range is read again, while its children are added unloaded.
+ * So querying a few nodes of a large document loads the path from the root to them only. Behaves
+ * like any Pax otherwise; not thread safe, as loading changes the node.
+ */
+public class LazyPax extends Pax {
+
+  private final XmlIndex _index; // member
+
+  private final int _node; // member
+
+  private boolean _loaded = false; // member
+
+  LazyPax(XmlIndex index, int node) {
+    super(index.Tag(node));
+    _index = index;
+    _node = node;
+  } // constructor
+
+  /**
+   * @return true if the value, the attributes, and the children were loaded
+   */
+  public boolean isLoaded() {
+    return _loaded;
+  } // method
+
+  private void load() {
+    if (!_loaded) {
+      _loaded = true;
+      _index.load(this, _node);
+    } // if
+  } // method
+
+  @Override
+  public String Val() {
+    load();
+    return super.Val();
+  } // method
+
+  @Override
+  public void Val(String val) {
+    load(); // not to be overwritten by loading later
+    super.Val(val);
+  } // method
+
+  @Override
+  public boolean hasVal() {
+    load();
+    return super.hasVal();
+  } // method
+
+  @Override
+  public IChildren Child() {
+    load();
+    return super.Child();
+  } // method
+
+  @Override
+  public boolean hasChild() {
+    load();
+    return super.hasChild();
+  } // method
+
+  @Override
+  public IAttributes Attrib() {
+    load();
+    return super.Attrib();
+  } // method
+
+  @Override
+  public boolean hasAttrib() {
+    load();
+    return super.hasAttrib();
+  } // method
+
+} // class
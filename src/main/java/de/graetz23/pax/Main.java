@@ -34,7 +34,7 @@ public class Main {
         String xml_ = loaded.XML(); // generate XMl from loaded
         System.out.println(xml_);
 
-        // search for some nodes by absolute or relative path; no wildcards yet
+        // search for some nodes by absolute or relative path; select() takes wildcards and predicates
 
         String xpath_absolute1 = "/root/child1/child4/"; // hit
         IPax found1 = root.Child().search(xpath_absolute1);
@@ -9,9 +9,11 @@
 package de.graetz23.pax;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class Pax implements IPax {
 
@@ -25,6 +27,19 @@ public class Pax implements IPax {
 
   private IAttributes _attributes = null; // member
 
+  private PaxIndex _index = null; // member
+
+  private byte _kind = 0; // member, JSON kind of the value or 0 if not classified yet
+
+  private static final int PATHS = 256; // member
+
+  private static final Map<String, String[]> _paths = new LinkedHashMap<String, String[]>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+      return size() > PATHS;
+    } // method
+  }; // member, tags of the paths searched lately
+
   public Pax(String tag) {
     Tag(tag);
   } // constructor
@@ -74,7 +89,25 @@ public class Pax implements IPax {
 
   @Override
   public void Tag(String tag) {
+    String old = _tag;
     _tag = tag;
+    if (_parent instanceof Pax && !Objects.equals(old, tag)) { // keep the parent's index in line
+      ((Pax) _parent).retag(this);
+    } // if
+    if (_index != null && !Objects.equals(old, tag)) {
+      _index.retag(this, old);
+    } // if
+    if (!Objects.equals(old, tag)) {
+      changed();
+    } // if
+  } // method
+
+  void retag(IPax pax) {
+    if (!(_children instanceof Subset && ((Subset) _children).retag(pax))) {
+      if (_attributes instanceof Subset) {
+        ((Subset) _attributes).retag(pax);
+      } // if
+    } // if
   } // method
 
   @Override
@@ -89,11 +122,27 @@ public class Pax implements IPax {
 
   @Override
   public void Val(String val) {
-    if (val != null && !val.isEmpty() && !val.isBlank() && !val.toLowerCase().equals(Statics.LineSeparator) && !val.toLowerCase().equals("\n")) {
+    String old = _val;
+    if (isVal(val)) {
       _val = val;
     } else {
       _val = null;
     } // if
+    _kind = 0;
+    if (_index != null && !Objects.equals(old, _val)) {
+      _index.revalue(this, old);
+    } // if
+    if (!Objects.equals(old, _val)) {
+      changed();
+    } // if
+  } // method
+
+  /**
+   * Empty, blank, or newline-only values are rejected and stored as null; shared by all IPax
+   * implementations of this package.
+   */
+  static boolean isVal(String val) {
+    return val != null && !val.isBlank(); // line separators are blank, too
   } // method
 
   @Override
@@ -116,6 +165,37 @@ public class Pax implements IPax {
     return _parent != null;
   } // method
 
+  /**
+   * @return null or the document wide index this node is attached to
+   */
+  PaxIndex Index() {
+    return _index;
+  } // method
+
+  void Index(PaxIndex index) {
+    _index = index;
+  } // method
+
+  /**
+   * @return the JSON kind of the value, classified once and kept until the value changes
+   */
+  byte Kind() {
+    if (_kind == 0) {
+      _kind = JsonGenerator.classify(_val);
+    } // if
+    return _kind;
+  } // method
+
+  /**
+   * Called after the tag, the value, the attributes, or the children of this node changed; tells a
+   * copy-on-write parent, which has to give up its shared state.
+   */
+  void changed() {
+    if (_parent instanceof CowPax) {
+      ((CowPax) _parent).changed();
+    } // if
+  } // method
+
   @Override
   public String Path() {
     String path = null;
@@ -195,89 +275,122 @@ public class Pax implements IPax {
     return JsonGenerator.generate(this);
   } // method
 
-  protected final class Children extends Subset implements IChildren {
+  /**
+   * Search a node by given path relative to some ancestor; absolute paths start at its root and
+   * relative ones, starting with ./, at the ancestor itself. A tag naming no child is taken as
+   * found if it names the node reached so far. The tags of a path are split once and cached.
+   */
+  static IPax search(IPax ancestor, String path) {
+    IPax found = null;
+    if (ancestor != null && path != null && (path.startsWith("/") || path.startsWith("./"))) {
 
-    public Children(IPax ancestor) {
-      super(ancestor);
-    } // constructor
+      IPax current = ancestor;
 
-    /**
-     * Search a node by given path; like XPath, e.g. /child1/child4/wanted
-     *
-     * @param path as the path having slashes as hierarchical separators
-     * @return null or the found IPax object
-     */
-    @Override
-    public IPax search(String path) {
-      IPax found = null;
-      if (path != null && (path.startsWith("/") || path.startsWith("./"))) {
-
-        IPax current = this.Ancestor();
+      if (path.startsWith("/")) { // walk up root
 
-        if (path.startsWith("/")) { // walk up root
+        while (current.hasParent()) {
+          current = current.Parent();
+        } // loop
 
-          while (current.hasParent()) {
-            current = current.Parent();
-          } // loop
+      } else { // start with child
 
-        } else if (path.startsWith(".")) { // start with child
+        int dots = 0;
+        while (dots < path.length() && path.charAt(dots) == '.') { // remove all dots
+          dots++;
+        } // loop
+        path = current.Tag() + path.substring(dots); // add myself for searching below
 
-          while (path.startsWith(".")) { // remove alls dots
-            path = path.substring(1, path.length());
-          } // if
+      } // if
 
-          String tag = current.Tag();
-          path = tag + path; // add myself for searching below
+      boolean wasFound = false;
+      for (String tag : tags(path)) {
 
-        } // if
+        if (current.Child().has(tag)) {
 
-        if (current != null) {
+          IPax child = current.Child().get(tag);
+          if (child != null) {
+            current = child;
+            wasFound = true;
+          } else {
+            wasFound = false;
+          } // if
 
-          while (path.contains("//")) {
-            path = path.replaceAll("//", "/");
-          } // loop
+        } else {
+          wasFound = current.Tag().equals(tag);
+        } // if
 
-          while (path.startsWith("/")) { // remove all leading
-            int endIndx = path.length();
-            path = path.substring(1, endIndx);
-          } // loop
+      } // loop
 
-          while (path.endsWith("/")) { // remove all trailing
-            int endIndx = path.length() - 1;
-            path = path.substring(0, endIndx);
-          } // loop
+      if (wasFound) {
+        found = current;
+      } // if
+    } // if
+    return found;
+  } // method
 
-          boolean wasFound = false;
-          List<String> list = Arrays.stream(path.split("/")).toList();
-          for (String tag : list) {
+  /**
+   * @return the tags of a path, split at slashes of any number; leading and trailing ones ignored
+   */
+  private static String[] tags(String path) {
+    String[] tags;
+    synchronized (_paths) {
+      tags = _paths.get(path);
+    } // synchronized
+    if (tags == null) {
+      List<String> list = new ArrayList<>();
+      int start = 0;
+      for (int i = 0; i <= path.length(); i++) {
+        if (i == path.length() || path.charAt(i) == '/') {
+          if (i > start) {
+            list.add(path.substring(start, i));
+          } // if
+          start = i + 1;
+        } // if
+      } // loop
+      tags = list.isEmpty() ? new String[] {""} : list.toArray(new String[0]);
+      synchronized (_paths) {
+        _paths.put(path, tags);
+      } // synchronized
+    } // if
+    return tags;
+  } // method
 
-            if (current.Child().has(tag)) {
+  protected final class Children extends Subset implements IChildren {
 
-              IPax child = current.Child().get(tag);
-              if (child != null) {
-                current = child;
-                wasFound = true;
-              } else {
-                wasFound = false;
-              } // if
+    public Children(IPax ancestor) {
+      super(ancestor);
+    } // constructor
 
-            } else {
-              if (current.Tag().equals(tag)) {
-                wasFound = true;
-              } else {
-                wasFound = false;
-              } // if
-            } // if
+    /**
+     * Search a node by given path; like XPath, e.g. /child1/child4/wanted
+     *
+     * @param path as the path having slashes as hierarchical separators
+     * @return null or the found IPax object
+     */
+    @Override
+    public IPax search(String path) {
+      return Pax.search(this.Ancestor(), path);
+    } // method
 
-          } // loop
+    @Override
+    public IPax select(String path) {
+      return PaxPath.compile(path).first(this.Ancestor());
+    } // method
 
-          if (wasFound) {
-            found = current;
-          } // if
-        } // if
+    @Override
+    protected void added(IPax member) {
+      if (_index != null) {
+        _index.add(member);
       } // if
+      changed();
+    } // method
 
-      return found;
+    @Override
+    protected void removed(IPax member) {
+      if (_index != null) {
+        _index.remove(member);
+      } // if
+      changed();
     } // method
 
   } // nested
@@ -293,11 +406,27 @@ public class Pax implements IPax {
       StringBuilder xml = new StringBuilder();
       List<IPax> attribs = all();
       for (IPax attrib : attribs) {
-        xml.append(attrib.Tag()).append("=\"").append(attrib.Val()).append("\" ");
+        xml.append(attrib.Tag()).append("=\"").append(XmlGenerator.escapeAttrib(attrib.Val())).append("\" ");
       }
       return xml.toString().trim();
     } // method
 
+    @Override
+    protected void added(IPax member) {
+      if (_index != null) {
+        _index.addAttrib(Pax.this, member);
+      } // if
+      changed();
+    } // method
+
+    @Override
+    protected void removed(IPax member) {
+      if (_index != null) {
+        _index.removeAttrib(Pax.this, member);
+      } // if
+      changed();
+    } // method
+
   } // nested
 
 } // class
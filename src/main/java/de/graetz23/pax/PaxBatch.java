@@ -0,0 +1,328 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxBatch.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Parses many small XML and JSON files concurrently: the files are read on virtual threads, if the
+ * JVM has them, or on a pool of platform threads otherwise, at most as many at once as the limit
+ * of concurrency; the bytes read are parsed on a ForkJoinPool, whose threads keep their parsers.
+ * Each result is handed to the caller's thread as soon as it is complete, carrying the tree or the
+ * error of its file; nothing is printed. Files ending in .json are read by JsonReader, all others
+ * by the Reader given.
+ */
+public final class PaxBatch {
+
+  private final List<Path> _paths; // member
+
+  private int _concurrency = 256; // member
+
+  private Reader _reader = Reader.Instance; // member
+
+  private ForkJoinPool _pool = ForkJoinPool.commonPool(); // member
+
+  private PaxBatch(List<Path> paths) {
+    _paths = paths;
+  } // constructor
+
+  /**
+   * @param paths as the files to be parsed, in the order they are started
+   * @return a batch of the files
+   */
+  public static PaxBatch of(Collection<Path> paths) {
+    return new PaxBatch(new ArrayList<>(paths));
+  } // method
+
+  /**
+   * @param directory as the directory searched recursively for .xml and .json files
+   * @return a batch of the files found
+   */
+  public static PaxBatch of(Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return new PaxBatch(files.filter(Files::isRegularFile).filter(PaxBatch::isPax).sorted().toList());
+    } // try
+  } // method
+
+  private static boolean isPax(Path path) {
+    String name = path.getFileName().toString().toLowerCase();
+    return name.endsWith(".xml") || name.endsWith(".json");
+  } // method
+
+  /**
+   * @param concurrency as the most files read and parsed at once; 256 by default
+   */
+  public PaxBatch concurrency(int concurrency) {
+    _concurrency = Math.max(1, concurrency);
+    return this;
+  } // method
+
+  /**
+   * @param reader as the reader of the XML files; Reader.Instance by default
+   */
+  public PaxBatch reader(Reader reader) {
+    _reader = reader;
+    return this;
+  } // method
+
+  /**
+   * @param pool as the pool parsing the bytes read; ForkJoinPool.commonPool() by default
+   */
+  public PaxBatch pool(ForkJoinPool pool) {
+    _pool = pool;
+    return this;
+  } // method
+
+  /**
+   * @return the number of files of this batch
+   */
+  public int cnt() {
+    return _paths.size();
+  } // method
+
+  /**
+   * Parse all files, handing each result to the consumer as it completes, on the calling thread.
+   *
+   * @param consumer as called once per file, in the order the files complete
+   * @return the numbers of the batch, e.g. files and bytes per second
+   */
+  public Stats parse(Consumer<Result> consumer) {
+    Stats stats = new Stats();
+    Semaphore permits = new Semaphore(_concurrency);
+    BlockingQueue<Result> done = new LinkedBlockingQueue<>();
+    ExecutorService readers = readers();
+    long start = System.nanoTime();
+    int started = 0;
+    try {
+      for (Path path : _paths) {
+        while (!permits.tryAcquire()) { // hand over results while waiting for a file to finish
+          deliver(done.take(), stats, consumer);
+        } // loop
+        readers.execute(() -> read(path, permits, done));
+        started++;
+        for (Result result = done.poll(); result != null; result = done.poll()) {
+          deliver(result, stats, consumer);
+        } // loop
+      } // loop
+      while (stats._files < started) {
+        deliver(done.take(), stats, consumer);
+      } // loop
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt(); // stop handing over, files started finish on their own
+    } finally {
+      readers.shutdown();
+    } // try
+    stats._nanos = System.nanoTime() - start;
+    return stats;
+  } // method
+
+  /**
+   * @return the results of all files, in the order they completed
+   */
+  public List<Result> parse() {
+    List<Result> results = new ArrayList<>(_paths.size());
+    parse(results::add);
+    return results;
+  } // method
+
+  private static void deliver(Result result, Stats stats, Consumer<Result> consumer) {
+    stats._files++;
+    stats._bytes += result._bytes;
+    if (result._error != null) {
+      stats._failed++;
+    } // if
+    consumer.accept(result);
+  } // method
+
+  /**
+   * Runs on a thread reading; the permit is given back before the result is put, so the caller
+   * waiting for a permit always finds a result to hand over.
+   */
+  private void read(Path path, Semaphore permits, BlockingQueue<Result> done) {
+    long start = System.nanoTime();
+    long bytes = 0;
+    IPax root = null;
+    Exception error = null;
+    try {
+      byte[] content = Files.readAllBytes(path);
+      bytes = content.length;
+      root = _pool.submit(() -> parse(path, content)).get(); // the thread reading waits, cheaply if virtual
+    } catch (ExecutionException exception) {
+      error = exception.getCause() instanceof Exception ? (Exception) exception.getCause() : exception;
+    } catch (Exception exception) {
+      error = exception;
+    } finally {
+      if (root == null && error == null) { // nothing in there, or thrown some error
+        error = new IOException("no root element: " + path);
+      } // if
+      permits.release();
+      done.add(new Result(path, root, error, bytes, System.nanoTime() - start));
+    } // try
+  } // method
+
+  private IPax parse(Path path, byte[] content) throws Exception {
+    if (path.getFileName().toString().toLowerCase().endsWith(".json")) {
+      return JsonReader.Instance.parseJson(content);
+    } // if
+    return _reader.read(new ByteArrayInputStream(content));
+  } // method
+
+  /**
+   * @return an executor starting a virtual thread per file, or a pool of platform threads, as many
+   * as the concurrency, on JVMs not having virtual threads
+   */
+  private ExecutorService readers() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException exception) {
+      return Executors.newFixedThreadPool(_concurrency, runnable -> {
+        Thread thread = new Thread(runnable, "pax-batch");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } // try
+  } // method
+
+  /**
+   * @return true if the files are read on virtual threads by this JVM
+   */
+  public static boolean isVirtual() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException exception) {
+      return false;
+    } // try
+  } // method
+
+  /**
+   * Outcome of a single file: either its tree, or the error it failed with.
+   */
+  public static final class Result {
+
+    private final Path _path; // member
+
+    private final IPax _root; // member
+
+    private final Exception _error; // member
+
+    private final long _bytes; // member
+
+    private final long _nanos; // member
+
+    private Result(Path path, IPax root, Exception error, long bytes, long nanos) {
+      _path = path;
+      _root = root;
+      _error = error;
+      _bytes = bytes;
+      _nanos = nanos;
+    } // constructor
+
+    public Path Path() {
+      return _path;
+    } // method
+
+    /**
+     * @return null if failed, or the root of the tree
+     */
+    public IPax Root() {
+      return _root;
+    } // method
+
+    /**
+     * @return null if parsed, or the error the file failed with
+     */
+    public Exception Error() {
+      return _error;
+    } // method
+
+    public boolean isParsed() {
+      return _error == null;
+    } // method
+
+    /**
+     * @return the size of the file, or 0 if it was not read
+     */
+    public long Bytes() {
+      return _bytes;
+    } // method
+
+    /**
+     * @return the time taken to read and parse the file, waiting for the pool included
+     */
+    public long Nanos() {
+      return _nanos;
+    } // method
+
+  } // class
+
+  /**
+   * Numbers of a batch, taken from the first file started to the last one handed over.
+   */
+  public static final class Stats {
+
+    private int _files = 0; // member
+
+    private int _failed = 0; // member
+
+    private long _bytes = 0; // member
+
+    private long _nanos = 0; // member
+
+    private Stats() {
+    } // constructor
+
+    public int Files() {
+      return _files;
+    } // method
+
+    public int Failed() {
+      return _failed;
+    } // method
+
+    public long Bytes() {
+      return _bytes;
+    } // method
+
+    public long Nanos() {
+      return _nanos;
+    } // method
+
+    public double filesPerSecond() {
+      return _nanos > 0 ? _files * 1e9 / _nanos : 0;
+    } // method
+
+    public double bytesPerSecond() {
+      return _nanos > 0 ? _bytes * 1e9 / _nanos : 0;
+    } // method
+
+    @Override
+    public String toString() {
+      return String.format("%d files (%d failed), %d bytes in %d ms: %.0f files/s, %.0f bytes/s",
+          _files, _failed, _bytes, _nanos / 1_000_000, filesPerSecond(), bytesPerSecond());
+    } // method
+
+  } // class
+
+} // class
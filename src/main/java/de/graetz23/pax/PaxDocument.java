@@ -0,0 +1,1377 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxDocument.java
+ */
+
+package de.graetz23.pax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compact, columnar store of a whole document. Elements and attributes are rows of primitive int
+ * arrays linking parent, first and last child, and siblings; tags and attribute names are pooled in
+ * a name table, values are kept in a text table. IPax objects are handed out as lightweight views on
+ * demand, so there is no heap object per element as long as nobody is looking at it.
+ */
+public class PaxDocument {
+
+  private static final int NONE = -1; // member
+
+  private static final int CAPACITY = 16; // member
+
+  private int[] _tags = new int[CAPACITY]; // member
+
+  private int[] _vals = new int[CAPACITY]; // member
+
+  private int[] _parents = new int[CAPACITY]; // member
+
+  private int[] _firsts = new int[CAPACITY]; // member
+
+  private int[] _lasts = new int[CAPACITY]; // member
+
+  private int[] _nexts = new int[CAPACITY]; // member
+
+  private int[] _prevs = new int[CAPACITY]; // member
+
+  private int[] _attribs = new int[CAPACITY]; // member
+
+  private int _nodeCnt = 0; // member
+
+  private int[] _attribNames = new int[CAPACITY]; // member
+
+  private int[] _attribVals = new int[CAPACITY]; // member
+
+  private int[] _attribNexts = new int[CAPACITY]; // member
+
+  private int[] _attribOwners = new int[CAPACITY]; // member
+
+  private int _attribCnt = 0; // member
+
+  private String[] _names = new String[CAPACITY]; // member
+
+  private final HashMap<String, Integer> _nameIds = new HashMap<>(); // member
+
+  private int _nameCnt = 0; // member
+
+  private String[] _texts = new String[CAPACITY]; // member
+
+  private int _textCnt = 0; // member
+
+  private int[] _spareTexts = new int[CAPACITY]; // member, rows of values removed, reused first
+
+  private int _spareCnt = 0; // member
+
+  private int _root = NONE; // member
+
+  private boolean _frozen = false; // member
+
+  private int _edits = 0; // member, counts changes of links and tags, see Children.get(tag, n)
+
+  private int[] _counts = null; // member, frozen only
+
+  private int[] _paths = null; // member, frozen only
+
+  private String[] _pathNames = null; // member, frozen only
+
+  public PaxDocument() {
+  } // constructor
+
+  /**
+   * Import some IPax tree into a fresh document.
+   *
+   * @param pax as the root of the tree to be copied
+   * @return the document keeping a copy of the tree
+   */
+  public static PaxDocument of(IPax pax) {
+    PaxDocument doc = new PaxDocument();
+    if (pax != null) {
+      doc._root = doc.copy(pax);
+    } // if
+    return doc;
+  } // method
+
+  /**
+   * Copy some IPax tree into an immutable, compact document. Rows are laid out breadth first, so the
+   * children of an element are adjacent and indexed in O(1); child counts and paths are precomputed,
+   * equal values are stored once, and the link arrays needed for editing are dropped. Every mutator
+   * throws an UnsupportedOperationException.
+   * <p>
+   * Reads take no locks and change no state, so the document may be shared by any number of threads
+   * once it is safely published, e.g. by a final or volatile field or a concurrent collection.
+   *
+   * @param pax as the root of the tree to be frozen
+   * @return the frozen document keeping a copy of the tree
+   */
+  public static PaxDocument frozen(IPax pax) {
+    PaxDocument doc = new PaxDocument();
+    if (pax != null) {
+      doc.freeze(pax);
+    } // if
+    doc._frozen = true;
+    return doc;
+  } // method
+
+  /**
+   * @return this if already frozen, or an immutable, compact copy of this document
+   * @see #frozen(IPax)
+   */
+  public PaxDocument freeze() {
+    return _frozen ? this : frozen(Root());
+  } // method
+
+  public boolean isFrozen() {
+    return _frozen;
+  } // method
+
+  /**
+   * @return null or a view on the root element
+   */
+  public IPax Root() {
+    IPax root = null;
+    if (_root != NONE) {
+      root = new Node(_root);
+    } // if
+    return root;
+  } // method
+
+  /**
+   * Settle a new root element, or rename the existing one.
+   *
+   * @param tag as the tag of the root
+   * @return a view on the root element
+   */
+  public IPax Root(String tag) {
+    writable();
+    if (_root == NONE) {
+      _root = create(tag);
+    } else {
+      _tags[_root] = name(tag);
+    } // if
+    return new Node(_root);
+  } // method
+
+  public boolean hasRoot() {
+    return _root != NONE;
+  } // method
+
+  /**
+   * @return the number of element rows stored; detached ones included
+   */
+  public int cnt() {
+    return _nodeCnt;
+  } // method
+
+  /**
+   * @return the number of text rows stored; spare ones, kept for reuse, included
+   */
+  int texts() {
+    return _textCnt;
+  } // method
+
+  public String XML() {
+    return hasRoot() ? XmlGenerator.generate(Root()) : "";
+  } // method
+
+  public String JSON() {
+    return hasRoot() ? JsonGenerator.generate(Root()) : "null";
+  } // method
+
+  /**
+   * @return a builder filling this document with the events of some parser
+   */
+  IBuilder Builder() {
+    writable();
+    return new Builder();
+  } // method
+
+  private void writable() {
+    if (_frozen) {
+      throw new UnsupportedOperationException("a frozen document is read only");
+    } // if
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // freezing
+
+  /**
+   * Fill this empty document breadth first from the given tree, then trim all columns.
+   */
+  private void freeze(IPax pax) {
+    List<IPax> queue = new ArrayList<>();
+    HashMap<String, Integer> textIds = new HashMap<>();
+    HashMap<Long, Integer> pathIds = new HashMap<>();
+    List<String> pathNames = new ArrayList<>();
+    List<Integer> counts = new ArrayList<>();
+    List<Integer> paths = new ArrayList<>();
+    _root = create(pax.Tag());
+    queue.add(pax);
+    for (int node = 0; node < queue.size(); node++) { // rows are numbered in the order of the queue
+      IPax current = queue.get(node);
+      queue.set(node, null); // let the source go early
+      if (current.hasVal()) {
+        _vals[node] = frozenText(textIds, current.Val());
+      } // if
+      if (current.hasAttrib()) {
+        for (IPax attrib : current.Attrib().all()) {
+          int row = attrib(node, attrib.Tag(), null);
+          _attribVals[row] = attrib.hasVal() ? frozenText(textIds, attrib.Val()) : NONE;
+        } // loop
+      } // if
+      int parent = _parents[node];
+      long key = ((long) (parent == NONE ? NONE : paths.get(parent)) << 32) | (_tags[node] & 0xffffffffL);
+      Integer path = pathIds.get(key);
+      if (path == null) {
+        path = pathNames.size();
+        pathNames.add((parent == NONE ? "" : pathNames.get(paths.get(parent))) + "/" + current.Tag());
+        pathIds.put(key, path);
+      } // if
+      paths.add(path);
+      int cnt = 0;
+      if (current.hasChild()) {
+        for (IPax child : current.Child().all()) {
+          int row = create(child.Tag());
+          _parents[row] = node;
+          if (cnt == 0) {
+            _firsts[node] = row;
+          } else {
+            _nexts[row - 1] = row;
+          } // if
+          queue.add(child);
+          cnt++;
+        } // loop
+      } // if
+      counts.add(cnt);
+    } // loop
+
+    int nodes = _nodeCnt;
+    _tags = Arrays.copyOf(_tags, nodes);
+    _vals = Arrays.copyOf(_vals, nodes);
+    _parents = Arrays.copyOf(_parents, nodes);
+    _firsts = Arrays.copyOf(_firsts, nodes);
+    _nexts = Arrays.copyOf(_nexts, nodes);
+    _attribs = Arrays.copyOf(_attribs, nodes);
+    _lasts = null; // only needed for editing
+    _prevs = null;
+    _counts = new int[nodes];
+    _paths = new int[nodes];
+    for (int node = 0; node < nodes; node++) {
+      _counts[node] = counts.get(node);
+      _paths[node] = paths.get(node);
+    } // loop
+    _pathNames = pathNames.toArray(new String[0]);
+    _attribNames = Arrays.copyOf(_attribNames, _attribCnt);
+    _attribVals = Arrays.copyOf(_attribVals, _attribCnt);
+    _attribNexts = Arrays.copyOf(_attribNexts, _attribCnt);
+    _attribOwners = Arrays.copyOf(_attribOwners, _attribCnt);
+    _names = Arrays.copyOf(_names, _nameCnt);
+    _texts = Arrays.copyOf(_texts, _textCnt);
+  } // method
+
+  private int frozenText(HashMap<String, Integer> textIds, String text) {
+    Integer id = textIds.get(text);
+    if (id == null) {
+      id = text(NONE, text);
+      textIds.put(text, id);
+    } // if
+    return id;
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // string tables
+
+  private int name(String name) {
+    int id = NONE;
+    if (name != null) {
+      Integer known = _nameIds.get(name);
+      if (known == null) {
+        if (_nameCnt == _names.length) {
+          _names = Arrays.copyOf(_names, grow(_nameCnt));
+        } // if
+        id = _nameCnt++;
+        _names[id] = name;
+        _nameIds.put(name, id);
+      } else {
+        id = known;
+      } // if
+    } // if
+    return id;
+  } // method
+
+  private int nameOf(String name) {
+    Integer known = name == null ? null : _nameIds.get(name);
+    return known == null ? NONE : known;
+  } // method
+
+  private int text(int id, String text) {
+    if (!Pax.isVal(text)) {
+      if (id != NONE) { // the row of the value removed is kept for the next one
+        _texts[id] = null;
+        if (_spareCnt == _spareTexts.length) {
+          _spareTexts = Arrays.copyOf(_spareTexts, grow(_spareCnt));
+        } // if
+        _spareTexts[_spareCnt++] = id;
+      } // if
+      id = NONE;
+    } else if (id != NONE) {
+      _texts[id] = text; // reuse the row of the value replaced
+    } else if (_spareCnt > 0) {
+      id = _spareTexts[--_spareCnt];
+      _texts[id] = text;
+    } else {
+      if (_textCnt == _texts.length) {
+        _texts = Arrays.copyOf(_texts, grow(_textCnt));
+      } // if
+      id = _textCnt++;
+      _texts[id] = text;
+    } // if
+    return id;
+  } // method
+
+  private static int grow(int size) {
+    return size + (size >> 1) + 1;
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // element rows
+
+  private int create(String tag) {
+    if (_nodeCnt == _tags.length) {
+      int size = grow(_nodeCnt);
+      _tags = Arrays.copyOf(_tags, size);
+      _vals = Arrays.copyOf(_vals, size);
+      _parents = Arrays.copyOf(_parents, size);
+      _firsts = Arrays.copyOf(_firsts, size);
+      _lasts = Arrays.copyOf(_lasts, size);
+      _nexts = Arrays.copyOf(_nexts, size);
+      _prevs = Arrays.copyOf(_prevs, size);
+      _attribs = Arrays.copyOf(_attribs, size);
+    } // if
+    int node = _nodeCnt++;
+    _tags[node] = name(tag);
+    _vals[node] = NONE;
+    _parents[node] = NONE;
+    _firsts[node] = NONE;
+    _lasts[node] = NONE;
+    _nexts[node] = NONE;
+    _prevs[node] = NONE;
+    _attribs[node] = NONE;
+    return node;
+  } // method
+
+  private void value(int node, String val) {
+    _vals[node] = text(_vals[node], val);
+  } // method
+
+  private void link(int parent, int node) {
+    unlink(node);
+    _edits++;
+    _parents[node] = parent;
+    int last = _lasts[parent];
+    if (last == NONE) {
+      _firsts[parent] = node;
+    } else {
+      _nexts[last] = node;
+      _prevs[node] = last;
+    } // if
+    _lasts[parent] = node;
+  } // method
+
+  private void unlink(int node) {
+    _edits++;
+    int parent = _parents[node];
+    if (parent != NONE) {
+      int prev = _prevs[node];
+      int next = _nexts[node];
+      if (prev == NONE) {
+        _firsts[parent] = next;
+      } else {
+        _nexts[prev] = next;
+      } // if
+      if (next == NONE) {
+        _lasts[parent] = prev;
+      } else {
+        _prevs[next] = prev;
+      } // if
+      _parents[node] = NONE;
+      _prevs[node] = NONE;
+      _nexts[node] = NONE;
+    } else if (node == _root) {
+      _root = NONE;
+    } // if
+  } // method
+
+  private void replace(int old, int node) {
+    unlink(node);
+    _edits++;
+    int parent = _parents[old];
+    int prev = _prevs[old];
+    int next = _nexts[old];
+    _parents[node] = parent;
+    _prevs[node] = prev;
+    _nexts[node] = next;
+    if (prev == NONE) {
+      _firsts[parent] = node;
+    } else {
+      _nexts[prev] = node;
+    } // if
+    if (next == NONE) {
+      _lasts[parent] = node;
+    } else {
+      _prevs[next] = node;
+    } // if
+    _parents[old] = NONE;
+    _prevs[old] = NONE;
+    _nexts[old] = NONE;
+  } // method
+
+  private int child(int parent, int tag) {
+    int node = _firsts[parent];
+    while (node != NONE && _tags[node] != tag) {
+      node = _nexts[node];
+    } // loop
+    return node;
+  } // method
+
+  private int copy(IPax pax) {
+    int node = create(pax.Tag());
+    if (pax.hasVal()) {
+      _vals[node] = text(NONE, pax.Val());
+    } // if
+    if (pax.hasAttrib()) {
+      for (IPax attrib : pax.Attrib().all()) {
+        attrib(node, attrib.Tag(), attrib.Val());
+      } // loop
+    } // if
+    if (pax.hasChild()) {
+      for (IPax child : pax.Child().all()) { // go recursive ..
+        link(node, copy(child));
+      } // loop
+    } // if
+    return node;
+  } // method
+
+  private int adopt(IPax pax) {
+    int node;
+    if (pax instanceof Node && ((Node) pax).document() == this) {
+      node = ((Node) pax)._node;
+    } else {
+      node = copy(pax);
+    } // if
+    return node;
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // attribute rows
+
+  private int attrib(int node, String name, String val) {
+    if (_attribCnt == _attribNames.length) {
+      int size = grow(_attribCnt);
+      _attribNames = Arrays.copyOf(_attribNames, size);
+      _attribVals = Arrays.copyOf(_attribVals, size);
+      _attribNexts = Arrays.copyOf(_attribNexts, size);
+      _attribOwners = Arrays.copyOf(_attribOwners, size);
+    } // if
+    int attrib = _attribCnt++;
+    _attribNames[attrib] = name(name);
+    _attribVals[attrib] = text(NONE, val);
+    _attribNexts[attrib] = NONE;
+    _attribOwners[attrib] = node;
+
+    int last = _attribs[node];
+    if (last == NONE) {
+      _attribs[node] = attrib;
+    } else {
+      if (attrib > 0 && _attribOwners[attrib - 1] == node && _attribNexts[attrib - 1] == NONE) {
+        last = attrib - 1; // attributes are mostly added in a row while parsing ..
+      } else {
+        while (_attribNexts[last] != NONE) {
+          last = _attribNexts[last];
+        } // loop
+      } // if
+      _attribNexts[last] = attrib;
+    } // if
+    return attrib;
+  } // method
+
+  private int attribOf(int node, int name) {
+    int attrib = _attribs[node];
+    while (attrib != NONE && _attribNames[attrib] != name) {
+      attrib = _attribNexts[attrib];
+    } // loop
+    return attrib;
+  } // method
+
+  private void unattrib(int attrib) {
+    int node = _attribOwners[attrib];
+    if (node != NONE) {
+      int current = _attribs[node];
+      if (current == attrib) {
+        _attribs[node] = _attribNexts[attrib];
+      } else {
+        while (current != NONE && _attribNexts[current] != attrib) {
+          current = _attribNexts[current];
+        } // loop
+        if (current != NONE) {
+          _attribNexts[current] = _attribNexts[attrib];
+        } // if
+      } // if
+      _attribNexts[attrib] = NONE;
+      _attribOwners[attrib] = NONE;
+    } // if
+  } // method
+
+  private static boolean startsWith(String tag, String prefix) {
+    return tag != null && tag.toLowerCase().startsWith(prefix.toLowerCase());
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // views
+
+  /**
+   * View on an element row of the document; cheap to create and compared by row.
+   */
+  final class Node implements IPax {
+
+    private final int _node; // member
+
+    Node(int node) {
+      _node = node;
+    } // constructor
+
+    PaxDocument document() {
+      return PaxDocument.this;
+    } // method
+
+    @Override
+    public String Tag() {
+      int tag = _tags[_node];
+      return tag == NONE ? null : _names[tag];
+    } // method
+
+    @Override
+    public void Tag(String tag) {
+      writable();
+      _tags[_node] = name(tag);
+      _edits++;
+    } // method
+
+    @Override
+    public boolean hasTag() {
+      String tag = Tag();
+      return tag != null && !tag.isEmpty();
+    } // method
+
+    @Override
+    public String Val() {
+      int val = _vals[_node];
+      return val == NONE ? null : _texts[val];
+    } // method
+
+    @Override
+    public void Val(String val) {
+      writable();
+      value(_node, val);
+    } // method
+
+    @Override
+    public boolean hasVal() {
+      return _vals[_node] != NONE;
+    } // method
+
+    @Override
+    public IPax Parent() {
+      int parent = _parents[_node];
+      return parent == NONE ? null : new Node(parent);
+    } // method
+
+    @Override
+    public void Parent(IPax parent) {
+      writable();
+      if (parent == null) {
+        unlink(_node);
+      } else if (parent instanceof Node && ((Node) parent).document() == PaxDocument.this) {
+        link(((Node) parent)._node, _node);
+      } else {
+        throw new UnsupportedOperationException("a document node can only be linked to a node of the same document");
+      } // if
+    } // method
+
+    @Override
+    public boolean hasParent() {
+      return _parents[_node] != NONE;
+    } // method
+
+    @Override
+    public String Path() {
+      if (_frozen) {
+        return _pathNames[_paths[_node]];
+      } // if
+      StringBuilder sb = new StringBuilder();
+      int node = _node;
+      while (node != NONE) {
+        int tag = _tags[node];
+        sb.insert(0, tag == NONE ? null : _names[tag]).insert(0, "/");
+        node = _parents[node];
+      } // loop
+      return sb.toString();
+    } // method
+
+    @Override
+    public IChildren Child() {
+      return new Children(_node);
+    } // method
+
+    @Override
+    public boolean hasChild() {
+      return _firsts[_node] != NONE;
+    } // method
+
+    @Override
+    public IAttributes Attrib() {
+      return new Attributes(_node);
+    } // method
+
+    @Override
+    public boolean hasAttrib() {
+      return _attribs[_node] != NONE;
+    } // method
+
+    @Override
+    public String XML() {
+      return XmlGenerator.generate(this);
+    } // method
+
+    @Override
+    public String XML_lined() {
+      return XmlGenerator.generateLined(this);
+    } // method
+
+    @Override
+    public String JSON() {
+      return JsonGenerator.generate(this);
+    } // method
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Node && ((Node) other).document() == PaxDocument.this && ((Node) other)._node == _node;
+    } // method
+
+    @Override
+    public int hashCode() {
+      return _node;
+    } // method
+
+    @Override
+    public String toString() {
+      return Path();
+    } // method
+
+  } // class
+
+  /**
+   * View on an attribute row of the document; attributes keep neither children nor attributes.
+   */
+  final class Attrib implements IPax {
+
+    private final int _attrib; // member
+
+    Attrib(int attrib) {
+      _attrib = attrib;
+    } // constructor
+
+    PaxDocument document() {
+      return PaxDocument.this;
+    } // method
+
+    @Override
+    public String Tag() {
+      int name = _attribNames[_attrib];
+      return name == NONE ? null : _names[name];
+    } // method
+
+    @Override
+    public void Tag(String tag) {
+      writable();
+      _attribNames[_attrib] = name(tag);
+    } // method
+
+    @Override
+    public boolean hasTag() {
+      String tag = Tag();
+      return tag != null && !tag.isEmpty();
+    } // method
+
+    @Override
+    public String Val() {
+      int val = _attribVals[_attrib];
+      return val == NONE ? null : _texts[val];
+    } // method
+
+    @Override
+    public void Val(String val) {
+      writable();
+      _attribVals[_attrib] = text(_attribVals[_attrib], val);
+    } // method
+
+    @Override
+    public boolean hasVal() {
+      return _attribVals[_attrib] != NONE;
+    } // method
+
+    @Override
+    public IPax Parent() {
+      int owner = _attribOwners[_attrib];
+      return owner == NONE ? null : new Node(owner);
+    } // method
+
+    @Override
+    public void Parent(IPax parent) {
+      throw new UnsupportedOperationException("a document attribute is bound to its element");
+    } // method
+
+    @Override
+    public boolean hasParent() {
+      return _attribOwners[_attrib] != NONE;
+    } // method
+
+    @Override
+    public String Path() {
+      IPax parent = Parent();
+      return (parent == null ? "" : parent.Path()) + "/" + Tag();
+    } // method
+
+    @Override
+    public IChildren Child() {
+      throw new UnsupportedOperationException("a document attribute keeps no children");
+    } // method
+
+    @Override
+    public boolean hasChild() {
+      return false;
+    } // method
+
+    @Override
+    public IAttributes Attrib() {
+      throw new UnsupportedOperationException("a document attribute keeps no attributes");
+    } // method
+
+    @Override
+    public boolean hasAttrib() {
+      return false;
+    } // method
+
+    @Override
+    public String XML() {
+      return XmlGenerator.generate(this);
+    } // method
+
+    @Override
+    public String XML_lined() {
+      return XmlGenerator.generateLined(this);
+    } // method
+
+    @Override
+    public String JSON() {
+      return JsonGenerator.generate(this);
+    } // method
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Attrib && ((Attrib) other).document() == PaxDocument.this && ((Attrib) other)._attrib == _attrib;
+    } // method
+
+    @Override
+    public int hashCode() {
+      return _attrib;
+    } // method
+
+  } // class
+
+  /**
+   * View on the children of an element row.
+   */
+  final class Children implements IChildren {
+
+    private final int _node; // member
+
+    private Cursor _cursor = null; // member, of the last get(tag, n)
+
+    Children(int node) {
+      _node = node;
+    } // constructor
+
+    private boolean owns(IPax pax) {
+      return pax instanceof Node && ((Node) pax).document() == PaxDocument.this && _parents[((Node) pax)._node] == _node;
+    } // method
+
+    @Override
+    public IPax Ancestor() {
+      return new Node(_node);
+    } // method
+
+    @Override
+    public void Ancestor(IPax ancestor) {
+      throw new UnsupportedOperationException("document children are bound to their element");
+    } // method
+
+    @Override
+    public boolean hasAncestor() {
+      return true;
+    } // method
+
+    @Override
+    public IPax First() {
+      int first = _firsts[_node];
+      return first == NONE ? null : new Node(first);
+    } // method
+
+    @Override
+    public boolean has(String tag) {
+      int name = nameOf(tag);
+      return name != NONE && child(_node, name) != NONE;
+    } // method
+
+    @Override
+    public boolean has(IPax Pax) {
+      return owns(Pax);
+    } // method
+
+    @Override
+    public IPax get(int i) {
+      if (_frozen) { // children are adjacent rows
+        return i < 0 || i >= _counts[_node] ? null : new Node(_firsts[_node] + i);
+      } // if
+      int node = _firsts[_node];
+      while (node != NONE && i > 0) {
+        node = _nexts[node];
+        i--;
+      } // loop
+      return node == NONE || i < 0 ? null : new Node(node);
+    } // method
+
+    @Override
+    public IPax get(String tag) {
+      int name = nameOf(tag);
+      int node = name == NONE ? NONE : child(_node, name);
+      return node == NONE ? null : new Node(node);
+    } // method
+
+    /**
+     * Walks on from the sibling found last, if the document was not changed since, so asking for
+     * the siblings of a tag one after another takes linear time in total.
+     */
+    @Override
+    public IPax get(String tag, int n) {
+      int name = nameOf(tag);
+      int node = NONE;
+      if (name != NONE && n >= 0) {
+        Cursor cursor = _cursor;
+        int i = 0;
+        if (cursor != null && cursor._name == name && cursor._n <= n && cursor._edits == _edits) {
+          node = cursor._node;
+          i = cursor._n;
+        } else {
+          node = child(_node, name);
+        } // if
+        while (node != NONE && i < n) {
+          node = _nexts[node];
+          while (node != NONE && _tags[node] != name) {
+            node = _nexts[node];
+          } // loop
+          i++;
+        } // loop
+        if (node != NONE) {
+          _cursor = new Cursor(name, n, node, _edits);
+        } // if
+      } // if
+      return node == NONE ? null : new Node(node);
+    } // method
+
+    @Override
+    public boolean add(String tag) {
+      writable();
+      boolean wasAdded = false;
+      if (!tag.isEmpty()) {
+        link(_node, create(tag));
+        wasAdded = true;
+      } // if
+      return wasAdded;
+    } // method
+
+    @Override
+    public boolean add(String tag, String val) {
+      writable();
+      boolean wasAdded = false;
+      if (!tag.isEmpty()) {
+        int node = create(tag);
+        value(node, val);
+        link(_node, node);
+        wasAdded = true;
+      } // if
+      return wasAdded;
+    } // method
+
+    @Override
+    public boolean add(IPax Pax) {
+      writable();
+      boolean wasAdded = false;
+      if (Pax != null) {
+        link(_node, adopt(Pax));
+        wasAdded = true;
+      } // if
+      return wasAdded;
+    } // method
+
+    @Override
+    public boolean set(String tag, String val) {
+      writable();
+      int name = nameOf(tag);
+      int node = name == NONE ? NONE : child(_node, name);
+      if (node != NONE) {
+        value(node, val);
+      } else {
+        add(tag, val);
+      } // if
+      return true;
+    } // method
+
+    @Override
+    public boolean set(IPax pax) {
+      writable();
+      boolean wasSet = false;
+      if (pax != null) {
+        int node = adopt(pax);
+        int name = nameOf(pax.Tag());
+        int old = name == NONE ? NONE : child(_node, name);
+        if (old == NONE) {
+          link(_node, node);
+        } else if (old != node) {
+          replace(old, node);
+        } // if
+        wasSet = true;
+      } // if
+      return wasSet;
+    } // method
+
+    @Override
+    public boolean del(String key) {
+      writable();
+      boolean wasDeleted = false;
+      int name = nameOf(key);
+      int node = name == NONE ? NONE : child(_node, name);
+      if (node != NONE) {
+        unlink(node);
+        wasDeleted = true;
+      } // if
+      return wasDeleted;
+    } // method
+
+    @Override
+    public boolean del(IPax Pax) {
+      writable();
+      boolean wasDeleted = false;
+      if (owns(Pax)) {
+        unlink(((Node) Pax)._node);
+        wasDeleted = true;
+      } // if
+      return wasDeleted;
+    } // method
+
+    @Override
+    public boolean del() {
+      writable();
+      boolean wasDeleted = false;
+      while (_firsts[_node] != NONE) { // delete em all ..
+        unlink(_firsts[_node]);
+        wasDeleted = true;
+      } // loop
+      return wasDeleted;
+    } // method
+
+    @Override
+    public int cnt() {
+      if (_frozen) {
+        return _counts[_node];
+      } // if
+      int cnt = 0;
+      for (int node = _firsts[_node]; node != NONE; node = _nexts[node]) {
+        cnt++;
+      } // loop
+      return cnt;
+    } // method
+
+    @Override
+    public int cnt(String tag) {
+      int cnt = 0;
+      int name = nameOf(tag);
+      for (int node = _firsts[_node]; node != NONE && name != NONE; node = _nexts[node]) {
+        if (_tags[node] == name) {
+          cnt++;
+        } // if
+      } // loop
+      return cnt;
+    } // method
+
+    @Override
+    public List<IPax> all() {
+      List<IPax> all = new ArrayList<>(_frozen ? _counts[_node] : 10);
+      for (int node = _firsts[_node]; node != NONE; node = _nexts[node]) {
+        all.add(new Node(node));
+      } // loop
+      return all;
+    } // method
+
+    @Override
+    public List<IPax> all(String tag) {
+      List<IPax> filtered = new ArrayList<>();
+      for (int node = _firsts[_node]; node != NONE; node = _nexts[node]) {
+        int name = _tags[node];
+        if (name != NONE && startsWith(_names[name], tag)) {
+          filtered.add(new Node(node));
+        } // if
+      } // loop
+      return filtered;
+    } // method
+
+    @Override
+    public <T extends IPax> List<T> typed() {
+      return Subset.typed(all());
+    } // method
+
+    @Override
+    public <T extends IPax> List<T> typed(String tag) {
+      return Subset.typed(all(tag));
+    } // method
+
+    @Override
+    public IPax search(String path) {
+      return Pax.search(Ancestor(), path);
+    } // method
+
+    @Override
+    public IPax select(String path) {
+      return PaxPath.compile(path).first(Ancestor());
+    } // method
+
+  } // class
+
+  /**
+   * Position of a sibling found by tag; immutable, so a view read by many threads never sees it
+   * half written.
+   */
+  private static final class Cursor {
+
+    private final int _name; // member
+
+    private final int _n; // member
+
+    private final int _node; // member
+
+    private final int _edits; // member
+
+    private Cursor(int name, int n, int node, int edits) {
+      _name = name;
+      _n = n;
+      _node = node;
+      _edits = edits;
+    } // constructor
+
+  } // class
+
+  /**
+   * View on the attributes of an element row.
+   */
+  final class Attributes implements IAttributes {
+
+    private final int _node; // member
+
+    Attributes(int node) {
+      _node = node;
+    } // constructor
+
+    private boolean owns(IPax pax) {
+      return pax instanceof Attrib && ((Attrib) pax).document() == PaxDocument.this && _attribOwners[((Attrib) pax)._attrib] == _node;
+    } // method
+
+    @Override
+    public IPax Ancestor() {
+      return new Node(_node);
+    } // method
+
+    @Override
+    public void Ancestor(IPax ancestor) {
+      throw new UnsupportedOperationException("document attributes are bound to their element");
+    } // method
+
+    @Override
+    public boolean hasAncestor() {
+      return true;
+    } // method
+
+    @Override
+    public IPax First() {
+      int first = _attribs[_node];
+      return first == NONE ? null : new Attrib(first);
+    } // method
+
+    @Override
+    public boolean has(String tag) {
+      int name = nameOf(tag);
+      return name != NONE && attribOf(_node, name) != NONE;
+    } // method
+
+    @Override
+    public boolean has(IPax Pax) {
+      return owns(Pax);
+    } // method
+
+    @Override
+    public IPax get(int i) {
+      int attrib = _attribs[_node];
+      while (attrib != NONE && i > 0) {
+        attrib = _attribNexts[attrib];
+        i--;
+      } // loop
+      return attrib == NONE || i < 0 ? null : new Attrib(attrib);
+    } // method
+
+    @Override
+    public IPax get(String tag) {
+      int name = nameOf(tag);
+      int attrib = name == NONE ? NONE : attribOf(_node, name);
+      return attrib == NONE ? null : new Attrib(attrib);
+    } // method
+
+    @Override
+    public IPax get(String tag, int n) {
+      int name = nameOf(tag);
+      int attrib = name == NONE || n < 0 ? NONE : attribOf(_node, name);
+      while (attrib != NONE && n > 0) {
+        attrib = _attribNexts[attrib];
+        while (attrib != NONE && _attribNames[attrib] != name) {
+          attrib = _attribNexts[attrib];
+        } // loop
+        n--;
+      } // loop
+      return attrib == NONE ? null : new Attrib(attrib);
+    } // method
+
+    @Override
+    public boolean add(String tag) {
+      writable();
+      return add(tag, null);
+    } // method
+
+    @Override
+    public boolean add(String tag, String val) {
+      writable();
+      boolean wasAdded = false;
+      if (!tag.isEmpty()) {
+        attrib(_node, tag, val);
+        wasAdded = true;
+      } // if
+      return wasAdded;
+    } // method
+
+    @Override
+    public boolean add(IPax Pax) {
+      writable();
+      boolean wasAdded = false;
+      if (Pax != null) {
+        if (owns(Pax)) {
+          unattrib(((Attrib) Pax)._attrib);
+        } // if
+        attrib(_node, Pax.Tag(), Pax.Val());
+        wasAdded = true;
+      } // if
+      return wasAdded;
+    } // method
+
+    @Override
+    public boolean set(String tag, String val) {
+      writable();
+      int name = nameOf(tag);
+      int attrib = name == NONE ? NONE : attribOf(_node, name);
+      if (attrib != NONE) {
+        _attribVals[attrib] = text(_attribVals[attrib], val);
+      } else {
+        add(tag, val);
+      } // if
+      return true;
+    } // method
+
+    @Override
+    public boolean set(IPax pax) {
+      writable();
+      boolean wasSet = false;
+      if (pax != null) {
+        set(pax.Tag(), pax.Val());
+        wasSet = true;
+      } // if
+      return wasSet;
+    } // method
+
+    @Override
+    public boolean del(String key) {
+      writable();
+      boolean wasDeleted = false;
+      int name = nameOf(key);
+      int attrib = name == NONE ? NONE : attribOf(_node, name);
+      if (attrib != NONE) {
+        unattrib(attrib);
+        wasDeleted = true;
+      } // if
+      return wasDeleted;
+    } // method
+
+    @Override
+    public boolean del(IPax Pax) {
+      writable();
+      boolean wasDeleted = false;
+      if (owns(Pax)) {
+        unattrib(((Attrib) Pax)._attrib);
+        wasDeleted = true;
+      } // if
+      return wasDeleted;
+    } // method
+
+    @Override
+    public boolean del() {
+      writable();
+      boolean wasDeleted = false;
+      while (_attribs[_node] != NONE) { // delete em all ..
+        unattrib(_attribs[_node]);
+        wasDeleted = true;
+      } // loop
+      return wasDeleted;
+    } // method
+
+    @Override
+    public int cnt() {
+      int cnt = 0;
+      for (int attrib = _attribs[_node]; attrib != NONE; attrib = _attribNexts[attrib]) {
+        cnt++;
+      } // loop
+      return cnt;
+    } // method
+
+    @Override
+    public int cnt(String tag) {
+      int cnt = 0;
+      int name = nameOf(tag);
+      for (int attrib = _attribs[_node]; attrib != NONE && name != NONE; attrib = _attribNexts[attrib]) {
+        if (_attribNames[attrib] == name) {
+          cnt++;
+        } // if
+      } // loop
+      return cnt;
+    } // method
+
+    @Override
+    public List<IPax> all() {
+      List<IPax> all = new ArrayList<>();
+      for (int attrib = _attribs[_node]; attrib != NONE; attrib = _attribNexts[attrib]) {
+        all.add(new Attrib(attrib));
+      } // loop
+      return all;
+    } // method
+
+    @Override
+    public List<IPax> all(String tag) {
+      List<IPax> filtered = new ArrayList<>();
+      for (int attrib = _attribs[_node]; attrib != NONE; attrib = _attribNexts[attrib]) {
+        int name = _attribNames[attrib];
+        if (name != NONE && startsWith(_names[name], tag)) {
+          filtered.add(new Attrib(attrib));
+        } // if
+      } // loop
+      return filtered;
+    } // method
+
+    @Override
+    public <T extends IPax> List<T> typed() {
+      return Subset.typed(all());
+    } // method
+
+    @Override
+    public <T extends IPax> List<T> typed(String tag) {
+      return Subset.typed(all(tag));
+    } // method
+
+    @Override
+    public String XML() {
+      StringBuilder xml = new StringBuilder();
+      for (int attrib = _attribs[_node]; attrib != NONE; attrib = _attribNexts[attrib]) {
+        int name = _attribNames[attrib];
+        int val = _attribVals[attrib];
+        xml.append(name == NONE ? null : _names[name]).append("=\"").append(val == NONE ? null : XmlGenerator.escapeAttrib(_texts[val])).append("\" ");
+      } // loop
+      return xml.toString().trim();
+    } // method
+
+  } // class
+
+  /**
+   * Fills the document with the events of some parser; the first opened element is the root.
+   */
+  private final class Builder implements IBuilder {
+
+    private int _current = NONE; // member
+
+    @Override
+    public void open(String tag) {
+      int node = create(tag);
+      if (_current == NONE) {
+        _root = node; // settle this as the root node
+      } else {
+        link(_current, node); // new is child of parent
+      } // if
+      _current = node;
+    } // method
+
+    @Override
+    public void attrib(String name, String val) {
+      PaxDocument.this.attrib(_current, name, val);
+    } // method
+
+    @Override
+    public void text(String val) {
+      value(_current, val);
+    } // method
+
+    @Override
+    public void comment(String val) {
+      int node = create(Identity.COMMENT);
+      value(node, val);
+      link(_current, node);
+    } // method
+
+    @Override
+    public void close() {
+      _current = _parents[_current];
+    } // method
+
+    @Override
+    public void wrap(String tag) {
+      int node = create(tag);
+      if (_root != NONE) {
+        link(node, _root);
+      } // if
+      _root = node;
+      _current = node;
+    } // method
+
+    @Override
+    public IPax Root() {
+      return PaxDocument.this.Root();
+    } // method
+
+  } // class
+
+} // class
@@ -0,0 +1,318 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxIndex.java
+ */
+
+package de.graetz23.pax;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Opt-in, document wide hash index mapping the values of chosen attribute names, and optionally
+ * the tags, to the elements keeping them. Attached to the root of a tree of Pax objects, the index
+ * is kept up to date while children and attributes are added, set, or deleted, and while tags and
+ * attribute values change. Nodes of other IPax implementations are indexed when attached but
+ * their later changes are not followed.
+ */
+public class PaxIndex {
+
+  private final String[] _names; // member
+
+  private final boolean _tagged; // member
+
+  private final HashMap<String, HashMap<String, Object>> _values = new HashMap<>(); // member
+
+  private final HashMap<String, Object> _tags = new HashMap<>(); // member
+
+  private IPax _root = null; // member
+
+  /**
+   * @param attribs as the names of the attributes to be indexed, e.g. id
+   */
+  public PaxIndex(String... attribs) {
+    this(false, attribs);
+  } // constructor
+
+  /**
+   * @param tagged as true for indexing the tags of all elements too
+   * @param attribs as the names of the attributes to be indexed, e.g. id
+   */
+  public PaxIndex(boolean tagged, String... attribs) {
+    _names = attribs.clone();
+    _tagged = tagged;
+    for (String name : _names) {
+      _values.put(name, new HashMap<String, Object>());
+    } // loop
+  } // constructor
+
+  /**
+   * Attach the index to a tree and index it in one pass; a formerly attached tree is released.
+   *
+   * @param root as the root of the tree
+   * @return this index
+   */
+  public PaxIndex attach(IPax root) {
+    detach();
+    _root = root;
+    if (root != null) {
+      add(root);
+    } // if
+    return this;
+  } // method
+
+  /**
+   * Release the attached tree and clear the index.
+   */
+  public void detach() {
+    if (_root != null) {
+      List<IPax> stack = new ArrayList<>();
+      stack.add(_root);
+      while (!stack.isEmpty()) {
+        IPax node = stack.remove(stack.size() - 1);
+        if (node instanceof Pax && ((Pax) node).Index() == this) {
+          ((Pax) node).Index(null);
+        } // if
+        if (node.hasAttrib()) {
+          for (IPax attrib : node.Attrib().all()) {
+            if (attrib instanceof Pax && ((Pax) attrib).Index() == this) {
+              ((Pax) attrib).Index(null);
+            } // if
+          } // loop
+        } // if
+        if (node.hasChild()) {
+          stack.addAll(node.Child().all());
+        } // if
+      } // loop
+      _root = null;
+    } // if
+    for (HashMap<String, Object> values : _values.values()) {
+      values.clear();
+    } // loop
+    _tags.clear();
+  } // method
+
+  public IPax Root() {
+    return _root;
+  } // method
+
+  public boolean hasRoot() {
+    return _root != null;
+  } // method
+
+  /**
+   * @param val as the value of the first attribute name given, e.g. the id
+   * @return null or the first element keeping that value
+   */
+  public IPax find(String val) {
+    return _names.length == 0 ? null : find(_names[0], val);
+  } // method
+
+  /**
+   * @param attrib as an indexed attribute name
+   * @param val as the value of the attribute
+   * @return null or the first element keeping that attribute value
+   */
+  public IPax find(String attrib, String val) {
+    HashMap<String, Object> values = _values.get(attrib);
+    Object hit = values == null || val == null ? null : values.get(val);
+    return hit instanceof Nodes ? ((Nodes) hit).iterator().next() : (IPax) hit;
+  } // method
+
+  /**
+   * @param attrib as an indexed attribute name
+   * @param val as the value of the attribute
+   * @return all elements keeping that attribute value, in the order they were indexed
+   */
+  public List<IPax> all(String attrib, String val) {
+    HashMap<String, Object> values = _values.get(attrib);
+    return list(values == null || val == null ? null : values.get(val));
+  } // method
+
+  /**
+   * @param tag as the tag of the elements
+   * @return all elements having that tag, in the order they were indexed; empty if tags are not
+   * indexed
+   */
+  public List<IPax> tagged(String tag) {
+    return list(tag == null ? null : _tags.get(tag));
+  } // method
+
+  public boolean isTagged() {
+    return _tagged;
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // maintenance, called by the nodes and subsets of an attached tree
+
+  /**
+   * Index an element and all of its descendants.
+   */
+  void add(IPax node) {
+    List<IPax> stack = new ArrayList<>();
+    stack.add(node);
+    while (!stack.isEmpty()) {
+      IPax current = stack.remove(stack.size() - 1);
+      if (current instanceof Pax) {
+        ((Pax) current).Index(this);
+      } // if
+      if (_tagged) {
+        put(_tags, current.Tag(), current);
+      } // if
+      if (current.hasAttrib()) {
+        for (IPax attrib : current.Attrib().all()) {
+          addAttrib(current, attrib);
+        } // loop
+      } // if
+      if (current.hasChild()) {
+        List<IPax> children = current.Child().all();
+        for (int c = children.size() - 1; c >= 0; c--) {
+          stack.add(children.get(c));
+        } // loop
+      } // if
+    } // loop
+  } // method
+
+  /**
+   * Drop an element and all of its descendants from the index.
+   */
+  void remove(IPax node) {
+    List<IPax> stack = new ArrayList<>();
+    stack.add(node);
+    while (!stack.isEmpty()) {
+      IPax current = stack.remove(stack.size() - 1);
+      if (current instanceof Pax && ((Pax) current).Index() == this) {
+        ((Pax) current).Index(null);
+      } // if
+      if (_tagged) {
+        drop(_tags, current.Tag(), current);
+      } // if
+      if (current.hasAttrib()) {
+        for (IPax attrib : current.Attrib().all()) {
+          removeAttrib(current, attrib);
+        } // loop
+      } // if
+      if (current.hasChild()) {
+        stack.addAll(current.Child().all());
+      } // if
+    } // loop
+  } // method
+
+  void addAttrib(IPax owner, IPax attrib) {
+    if (attrib instanceof Pax) {
+      ((Pax) attrib).Index(this);
+    } // if
+    HashMap<String, Object> values = _values.get(attrib.Tag());
+    if (values != null && attrib.hasVal()) {
+      put(values, attrib.Val(), owner);
+    } // if
+  } // method
+
+  void removeAttrib(IPax owner, IPax attrib) {
+    if (attrib instanceof Pax && ((Pax) attrib).Index() == this) {
+      ((Pax) attrib).Index(null);
+    } // if
+    HashMap<String, Object> values = _values.get(attrib.Tag());
+    if (values != null && attrib.hasVal()) {
+      drop(values, attrib.Val(), owner);
+    } // if
+  } // method
+
+  /**
+   * Follow a changed value; only attribute values are indexed.
+   */
+  void revalue(IPax pax, String old) {
+    IPax owner = pax.Parent();
+    HashMap<String, Object> values = _values.get(pax.Tag());
+    if (values != null && isAttrib(owner, pax)) {
+      if (old != null) {
+        drop(values, old, owner);
+      } // if
+      if (pax.hasVal()) {
+        put(values, pax.Val(), owner);
+      } // if
+    } // if
+  } // method
+
+  /**
+   * Follow a changed tag of an element or of an attribute.
+   */
+  void retag(IPax pax, String old) {
+    IPax owner = pax.Parent();
+    if (isAttrib(owner, pax)) {
+      if (pax.hasVal()) {
+        HashMap<String, Object> values = _values.get(old);
+        if (values != null) {
+          drop(values, pax.Val(), owner);
+        } // if
+        values = _values.get(pax.Tag());
+        if (values != null) {
+          put(values, pax.Val(), owner);
+        } // if
+      } // if
+    } else if (_tagged) {
+      drop(_tags, old, pax);
+      put(_tags, pax.Tag(), pax);
+    } // if
+  } // method
+
+  private static boolean isAttrib(IPax owner, IPax pax) {
+    return owner != null && owner.hasAttrib() && owner.Attrib().has(pax);
+  } // method
+
+  /**
+   * A key maps to the single element keeping it, or to an ordered set once several elements do.
+   */
+  private static List<IPax> list(Object hit) {
+    List<IPax> list = new ArrayList<>();
+    if (hit instanceof Nodes) {
+      list.addAll((Nodes) hit);
+    } else if (hit != null) {
+      list.add((IPax) hit);
+    } // if
+    return list;
+  } // method
+
+  private static void put(HashMap<String, Object> map, String key, IPax node) {
+    Object hit = map.get(key);
+    if (hit == null) {
+      map.put(key, node);
+    } else if (hit instanceof Nodes) {
+      ((Nodes) hit).add(node);
+    } else if (hit != node) { // a second element keeps the same key ..
+      Nodes nodes = new Nodes();
+      nodes.add((IPax) hit);
+      nodes.add(node);
+      map.put(key, nodes);
+    } // if
+  } // method
+
+  private static void drop(HashMap<String, Object> map, String key, IPax node) {
+    Object hit = map.get(key);
+    if (hit == node) {
+      map.remove(key);
+    } else if (hit instanceof Nodes) {
+      Nodes nodes = (Nodes) hit;
+      nodes.remove(node);
+      if (nodes.isEmpty()) {
+        map.remove(key);
+      } // if
+    } // if
+  } // method
+
+  /**
+   * The elements keeping one key, once there are several, in the order they were indexed; a type of
+   * its own, so a value of a map is told and cast without unchecked casts.
+   */
+  private static final class Nodes extends LinkedHashSet<IPax> {
+
+    private static final long serialVersionUID = 1L; // member
+
+  } // class
+
+} // class
@@ -0,0 +1,451 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxPath.java
+ */
+
+package de.graetz23.pax;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled path query; like a small subset of XPath, e.g. /library/book[2]/title,
+ * //book[@id='x'], ./chapter/*. An expression is parsed once into immutable steps and can be
+ * evaluated against any IPax tree by many threads at once; the last compiled expressions are
+ * kept in a bounded cache.
+ * <p>
+ * Supported are absolute (/a) and relative (a, ./a) paths, the child (/) and descendant (//)
+ * axis, the wildcard (*), self (.) and parent (..) steps, one based positions ([3]), and
+ * attribute predicates ([@id] or [@id='x']).
+ */
+public final class PaxPath {
+
+  private static final int CACHE = 256; // member
+
+  private static final Map<String, PaxPath> _cache = new LinkedHashMap<String, PaxPath>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, PaxPath> eldest) {
+      return size() > CACHE;
+    } // method
+  }; // member
+
+  private static final String WILDCARD = "*"; // member
+
+  private static final String SELF = "."; // member
+
+  private static final String PARENT = ".."; // member
+
+  private final String _expression; // member
+
+  private final boolean _absolute; // member
+
+  private final Step[] _steps; // member
+
+  private final boolean _descending; // member
+
+  private PaxPath(String expression, boolean absolute, Step[] steps) {
+    _expression = expression;
+    _absolute = absolute;
+    _steps = steps;
+    boolean descending = false;
+    for (Step step : steps) {
+      descending |= step._descendant;
+    } // loop
+    _descending = descending;
+  } // constructor
+
+  /**
+   * Compile a path expression, or take it from the cache of the ones compiled lately.
+   *
+   * @param expression as the path having slashes as hierarchical separators
+   * @return the compiled path
+   * @throws IllegalArgumentException if the expression is not a valid path
+   */
+  public static PaxPath compile(String expression) {
+    if (expression == null) {
+      throw new IllegalArgumentException("path expression is null");
+    } // if
+    PaxPath path;
+    synchronized (_cache) {
+      path = _cache.get(expression);
+    } // synchronized
+    if (path == null) {
+      path = parse(expression);
+      synchronized (_cache) {
+        _cache.put(expression, path);
+      } // synchronized
+    } // if
+    return path;
+  } // method
+
+  /**
+   * @param context as the node relative paths start at; absolute ones start at its root
+   * @return null or the first node found
+   */
+  public IPax first(IPax context) {
+    List<IPax> found = evaluate(context, 1);
+    return found.isEmpty() ? null : found.get(0);
+  } // method
+
+  /**
+   * @param context as the node relative paths start at; absolute ones start at its root
+   * @return all nodes found, in the order of the tree
+   */
+  public List<IPax> all(IPax context) {
+    return evaluate(context, Integer.MAX_VALUE);
+  } // method
+
+  public boolean isAbsolute() {
+    return _absolute;
+  } // method
+
+  @Override
+  public String toString() {
+    return _expression;
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // evaluation
+
+  private List<IPax> evaluate(IPax context, int limit) {
+    List<IPax> found = new ArrayList<>();
+    if (context != null) {
+      Set<IPax> seen = _descending ? new HashSet<IPax>() : null;
+      if (_absolute) {
+        IPax root = context;
+        while (root.hasParent()) { // walk up root
+          root = root.Parent();
+        } // loop
+        List<IPax> roots = Collections.singletonList(root); // the root is the only child of the document
+        if (_steps.length == 0) {
+          found.add(root);
+        } else if (_steps[0]._descendant) {
+          descend(root, 0, found, seen, limit, true);
+        } else {
+          for (IPax node : _steps[0].filter(roots)) {
+            walk(node, 1, found, seen, limit);
+          } // loop
+        } // if
+      } else {
+        walk(context, 0, found, seen, limit);
+      } // if
+    } // if
+    return found;
+  } // method
+
+  private void walk(IPax node, int i, List<IPax> found, Set<IPax> seen, int limit) {
+    if (found.size() >= limit) {
+      return;
+    } // if
+    if (i == _steps.length) {
+      if (seen == null || seen.add(node)) {
+        found.add(node);
+      } // if
+      return;
+    } // if
+    Step step = _steps[i];
+    if (step._descendant) {
+      descend(node, i, found, seen, limit, false);
+    } else if (step._tag.equals(SELF)) {
+      if (step.accepts(node)) {
+        walk(node, i + 1, found, seen, limit);
+      } // if
+    } else if (step._tag.equals(PARENT)) {
+      IPax parent = node.Parent();
+      if (parent != null && step.accepts(parent)) {
+        walk(parent, i + 1, found, seen, limit);
+      } // if
+    } else if (step._wildcard || step._positional) {
+      for (IPax child : step.children(node)) {
+        walk(child, i + 1, found, seen, limit);
+        if (found.size() >= limit) {
+          break;
+        } // if
+      } // loop
+    } else if (node.hasChild()) { // named siblings, taken one after another up to the limit
+      IChildren children = node.Child();
+      for (int n = 0; found.size() < limit; n++) {
+        IPax child = children.get(step._tag, n);
+        if (child == null) {
+          break;
+        } // if
+        if (step.accepts(child)) {
+          walk(child, i + 1, found, seen, limit);
+        } // if
+      } // loop
+    } // if
+  } // method
+
+  /**
+   * Descendant step: without positions this is a plain walk over all descendants in the order of
+   * the tree; with positions the step is taken as child step of every descendant-or-self node.
+   */
+  private void descend(IPax node, int i, List<IPax> found, Set<IPax> seen, int limit, boolean self) {
+    Step step = _steps[i];
+    if (step._positional) {
+      if (self) {
+        for (IPax child : step.filter(Collections.singletonList(node))) {
+          walk(child, i + 1, found, seen, limit);
+        } // loop
+      } // if
+      select(node, i, found, seen, limit);
+    } else {
+      if (self && step.accepts(node)) {
+        walk(node, i + 1, found, seen, limit);
+      } // if
+      if (node.hasChild()) {
+        for (IPax child : node.Child().all()) {
+          if (found.size() >= limit) {
+            break;
+          } // if
+          if (step.accepts(child)) {
+            walk(child, i + 1, found, seen, limit);
+          } // if
+          descend(child, i, found, seen, limit, false);
+        } // loop
+      } // if
+    } // if
+  } // method
+
+  /**
+   * Positional descendant step below a context node: the children it selects are taken in the
+   * order of the tree, each right before the subtree below it, which is a context again.
+   */
+  private void select(IPax context, int i, List<IPax> found, Set<IPax> seen, int limit) {
+    if (context.hasChild()) {
+      List<IPax> selected = _steps[i].children(context);
+      for (IPax child : context.Child().all()) {
+        if (found.size() >= limit) {
+          break;
+        } // if
+        if (selected.contains(child)) {
+          walk(child, i + 1, found, seen, limit);
+        } // if
+        select(child, i, found, seen, limit);
+      } // loop
+    } // if
+  } // method
+
+  // ---------------------------------------------------------------------------------------------
+  // parsing
+
+  private static PaxPath parse(String expression) {
+    String path = expression.trim();
+    if (path.isEmpty()) {
+      throw new IllegalArgumentException("path expression is empty");
+    } // if
+    boolean absolute = path.startsWith("/");
+    List<Step> steps = new ArrayList<>();
+    int pos = 0;
+    int length = path.length();
+    while (pos < length) {
+      int slashes = 0;
+      while (pos < length && path.charAt(pos) == '/') {
+        slashes++;
+        pos++;
+      } // loop
+      if (pos == length) {
+        break; // trailing slashes are tolerated
+      } // if
+      boolean descendant = slashes > 1 && (absolute || !steps.isEmpty());
+      int start = pos;
+      while (pos < length && path.charAt(pos) != '/' && path.charAt(pos) != '[') {
+        pos++;
+      } // loop
+      String tag = path.substring(start, pos).trim();
+      if (tag.isEmpty()) {
+        throw new IllegalArgumentException("path expression has an empty step at " + start + ": " + expression);
+      } // if
+      List<Predicate> predicates = new ArrayList<>();
+      while (pos < length && path.charAt(pos) == '[') {
+        int end = closing(path, pos);
+        if (end < 0) {
+          throw new IllegalArgumentException("path expression has an unclosed predicate at " + pos + ": " + expression);
+        } // if
+        predicates.add(Predicate.parse(path.substring(pos + 1, end).trim(), expression));
+        pos = end + 1;
+      } // loop
+      if (pos < length && path.charAt(pos) != '/') {
+        throw new IllegalArgumentException("path expression has a bad step at " + pos + ": " + expression);
+      } // if
+      if (descendant && (tag.equals(SELF) || tag.equals(PARENT))) {
+        throw new IllegalArgumentException("path expression can not descend to " + tag + ": " + expression);
+      } // if
+      steps.add(new Step(tag, descendant, predicates.toArray(new Predicate[0])));
+    } // loop
+    return new PaxPath(expression, absolute, steps.toArray(new Step[0]));
+  } // method
+
+  private static int closing(String path, int pos) {
+    char quote = 0;
+    for (int i = pos + 1; i < path.length(); i++) {
+      char c = path.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        } // if
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == ']') {
+        return i;
+      } // if
+    } // loop
+    return -1;
+  } // method
+
+  /**
+   * One step of a path: an axis, a tag or wildcard, and its predicates.
+   */
+  private static final class Step {
+
+    private final String _tag; // member
+
+    private final boolean _wildcard; // member
+
+    private final boolean _descendant; // member
+
+    private final Predicate[] _predicates; // member
+
+    private final boolean _positional; // member
+
+    private Step(String tag, boolean descendant, Predicate[] predicates) {
+      _tag = tag;
+      _wildcard = tag.equals(WILDCARD);
+      _descendant = descendant;
+      _predicates = predicates;
+      boolean positional = false;
+      for (Predicate predicate : predicates) {
+        positional |= predicate._position > 0;
+      } // loop
+      _positional = positional;
+    } // constructor
+
+    private boolean matches(IPax node) {
+      return _wildcard || _tag.equals(SELF) || _tag.equals(PARENT) || _tag.equals(node.Tag());
+    } // method
+
+    /**
+     * @return true if the node matches the tag and all predicates not asking for a position
+     */
+    private boolean accepts(IPax node) {
+      boolean accepts = matches(node);
+      for (int p = 0; accepts && p < _predicates.length; p++) {
+        accepts = _predicates[p]._position > 0 || _predicates[p].accepts(node);
+      } // loop
+      return accepts;
+    } // method
+
+    /**
+     * @return the children of the node selected by this step, all at once, as positions need them
+     */
+    private List<IPax> children(IPax node) {
+      List<IPax> children;
+      if (!node.hasChild()) {
+        children = Collections.emptyList();
+      } else if (_wildcard) {
+        children = filter(node.Child().all());
+      } else if (_predicates.length == 1 && _predicates[0]._position > 0) { // the n-th named sibling ..
+        IPax child = node.Child().get(_tag, _predicates[0]._position - 1);
+        children = child == null ? Collections.<IPax>emptyList() : Collections.singletonList(child);
+      } else {
+        IChildren siblings = node.Child(); // one view, so a document walks on from the sibling before
+        List<IPax> named = new ArrayList<>();
+        for (IPax child = siblings.get(_tag, 0); child != null; child = siblings.get(_tag, named.size())) {
+          named.add(child);
+        } // loop
+        children = _predicates.length == 0 ? named : filter(named);
+      } // if
+      return children;
+    } // method
+
+    /**
+     * Apply tag and predicates, one after another, on a list of candidates.
+     */
+    private List<IPax> filter(List<IPax> candidates) {
+      List<IPax> filtered = new ArrayList<>();
+      for (IPax candidate : candidates) {
+        if (matches(candidate)) {
+          filtered.add(candidate);
+        } // if
+      } // loop
+      for (Predicate predicate : _predicates) {
+        if (predicate._position > 0) {
+          IPax hit = predicate._position <= filtered.size() ? filtered.get(predicate._position - 1) : null;
+          filtered = hit == null ? new ArrayList<IPax>() : new ArrayList<IPax>(Collections.singletonList(hit));
+        } else {
+          filtered.removeIf(candidate -> !predicate.accepts(candidate));
+        } // if
+      } // loop
+      return filtered;
+    } // method
+
+  } // class
+
+  /**
+   * A predicate of a step; either a one based position or an attribute test.
+   */
+  private static final class Predicate {
+
+    private final int _position; // member
+
+    private final String _attrib; // member
+
+    private final String _val; // member
+
+    private Predicate(int position, String attrib, String val) {
+      _position = position;
+      _attrib = attrib;
+      _val = val;
+    } // constructor
+
+    private static Predicate parse(String predicate, String expression) {
+      Predicate parsed;
+      if (predicate.startsWith("@")) {
+        int equals = predicate.indexOf('=');
+        if (equals < 0) {
+          parsed = new Predicate(0, predicate.substring(1).trim(), null);
+        } else {
+          String val = predicate.substring(equals + 1).trim();
+          if (val.length() < 2 || (val.charAt(0) != '\'' && val.charAt(0) != '"') || val.charAt(val.length() - 1) != val.charAt(0)) {
+            throw new IllegalArgumentException("path expression has an unquoted value in [" + predicate + "]: " + expression);
+          } // if
+          parsed = new Predicate(0, predicate.substring(1, equals).trim(), val.substring(1, val.length() - 1));
+        } // if
+        if (parsed._attrib.isEmpty()) {
+          throw new IllegalArgumentException("path expression has no attribute in [" + predicate + "]: " + expression);
+        } // if
+      } else {
+        int position;
+        try {
+          position = Integer.parseInt(predicate);
+        } catch (NumberFormatException exception) {
+          throw new IllegalArgumentException("path expression has an unknown predicate [" + predicate + "]: " + expression);
+        } // try
+        if (position < 1) {
+          throw new IllegalArgumentException("path expression has a position below one [" + predicate + "]: " + expression);
+        } // if
+        parsed = new Predicate(position, null, null);
+      } // if
+      return parsed;
+    } // method
+
+    private boolean accepts(IPax node) {
+      boolean accepts = false;
+      if (node.hasAttrib()) {
+        IPax attrib = node.Attrib().get(_attrib);
+        accepts = attrib != null && (_val == null || _val.equals(attrib.Val()) || (_val.isEmpty() && !attrib.hasVal()));
+      } // if
+      return accepts;
+    } // method
+
+  } // class
+
+} // class
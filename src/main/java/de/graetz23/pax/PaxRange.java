@@ -0,0 +1,285 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxRange.java
+ */
+
+package de.graetz23.pax;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted secondary index over the children of a parent, ordered by an attribute (@ts), by the
+ * value of a child element (price), or by their own value (.). Keys are kept in primitive sorted
+ * arrays, numeric or lexical, so range queries cost O(log n + k). Children missing the key, or
+ * having a key in a numeric index that is no number by the JSON grammar, e.g. -0.5e3, are left
+ * out. The index is a snapshot; call refresh() after changing the children.
+ */
+public final class PaxRange {
+
+  private final IPax _parent; // member
+
+  private final String _tag; // member
+
+  private final String _key; // member
+
+  private final boolean _numeric; // member
+
+  private double[] _numbers = new double[0]; // member
+
+  private String[] _strings = new String[0]; // member
+
+  private IPax[] _nodes = new IPax[0]; // member
+
+  private PaxRange(IPax parent, String tag, String key, boolean numeric) {
+    _parent = parent;
+    _tag = tag;
+    _key = key;
+    _numeric = numeric;
+    refresh();
+  } // constructor
+
+  /**
+   * @param parent as the parent of the indexed children
+   * @param key as @attrib, the tag of a child element, or . for the own value
+   * @return the index ordered by numbers
+   */
+  public static PaxRange numeric(IPax parent, String key) {
+    return new PaxRange(parent, null, key, true);
+  } // method
+
+  /**
+   * @param parent as the parent of the indexed children
+   * @param tag as null or the tag of the children to be indexed only
+   * @param key as @attrib, the tag of a child element, or . for the own value
+   * @return the index ordered by numbers
+   */
+  public static PaxRange numeric(IPax parent, String tag, String key) {
+    return new PaxRange(parent, tag, key, true);
+  } // method
+
+  /**
+   * @param parent as the parent of the indexed children
+   * @param key as @attrib, the tag of a child element, or . for the own value
+   * @return the index ordered lexically
+   */
+  public static PaxRange lexical(IPax parent, String key) {
+    return new PaxRange(parent, null, key, false);
+  } // method
+
+  /**
+   * @param parent as the parent of the indexed children
+   * @param tag as null or the tag of the children to be indexed only
+   * @param key as @attrib, the tag of a child element, or . for the own value
+   * @return the index ordered lexically
+   */
+  public static PaxRange lexical(IPax parent, String tag, String key) {
+    return new PaxRange(parent, tag, key, false);
+  } // method
+
+  /**
+   * Rebuild the index from the current children of the parent.
+   *
+   * @return this index
+   */
+  public PaxRange refresh() {
+    List<IPax> children = !_parent.hasChild() ? List.<IPax>of()
+      : _tag == null ? _parent.Child().all() : _parent.Child().all(_tag);
+    int size = 0;
+    IPax[] nodes = new IPax[children.size()];
+    double[] numbers = new double[_numeric ? nodes.length : 0];
+    String[] strings = new String[_numeric ? 0 : nodes.length];
+    for (IPax child : children) {
+      if (_tag != null && !_tag.equals(child.Tag())) {
+        continue; // all(tag) matches by prefix
+      } // if
+      String key = key(child);
+      if (key == null) {
+        continue;
+      } // if
+      if (_numeric) {
+        String number = key.trim();
+        if (JsonGenerator.classify(number) != JsonGenerator.NUMBER) {
+          continue; // not a number, not indexed; checked first, as parsing would throw for each
+        } // if
+        numbers[size] = Double.parseDouble(number);
+      } else {
+        strings[size] = key;
+      } // if
+      nodes[size++] = child;
+    } // loop
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    } // loop
+    sort(order, new int[size], 0, size, numbers, strings); // stable, equal keys keep the document order
+    _nodes = new IPax[size];
+    _numbers = new double[_numeric ? size : 0];
+    _strings = new String[_numeric ? 0 : size];
+    for (int i = 0; i < size; i++) {
+      _nodes[i] = nodes[order[i]];
+      if (_numeric) {
+        _numbers[i] = numbers[order[i]];
+      } else {
+        _strings[i] = strings[order[i]];
+      } // if
+    } // loop
+    return this;
+  } // method
+
+  public IPax Parent() {
+    return _parent;
+  } // method
+
+  public boolean isNumeric() {
+    return _numeric;
+  } // method
+
+  public int cnt() {
+    return _nodes.length;
+  } // method
+
+  /**
+   * @return all indexed children, ordered by their keys
+   */
+  public List<IPax> all() {
+    return slice(0, _nodes.length);
+  } // method
+
+  /**
+   * @return all children having a key from lo to hi, both inclusive
+   */
+  public List<IPax> between(double lo, double hi) {
+    return slice(lower(lo, false), lower(hi, true));
+  } // method
+
+  /**
+   * @return all children having a key greater than lo
+   */
+  public List<IPax> greater(double lo) {
+    return slice(lower(lo, true), _nodes.length);
+  } // method
+
+  /**
+   * @return all children having a key less than hi
+   */
+  public List<IPax> less(double hi) {
+    return slice(0, lower(hi, false));
+  } // method
+
+  /**
+   * @return all children having a key from lo to hi, both inclusive
+   */
+  public List<IPax> between(String lo, String hi) {
+    return slice(lower(lo, false), lower(hi, true));
+  } // method
+
+  /**
+   * @return all children having a key greater than lo
+   */
+  public List<IPax> greater(String lo) {
+    return slice(lower(lo, true), _nodes.length);
+  } // method
+
+  /**
+   * @return all children having a key less than hi
+   */
+  public List<IPax> less(String hi) {
+    return slice(0, lower(hi, false));
+  } // method
+
+  private String key(IPax child) {
+    String key = null;
+    if (_key.equals(".")) {
+      key = child.Val();
+    } else if (_key.startsWith("@")) {
+      IPax attrib = child.hasAttrib() ? child.Attrib().get(_key.substring(1)) : null;
+      key = attrib == null ? null : attrib.Val();
+    } else {
+      IPax element = child.hasChild() ? child.Child().get(_key) : null;
+      key = element == null ? null : element.Val();
+    } // if
+    return key;
+  } // method
+
+  private List<IPax> slice(int from, int to) {
+    return from >= to ? List.<IPax>of() : Arrays.asList(Arrays.copyOfRange(_nodes, from, to));
+  } // method
+
+  /**
+   * @param after as false for the first key not less than the given one, or as true for the first
+   * key greater than the given one
+   */
+  private int lower(double key, boolean after) {
+    checkType(true);
+    int lo = 0;
+    int hi = _numbers.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (_numbers[mid] < key || (after && _numbers[mid] == key)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if
+    } // loop
+    return lo;
+  } // method
+
+  private int lower(String key, boolean after) {
+    checkType(false);
+    int lo = 0;
+    int hi = _strings.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      int cmp = _strings[mid].compareTo(key);
+      if (cmp < 0 || (after && cmp == 0)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if
+    } // loop
+    return lo;
+  } // method
+
+  private void checkType(boolean numeric) {
+    if (numeric != _numeric) {
+      throw new IllegalArgumentException(_numeric ? "numeric index queried by string" : "lexical index queried by number");
+    } // if
+  } // method
+
+  /**
+   * Merge sort of positions by their keys, boxing nothing.
+   */
+  private static void sort(int[] order, int[] work, int from, int to, double[] numbers, String[] strings) {
+    if (to - from < 2) {
+      return;
+    } // if
+    int mid = (from + to) >>> 1;
+    sort(order, work, from, mid, numbers, strings);
+    sort(order, work, mid, to, numbers, strings);
+    if (compare(order[mid - 1], order[mid], numbers, strings) <= 0) {
+      return; // already in order
+    } // if
+    System.arraycopy(order, from, work, from, to - from);
+    int l = from;
+    int r = mid;
+    for (int i = from; i < to; i++) {
+      if (r >= to || (l < mid && compare(work[l], work[r], numbers, strings) <= 0)) {
+        order[i] = work[l++];
+      } else {
+        order[i] = work[r++];
+      } // if
+    } // loop
+  } // method
+
+  private static int compare(int a, int b, double[] numbers, String[] strings) {
+    if (numbers.length > 0) {
+      return numbers[a] < numbers[b] ? -1 : numbers[a] > numbers[b] ? 1 : 0; // as the binary search does
+    } // if
+    return strings[a].compareTo(strings[b]);
+  } // method
+
+} // class
@@ -8,55 +8,249 @@
 
 package de.graetz23.pax;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.DefaultHandler;
 
 public class Reader {
 
-  public static Reader Instance = new Reader();
+  public static Reader Instance = new Reader(new Builder());
 
-  private Reader() {
+  /**
+   * Parser driving the tree builders; all engines build the same tree, comments included.
+   */
+  public enum Engine {
+    SAX, // push parser, the default
+    STAX, // pull parser of javax.xml.stream
+    TOLERANT // own tokenizer on UTF-8 bytes, recovering from malformed input
+  } // enum
+
+  private final ThreadLocal<SAXParserFactory> _factories; // member, one SAX factory per thread
+
+  private final Engine _engine; // member
+
+  private final ThreadLocal<XMLInputFactory> _inputFactories; // member, one StAX factory per thread
+
+  private final boolean _namespaces; // member
+
+  private final boolean _pooled; // member
+
+  private final boolean _skipWhitespace; // member
+
+  private static final int TEXT = 256; // member
+
+  private static final int MAX_TEXT = 1 << 20; // member
+
+  private static final int CHUNK = 1 << 20; // member, least bytes of a chunk parsed in parallel
+
+  private static final int MAX_CHUNK = 1 << 28; // member, most bytes a chunk aims at, read into one array
+
+  private static final byte[] OPEN = "<_>".getBytes(StandardCharsets.US_ASCII); // member, of the root of a chunk
+
+  private static final byte[] CLOSE = "</_>".getBytes(StandardCharsets.US_ASCII); // member
+
+  private static final byte[] EMPTY = "<_/>".getBytes(StandardCharsets.US_ASCII); // member, stands in for all records
+
+  private final ThreadLocal<Parser> _parsers = new ThreadLocal<>(); // member, one parser per thread
+
+  private Reader(Builder builder) {
+    _engine = builder._engine;
+    _namespaces = builder._namespaces;
+    _pooled = builder._pooled;
+    _skipWhitespace = builder._skipWhitespace;
+    boolean namespaces = builder._namespaces;
+    Boolean secure = builder._secure;
+    boolean loadDtd = builder._loadDtd;
+    boolean externalEntities = builder._externalEntities;
+    _factories = ThreadLocal.withInitial(() -> Builder.factory(namespaces, secure, loadDtd, externalEntities));
+    _inputFactories = ThreadLocal.withInitial(() -> Builder.inputFactory(namespaces, loadDtd, externalEntities));
   } // constructor
 
+  /**
+   * @return a builder for a reader having its own parser features, e.g. for untrusted input:
+   * Reader.builder().secure(true).loadDtd(false).build()
+   */
+  public static Builder builder() {
+    return new Builder();
+  } // method
+
   public IPax parse(String filename) {
+    return parse(filename, new TreeBuilder());
+  } // method
+
+  public IPax parseLocalFile(String filename) {
+    if (_engine != Engine.SAX) {
+      return parse(filename, new TreeBuilder(), _engine);
+    } // if
+    return parse(new InputSource(filename), new TreeBuilder());
+  } // method
+
+  public IPax stream(InputStream stream) {
+    return stream(stream, new TreeBuilder());
+  } // method
+
+  /**
+   * @param filename as the path of the XML file
+   * @param engine as the parser to be taken for this call
+   * @return null or the root of the parsed tree
+   */
+  public IPax parse(String filename, Engine engine) {
+    return parse(filename, new TreeBuilder(), engine);
+  } // method
+
+  /**
+   * @param stream as the XML input
+   * @param engine as the parser to be taken for this call
+   * @return null or the root of the parsed tree
+   */
+  public IPax stream(InputStream stream, Engine engine) {
+    return stream(stream, new TreeBuilder(), engine);
+  } // method
+
+  /**
+   * Read UTF-8 bytes by the tolerant tokenizer, recovering from unclosed tags, stray &amp; and
+   * several roots, which are put below one of Identity.LIST.
+   *
+   * @param xml as the UTF-8 encoded input
+   * @return null or the root of the parsed tree
+   */
+  public IPax tolerant(byte[] xml) {
+    return tolerant(xml, 0, xml.length, new TreeBuilder());
+  } // method
+
+  /**
+   * @param xml as the UTF-8 encoded input, from its position to its limit; not consumed
+   * @return null or the root of the parsed tree
+   */
+  public IPax tolerant(ByteBuffer xml) {
+    if (xml.hasArray()) {
+      return tolerant(xml.array(), xml.arrayOffset() + xml.position(), xml.remaining(), new TreeBuilder());
+    } // if
+    byte[] bytes = new byte[xml.remaining()]; // direct or mapped
+    xml.duplicate().get(bytes);
+    return tolerant(bytes, 0, bytes.length, new TreeBuilder());
+  } // method
 
+  /**
+   * Index a file by a single pass over its memory mapped bytes, recording the tag and the byte
+   * range of each element only; the value, attributes, and children of a node are loaded from its
+   * range when touched first, see LazyPax. The structure is the one of tolerant(..); for files up to
+   * 2 GiB.
+   *
+   * @param filename as the path of the UTF-8 encoded XML file
+   * @return null or the root of the tree, not loaded yet
+   */
+  public IPax lazy(String filename) {
     IPax root = null;
-    SAXParserFactory factory = SAXParserFactory.newInstance();
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      root = lazy(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())); // stays valid when closed
+    } catch (IOException | RuntimeException exception) {
+      exception.printStackTrace();
+    } // try
+    return root;
+  } // method
 
+  /**
+   * @param xml as the UTF-8 encoded input, from its position to its limit; kept, not consumed
+   * @return null or the root of the tree, not loaded yet
+   */
+  public IPax lazy(ByteBuffer xml) {
+    return XmlIndex.of(xml.slice(), _skipWhitespace);
+  } // method
+
+  private IPax tolerant(byte[] xml, int offset, int length, IBuilder builder) {
+    IPax root = null;
     try {
-      SAXParser parser = factory.newSAXParser();
-      IPaxHandler handler = new IPaxHandler();
-      parser.getXMLReader().setProperty(handler.LexicalHandlerProperty(), handler.LexicalHandler());
-      FileInputStream fileInputStream = new FileInputStream(filename); // open file
-      if (fileInputStream != null) {
-        parser.parse(fileInputStream, handler);
-        root = handler.getRoot();
-      } else {
-        System.out.println("InputStream is null - no file found");
-      } //
-    } catch (Exception exception) {
+      root = new XmlTokenizer(builder, _skipWhitespace).parse(xml, offset, length);
+    } catch (RuntimeException exception) {
       exception.printStackTrace();
     } // try
-
     return root;
   } // method
 
-  public IPax parseLocalFile(String filename) {
+  /**
+   * Parse a file and fill the given index while parsing; the index stays attached to the tree.
+   *
+   * @param filename as the path of the XML file
+   * @param index as the index to be attached to the root
+   * @return null or the root of the parsed tree
+   */
+  public IPax parse(String filename, PaxIndex index) {
+    return parse(filename, new TreeBuilder(index));
+  } // method
+
+  /**
+   * Parse a stream and fill the given index while parsing; the index stays attached to the tree.
+   *
+   * @param stream as the XML input
+   * @param index as the index to be attached to the root
+   * @return null or the root of the parsed tree
+   */
+  public IPax stream(InputStream stream, PaxIndex index) {
+    return stream(stream, new TreeBuilder(index));
+  } // method
+
+  /**
+   * Parse a file into a compact, columnar document instead of a tree of IPax objects.
+   *
+   * @param filename as the path of the XML file
+   * @return null or the parsed document
+   */
+  public PaxDocument document(String filename) {
+    PaxDocument document = new PaxDocument();
+    return parse(filename, document.Builder()) != null ? document : null;
+  } // method
+
+  /**
+   * Parse a stream into a compact, columnar document instead of a tree of IPax objects.
+   *
+   * @param stream as the XML input
+   * @return null or the parsed document
+   */
+  public PaxDocument document(InputStream stream) {
+    PaxDocument document = new PaxDocument();
+    return stream(stream, document.Builder()) != null ? document : null;
+  } // method
+
+  private IPax parse(String filename, IBuilder builder) {
+    return parse(filename, builder, _engine);
+  } // method
+
+  private IPax parse(String filename, IBuilder builder, Engine engine) {
 
     IPax root = null;
-    SAXParserFactory factory = SAXParserFactory.newInstance();
+
     try {
-      SAXParser parser = factory.newSAXParser();
-      IPaxHandler handler = new IPaxHandler();
-      parser.getXMLReader().setProperty(handler.LexicalHandlerProperty(), handler.LexicalHandler());
-      parser.parse(filename, handler);
-      root = handler.getRoot();
+      FileInputStream fileInputStream = new FileInputStream(filename); // open file
+      root = stream(fileInputStream, builder, engine);
+      fileInputStream.close();
     } catch (Exception exception) {
       exception.printStackTrace();
     } // try
@@ -64,28 +258,696 @@ public class Reader {
     return root;
   } // method
 
-  public IPax stream(InputStream stream) {
+  private IPax stream(InputStream stream, IBuilder builder) {
+    return stream(stream, builder, _engine);
+  } // method
 
+  private IPax stream(InputStream stream, IBuilder builder, Engine engine) {
     IPax root = null;
-    SAXParserFactory factory = SAXParserFactory.newInstance();
+    if (stream != null) {
+      try {
+        root = read(stream, builder, engine);
+      } catch (Exception exception) {
+        exception.printStackTrace();
+      } // try
+    } else {
+      System.out.println("InputStream is null - no file found");
+    } // if
+    return root;
+  } // method
 
+  /**
+   * Like stream(..), but throwing what failed instead of reporting it; for callers collecting the
+   * errors of many inputs, e.g. PaxBatch.
+   *
+   * @return the root of the parsed tree
+   */
+  IPax read(InputStream stream) throws Exception {
+    return read(stream, new TreeBuilder(), _engine);
+  } // method
+
+  private IPax read(InputStream stream, IBuilder builder, Engine engine) throws Exception {
+    IPax root = null;
+    if (engine == Engine.STAX) {
+      root = pull(stream, builder);
+    } else if (engine == Engine.TOLERANT) {
+      byte[] xml = stream.readAllBytes();
+      root = new XmlTokenizer(builder, _skipWhitespace).parse(xml, 0, xml.length);
+    } else {
+      root = sax(new InputSource(stream), builder);
+    } // if
+    return root;
+  } // method
+
+  private IPax parse(InputSource source, IBuilder builder) {
+    IPax root = null;
     try {
-      SAXParser parser = factory.newSAXParser();
-      IPaxHandler handler = new IPaxHandler();
-      parser.getXMLReader().setProperty(handler.LexicalHandlerProperty(), handler.LexicalHandler());
-      if (stream != null) {
-        parser.parse(stream, handler);
-        root = handler.getRoot();
-      } else {
-        System.out.println("InputStream is null - no file found");
-      } //
+      root = sax(source, builder);
     } catch (Exception exception) {
       exception.printStackTrace();
     } // try
+    return root;
+  } // method
+
+  private IPax sax(InputSource source, IBuilder builder) throws Exception {
+    Parser parser = acquire();
+    boolean wasParsed = false;
+    try {
+      IPax root = parser.parse(source, builder);
+      wasParsed = true;
+      return root;
+    } finally {
+      release(parser, wasParsed);
+    } // try
+  } // method
+
+  /**
+   * Build the tree by pulling the events of a StAX parser.
+   */
+  private IPax pull(InputStream stream, IBuilder builder) throws XMLStreamException {
+    XMLStreamReader reader = null;
+    try {
+      reader = _inputFactories.get().createXMLStreamReader(stream);
+      Text text = new Text();
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) { // the root
+          element(reader, builder, text);
+        } // if
+      } // loop
+      return builder.Root();
+    } finally {
+      close(reader);
+    } // try
+  } // method
+
+  /**
+   * Stream a huge file record by record, keeping a single record in memory only; see
+   * records(InputStream, String, Consumer).
+   *
+   * @param filename as the path of the XML file
+   * @return the number of records handed over, or -1 if the input failed
+   */
+  public long records(String filename, String path, Consumer<IPax> consumer) {
+    long cnt = -1;
+    try (FileInputStream stream = new FileInputStream(filename)) {
+      cnt = records(stream, path, consumer);
+    } catch (IOException exception) {
+      exception.printStackTrace();
+    } // try
+    return cnt;
+  } // method
+
+  /**
+   * Stream the input by the StAX engine and hand each element matching the path over as a tree of
+   * its own, having no parent; nothing is kept, so memory stays constant however large the input
+   * is. Elements off the path are skipped, without building or even decoding any of their text.
+   *
+   * @param stream as the XML input
+   * @param path as the absolute path of the records, e.g. /feed/item; * matches any tag
+   * @param consumer as called with each record in document order; what it throws is passed on
+   * @return the number of records handed over, or -1 if the input failed
+   */
+  public long records(InputStream stream, String path, Consumer<IPax> consumer) {
+
+    String[] steps = steps(path);
+    long cnt = 0;
+    XMLStreamReader reader = null;
+
+    try {
+      reader = _inputFactories.get().createXMLStreamReader(stream);
+      Text text = new Text();
+      int depth = 0; // of the elements open, all on the path
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String step = steps[depth];
+          if (!step.equals("*") && !step.equals(name(reader.getPrefix(), reader.getLocalName()))) {
+            skip(reader); // off the path
+          } else if (depth == steps.length - 1) {
+            TreeBuilder builder = new TreeBuilder();
+            element(reader, builder, text);
+            consumer.accept(builder.Root());
+            cnt++;
+          } else {
+            depth++;
+          } // if
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        } // if
+      } // loop
+    } catch (XMLStreamException exception) { // an exception of the consumer is its own, so passed on
+      exception.printStackTrace();
+      cnt = -1;
+    } finally {
+      close(reader);
+    } // try
+
+    return cnt;
+  } // method
+
+  /**
+   * Parse a file of records, the children of its root, in parallel: a single pass splits it into
+   * chunks of whole records, which are parsed on a ForkJoinPool of the given threads, and stitched
+   * below the root in document order. The tree is the one of parse(..); a file having a DOCTYPE, or
+   * text in its root, or a reader being namespace aware or tolerant, is parsed as a whole, as is a
+   * file failing to be split or read in chunks for any reason but a parse error.
+   *
+   * @param filename as the path of the XML file
+   * @param threads as the number of threads parsing
+   * @return null or the root of the parsed tree
+   */
+  public IPax parallel(String filename, int threads) {
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+    try {
+      return parallel(filename, pool);
+    } finally {
+      pool.shutdown();
+    } // try
+  } // method
+
+  /**
+   * @param filename as the path of the XML file
+   * @param pool as the pool parsing the chunks, e.g. ForkJoinPool.commonPool()
+   * @return null or the root of the parsed tree
+   */
+  public IPax parallel(String filename, ForkJoinPool pool) {
+
+    IPax root = null;
+    boolean isWhole = true; // parsed as a whole, not split
+
+    if (!_namespaces && _engine != Engine.TOLERANT) { // records do not see the prefixes of the root
+      try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+        XmlSplitter splitter = XmlSplitter.of(channel, target(channel.size(), pool.getParallelism()));
+        if (splitter.isSplittable()) {
+          List<ForkJoinTask<IPax>> tasks = new ArrayList<>();
+          for (int c = 0; c < splitter.cnt(); c++) {
+            long from = splitter.from(c);
+            long to = splitter.to(c);
+            tasks.add(pool.submit(() -> chunk(channel, from, to, splitter.encoding())));
+          } // loop
+          List<IPax> chunks = new ArrayList<>();
+          boolean isMixed = false;
+          for (ForkJoinTask<IPax> task : tasks) {
+            IPax chunk = task.join();
+            if (chunk == null) {
+              chunks = null; // failed, reported already
+              break;
+            } // if
+            isMixed |= chunk.hasVal();
+            chunks.add(chunk);
+          } // loop
+          if (chunks != null && !isMixed) {
+            root = shell(channel, splitter, chunks);
+            isMixed = root != null && root.hasVal();
+          } // if
+          isWhole = isMixed; // the text of the root is joined across all chunks, so parse it as a whole
+        } // if
+      } catch (IOException | RuntimeException exception) { // not a parse error, those are reported as null
+        exception.printStackTrace();
+        root = null;
+        isWhole = true; // try it as a whole then
+      } // try
+    } // if
+
+    if (isWhole) {
+      root = parse(filename);
+    } // if
 
     return root;
   } // method
 
+  /**
+   * @return the bytes a chunk aims at: some chunks per thread, for balance, but neither tiny ones
+   * nor ones too large for an array, whatever the number of threads
+   */
+  static long target(long size, int parallelism) {
+    return Math.min(MAX_CHUNK, Math.max(CHUNK, size / (Math.max(1, parallelism) * 4L)));
+  } // method
+
+  /**
+   * @return null or an element of the chunk's records below an element standing in for the root
+   */
+  private IPax chunk(FileChannel channel, long from, long to, String encoding) throws IOException {
+    int length = Math.toIntExact(to - from);
+    byte[] bytes = new byte[OPEN.length + length + CLOSE.length];
+    System.arraycopy(OPEN, 0, bytes, 0, OPEN.length);
+    read(channel, from, bytes, OPEN.length, length);
+    System.arraycopy(CLOSE, 0, bytes, OPEN.length + length, CLOSE.length);
+    InputSource source = new InputSource(new ByteArrayInputStream(bytes));
+    source.setEncoding(encoding);
+    return parse(source, new TreeBuilder());
+  } // method
+
+  /**
+   * @return null or the root, parsed from all but the records, taking those of the chunks instead
+   */
+  private IPax shell(FileChannel channel, XmlSplitter splitter, List<IPax> chunks) throws IOException {
+    int head = Math.toIntExact(splitter.from(0));
+    int tail = Math.toIntExact(splitter.size() - splitter.last());
+    byte[] bytes = new byte[head + EMPTY.length + tail];
+    read(channel, 0, bytes, 0, head);
+    System.arraycopy(EMPTY, 0, bytes, head, EMPTY.length);
+    read(channel, splitter.last(), bytes, head + EMPTY.length, tail);
+    InputSource source = new InputSource(new ByteArrayInputStream(bytes));
+    source.setEncoding(splitter.encoding());
+    return parse(source, new Splice(chunks));
+  } // method
+
+  private static void read(FileChannel channel, long position, byte[] bytes, int offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position() - offset) < 0) {
+        throw new EOFException("file shrunk while being read");
+      } // if
+    } // loop
+  } // method
+
+  private static String[] steps(String path) {
+    String trimmed = path == null ? "" : path.trim();
+    if (trimmed.startsWith("/")) {
+      trimmed = trimmed.substring(1);
+    } // if
+    String[] steps = trimmed.split("/");
+    for (String step : steps) {
+      if (step.isEmpty()) {
+        throw new IllegalArgumentException("not an absolute path of tags: " + path);
+      } // if
+    } // loop
+    return steps;
+  } // method
+
+  /**
+   * Build the element the reader is at, with all of its subtree, up to its end.
+   */
+  private void element(XMLStreamReader reader, IBuilder builder, Text text) throws XMLStreamException {
+    int level = -1;
+    int event = XMLStreamConstants.START_ELEMENT;
+    do {
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          level++; // one hierarchy up: 0, 1, 2, 3, ..
+          builder.open(name(reader.getPrefix(), reader.getLocalName()));
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            builder.attrib(name(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+          } // loop
+          text.open(level);
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength(), level);
+          break;
+        case XMLStreamConstants.COMMENT:
+          builder.comment(reader.getText());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          String val = text.close(level, _skipWhitespace);
+          if (val != null) {
+            builder.text(val);
+          } // if
+          level--; // one hierarchy down: .. 3, 2, 1, 0
+          builder.close();
+          break;
+        default:
+          break;
+      } // switch
+      event = level > -1 ? reader.next() : event;
+    } while (level > -1);
+  } // method
+
+  /**
+   * Skip the element the reader is at, with all of its subtree, up to its end.
+   */
+  private static void skip(XMLStreamReader reader) throws XMLStreamException {
+    int level = 1;
+    while (level > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        level++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        level--;
+      } // if
+    } // loop
+  } // method
+
+  private static void close(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException exception) {
+        exception.printStackTrace();
+      } // try
+    } // if
+  } // method
+
+  /**
+   * @return the qualified name, as SAX reports it
+   */
+  private static String name(String prefix, String local) {
+    return prefix == null || prefix.isEmpty() ? local : prefix + ":" + local;
+  } // method
+
+  /**
+   * @return the parser of this thread, or a new one if not pooled or if the one of this thread is
+   * busy, e.g. parsing again from within a builder
+   */
+  private Parser acquire() throws ParserConfigurationException, SAXException {
+    Parser parser = _pooled ? _parsers.get() : null;
+    if (parser == null || parser._busy) {
+      parser = new Parser(_factories.get().newSAXParser());
+      if (_pooled && _parsers.get() == null) {
+        _parsers.set(parser);
+      } // if
+    } // if
+    parser._busy = true;
+    return parser;
+  } // method
+
+  private void release(Parser parser, boolean wasParsed) {
+    parser._handler.Builder(null); // do not hold on to the tree
+    if (!wasParsed) { // a finished parse leaves the parser clean, a failed one might not
+      try {
+        parser.reset();
+      } catch (SAXException exception) {
+        exception.printStackTrace();
+        if (_parsers.get() == parser) {
+          _parsers.remove(); // take a new one next time
+        } // if
+      } // try
+    } // if
+    parser._busy = false;
+  } // method
+
+  /**
+   * SAX parser of some thread, having the handlers registered once for all of its uses.
+   */
+  private final class Parser {
+
+    private final SAXParser _parser; // member
+
+    private final IPaxHandler _handler = new IPaxHandler(null); // member
+
+    private XMLReader _reader; // member
+
+    private boolean _busy = false; // member
+
+    private Parser(SAXParser parser) throws SAXException {
+      _parser = parser;
+      register();
+    } // constructor
+
+    private void register() throws SAXException {
+      _reader = _parser.getXMLReader();
+      _reader.setContentHandler(_handler);
+      _reader.setErrorHandler(_handler);
+      _reader.setDTDHandler(_handler);
+      _reader.setEntityResolver(_handler);
+      _reader.setProperty(_handler.LexicalHandlerProperty(), _handler.LexicalHandler());
+    } // method
+
+    private IPax parse(InputSource source, IBuilder builder) throws IOException, SAXException {
+      _handler.Builder(builder);
+      _reader.parse(source);
+      return _handler.getRoot();
+    } // method
+
+    private void reset() throws SAXException {
+      _parser.reset();
+      register();
+    } // method
+
+  } // class
+
+  /**
+   * Parser features of a reader; the defaults are those of the JDK.
+   */
+  public static final class Builder {
+
+    private static final String LOAD_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd"; // member
+
+    private static final String GENERAL_ENTITIES = "http://xml.org/sax/features/external-general-entities"; // member
+
+    private static final String PARAMETER_ENTITIES = "http://xml.org/sax/features/external-parameter-entities"; // member
+
+    private boolean _namespaces = false; // member
+
+    private Boolean _secure = null; // member, left to the JDK if not set
+
+    private boolean _loadDtd = true; // member
+
+    private boolean _externalEntities = true; // member
+
+    private boolean _pooled = true; // member
+
+    private boolean _skipWhitespace = true; // member
+
+    private Engine _engine = Engine.SAX; // member
+
+    private static final String IGNORE_DTD = "http://java.sun.com/xml/stream/properties/ignore-external-dtd"; // member
+
+    private Builder() {
+    } // constructor
+
+    /**
+     * @param namespaces as true for a namespace aware parser; tags stay qualified names
+     */
+    public Builder namespaces(boolean namespaces) {
+      _namespaces = namespaces;
+      return this;
+    } // method
+
+    /**
+     * @param secure as true for the limits of XMLConstants.FEATURE_SECURE_PROCESSING; it also
+     * denies reading external DTDs by file, see XMLConstants.ACCESS_EXTERNAL_DTD
+     */
+    public Builder secure(boolean secure) {
+      _secure = secure;
+      return this;
+    } // method
+
+    /**
+     * @param loadDtd as false for not loading any external DTD
+     */
+    public Builder loadDtd(boolean loadDtd) {
+      _loadDtd = loadDtd;
+      return this;
+    } // method
+
+    /**
+     * @param externalEntities as false for not resolving any external general or parameter entity
+     */
+    public Builder externalEntities(boolean externalEntities) {
+      _externalEntities = externalEntities;
+      return this;
+    } // method
+
+    /**
+     * @param pooled as false for taking a new parser for each call, as readers did before
+     */
+    public Builder pooled(boolean pooled) {
+      _pooled = pooled;
+      return this;
+    } // method
+
+    /**
+     * @param skipWhitespace as false for handing whitespace-only text to the tree, too; it is
+     * rejected as a value there anyway
+     */
+    public Builder skipWhitespace(boolean skipWhitespace) {
+      _skipWhitespace = skipWhitespace;
+      return this;
+    } // method
+
+    /**
+     * @param engine as the parser taken by calls not giving one
+     */
+    public Builder engine(Engine engine) {
+      _engine = engine;
+      return this;
+    } // method
+
+    public Reader build() {
+      return new Reader(this);
+    } // method
+
+    /**
+     * @return a SAX factory having the features given; a factory is not thread safe, so each
+     * thread takes its own
+     */
+    private static SAXParserFactory factory(boolean namespaces, Boolean secure, boolean loadDtd, boolean externalEntities) {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      factory.setNamespaceAware(namespaces);
+      if (secure != null) {
+        feature(factory, XMLConstants.FEATURE_SECURE_PROCESSING, secure);
+      } // if
+      feature(factory, LOAD_DTD, loadDtd);
+      feature(factory, GENERAL_ENTITIES, externalEntities);
+      feature(factory, PARAMETER_ENTITIES, externalEntities);
+      return factory;
+    } // method
+
+    /**
+     * @return a StAX factory having the same features; its secure processing limits are those of
+     * the JDK always
+     */
+    private static XMLInputFactory inputFactory(boolean namespaces, boolean loadDtd, boolean externalEntities) {
+      XMLInputFactory factory = XMLInputFactory.newFactory();
+      property(factory, XMLInputFactory.IS_NAMESPACE_AWARE, namespaces);
+      property(factory, XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, externalEntities);
+      property(factory, IGNORE_DTD, !loadDtd);
+      return factory;
+    } // method
+
+    private static void property(XMLInputFactory factory, String name, boolean value) {
+      try {
+        factory.setProperty(name, value);
+      } catch (IllegalArgumentException exception) {
+        exception.printStackTrace(); // not supported by this parser, left as it is
+      } // try
+    } // method
+
+    private static void feature(SAXParserFactory factory, String name, boolean value) {
+      try {
+        factory.setFeature(name, value);
+      } catch (Exception exception) {
+        exception.printStackTrace(); // not supported by this parser, left as it is
+      } // try
+    } // method
+
+  } // class
+
+  /**
+   * Builder of the root of a file parsed in parallel; the element standing in for all records is
+   * replaced by the records of the chunks, in order.
+   */
+  private static final class Splice implements IBuilder {
+
+    private final TreeBuilder _tree = new TreeBuilder(); // member
+
+    private final List<IPax> _chunks; // member
+
+    private int _depth = 0; // member
+
+    private Splice(List<IPax> chunks) {
+      _chunks = chunks;
+    } // constructor
+
+    @Override
+    public void open(String tag) {
+      _depth++;
+      if (_depth == 2) { // the one standing in
+        IChildren children = _tree.Root().Child();
+        for (IPax chunk : _chunks) {
+          for (IPax record : chunk.Child().all()) {
+            children.add(record);
+          } // loop
+        } // loop
+      } else {
+        _tree.open(tag);
+      } // if
+    } // method
+
+    @Override
+    public void attrib(String name, String val) {
+      if (_depth != 2) {
+        _tree.attrib(name, val);
+      } // if
+    } // method
+
+    @Override
+    public void text(String val) {
+      if (_depth != 2) {
+        _tree.text(val);
+      } // if
+    } // method
+
+    @Override
+    public void comment(String val) {
+      if (_depth != 2) {
+        _tree.comment(val);
+      } // if
+    } // method
+
+    @Override
+    public void close() {
+      if (_depth != 2) {
+        _tree.close();
+      } // if
+      _depth--;
+    } // method
+
+    @Override
+    public void wrap(String tag) {
+      _tree.wrap(tag);
+    } // method
+
+    @Override
+    public IPax Root() {
+      return _tree.Root();
+    } // method
+
+  } // class
+
+  /**
+   * Text of all open elements in one reusable buffer, innermost last; the chunks of an element are
+   * joined and turned into a single string when it ends.
+   */
+  private static final class Text {
+
+    private char[] _chars = new char[TEXT]; // member
+
+    private int _end = 0; // member
+
+    private int[] _starts = new int[16]; // member, where the text of each open element starts
+
+    private boolean[] _blanks = new boolean[16]; // member, true while an element's text is whitespace
+
+    private void clear() {
+      _end = 0;
+      if (_chars.length > MAX_TEXT) {
+        _chars = new char[TEXT];
+      } // if
+    } // method
+
+    private void open(int level) {
+      if (level == _starts.length) {
+        _starts = Arrays.copyOf(_starts, level * 2);
+        _blanks = Arrays.copyOf(_blanks, level * 2);
+      } // if
+      _starts[level] = _end;
+      _blanks[level] = true;
+    } // method
+
+    private void append(char[] ch, int start, int length, int level) {
+      if (_end + length > _chars.length) {
+        _chars = Arrays.copyOf(_chars, Math.max(_chars.length * 2, _end + length));
+      } // if
+      System.arraycopy(ch, start, _chars, _end, length);
+      _end += length;
+      if (_blanks[level]) {
+        for (int i = start; i < start + length; i++) {
+          if (!Character.isWhitespace(ch[i])) {
+            _blanks[level] = false;
+            break;
+          } // if
+        } // loop
+      } // if
+    } // method
+
+    /**
+     * @return null or the text of the element closed
+     */
+    private String close(int level, boolean skipWhitespace) {
+      int start = _starts[level];
+      String text = null;
+      if (_end > start && !(skipWhitespace && _blanks[level])) {
+        text = new String(_chars, start, _end - start);
+      } // if
+      _end = start;
+      return text;
+    } // method
+
+  } // class
 
   private class IPaxHandler extends DefaultHandler {
 
@@ -93,16 +955,25 @@ public class Reader {
 
     private boolean _wasRootFound = false;
 
-    private IPax _parent = null; // member
+    private IBuilder _builder = null; // member
 
     private LexicalHandler _lexicalHandler = null;
 
     private IPax _root = null; // member
 
-    public IPaxHandler() {
+    private final Text _text = new Text(); // member
+
+    public IPaxHandler(IBuilder builder) {
+      _builder = builder;
       _lexicalHandler = new IPaxLexicalHandler(this);
     } // method
 
+    public void Builder(IBuilder builder) {
+      _builder = builder;
+      _root = null;
+      _text.clear(); // a parser kept by a thread does not hold on to huge texts
+    } // method
+
     public LexicalHandler LexicalHandler() {
       return _lexicalHandler;
     } // method
@@ -119,8 +990,8 @@ public class Reader {
     public void startDocument() throws SAXException {
       _hierarchyLevel = -1;
       _wasRootFound = false;
-      _parent = null;
       _root = null;
+      _text.clear();
     } // method
 
     @Override
@@ -132,6 +1003,7 @@ public class Reader {
         message += _hierarchyLevel + 1; // add one up
         throw new SAXException(message);
       } // if
+      _root = _builder.Root();
     } // method
 
     @Override
@@ -139,8 +1011,6 @@ public class Reader {
         throws SAXException {
       _hierarchyLevel++; // one hierarchy up: 0, 1, 2, 3, ..
 
-      IPax Pax = Instances.Factory().produce(qName); // typed new one, if tag is known
-
       if (_hierarchyLevel == 0) { // only for the root case
         if (_wasRootFound) {
           String message = this.getClass().getSimpleName();
@@ -149,34 +1019,35 @@ public class Reader {
           throw new SAXException(message);
         } // if
         _wasRootFound = true; // look for single root
-
-        _root = Pax; // settle this as the root node
-
-      } else { // all other cases
-        _parent.Child().add(Pax); // new is child of parent
       } // if
 
+      _builder.open(qName); // new is root or child of parent
+      _text.open(_hierarchyLevel);
+
       if (attributes.getLength() > 0) { // settle all attributes
         for (int i = 0; i < attributes.getLength(); i++) {
           String attr = attributes.getQName(i);
           String value = attributes.getValue(i);
-          Pax.Attrib().add(attr, value);
+          _builder.attrib(attr, value);
         } // loop
       } // if
-
-      _parent = Pax; // settle new as the next parent
     } // method
 
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
-      String val = new String(ch, start, length);
-      _parent.Val(val); // update value of current
+      if (_hierarchyLevel > -1) {
+        _text.append(ch, start, length, _hierarchyLevel); // chunks are joined, not overwritten
+      } // if
     } // method
 
     @Override
     public void endElement(String uri, String localName, String qName) throws SAXException {
+      String text = _text.close(_hierarchyLevel, _skipWhitespace);
+      if (text != null) {
+        _builder.text(text); // one string per element
+      } // if
       _hierarchyLevel--; // one hierarchy down: .. 3, 2, 1, 0
-      _parent = _parent.Parent(); // get one up for new ones on level higher
+      _builder.close(); // get one up for new ones on level higher
     } // method
 
     public class IPaxLexicalHandler implements LexicalHandler {
@@ -214,8 +1085,7 @@ public class Reader {
       @Override
       public void comment(char[] ch, int start, int length) throws SAXException {
         if (_handler._hierarchyLevel > -1) {
-          IPax parent = _handler._parent;
-          parent.Child().add(Identity.COMMENT, new String(ch, start, length));
+          _handler._builder.comment(new String(ch, start, length));
         } // if
       } // method
 
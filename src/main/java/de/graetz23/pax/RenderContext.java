@@ -0,0 +1,91 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file RenderContext.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.IOException;
+
+/**
+ * State of one rendering call: indent level and size, line separator, and pretty or compact mode.
+ * Create one per call; contexts are cheap and keep the generators free of shared mutable state, so
+ * any number of threads may render at once.
+ */
+public final class RenderContext {
+
+  private static final String SPACES = "                                                                "; // member
+
+  private final int _indentSize; // member
+
+  private final String _lineSeparator; // member
+
+  private int _level = 0; // member
+
+  /**
+   * @param indentSize as the number of spaces per level; 0 for none
+   * @param lineSeparator as the separator appended to each line; empty for none
+   */
+  public RenderContext(int indentSize, String lineSeparator) {
+    _indentSize = Math.max(0, indentSize);
+    _lineSeparator = lineSeparator == null ? "" : lineSeparator;
+  } // constructor
+
+  /**
+   * @return a context indenting by two spaces and separating lines by the system's separator
+   */
+  public static RenderContext pretty() {
+    return new RenderContext(2, Statics.LineSeparator);
+  } // method
+
+  /**
+   * @return a context rendering all on a single line
+   */
+  public static RenderContext compact() {
+    return new RenderContext(0, "");
+  } // method
+
+  public boolean isPretty() {
+    return _indentSize > 0 || !_lineSeparator.isEmpty();
+  } // method
+
+  public int Level() {
+    return _level;
+  } // method
+
+  public String LineSeparator() {
+    return _lineSeparator;
+  } // method
+
+  void deeper() {
+    _level++;
+  } // method
+
+  void shallower() {
+    if (_level > 0) {
+      _level--;
+    } // if
+  } // method
+
+  /**
+   * Append the indent of the current level, without creating any string.
+   */
+  void indent(Appendable out) throws IOException {
+    int spaces = _level * _indentSize;
+    while (spaces > 0) {
+      int chunk = Math.min(spaces, SPACES.length());
+      out.append(SPACES, 0, chunk);
+      spaces -= chunk;
+    } // loop
+  } // method
+
+  void newLine(Appendable out) throws IOException {
+    if (!_lineSeparator.isEmpty()) {
+      out.append(_lineSeparator);
+    } // if
+  } // method
+
+} // class
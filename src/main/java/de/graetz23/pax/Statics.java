@@ -15,6 +15,10 @@ public class Statics {
     private static int _sizeIndent = 2; // member
     private static int _currentIndent = 0; // member
 
+    /**
+     * Shared by all threads; the generators keep their indent in a RenderContext per call instead.
+     */
+    @Deprecated
     public static String Indent() {
         StringBuilder indent = new StringBuilder();
         for (int i = 0; i < _currentIndent; i++) {
@@ -23,10 +27,12 @@ public class Statics {
         return indent.toString();
     } // method
 
+    @Deprecated
     public static void incIndent() {
         _currentIndent += _sizeIndent;
     } // method
 
+    @Deprecated
     public static void decindent () {
         _currentIndent -= _sizeIndent;
         if(_currentIndent < 0) {
@@ -10,9 +10,32 @@ package de.graetz23.pax;
 
 import java.util.*;
 
+/**
+ * Ordered storage of children or attributes. Members are kept in an array of slots in insertion
+ * order, a multimap is pointing from each tag to the slots of its same named siblings, and an
+ * identity index is pointing from each member to its slot. Deleting leaves an empty slot behind
+ * that is compacted away in one go before the next positional read. Prefix queries are answered
+ * by a sorted table of the case folded tags, built on the first query and maintained after.
+ */
 public class Subset implements ISubset {
 
-    private final LinkedHashMap<String, IPax> _hashMap = new LinkedHashMap<String, IPax>();
+    private static final int CAPACITY = 4; // member
+
+    private static final int LINEAR = 8; // member; below, identity lookups scan the slots
+
+    private IPax[] _items = new IPax[CAPACITY]; // member; null marks a deleted slot
+
+    private String[] _keys = new String[CAPACITY]; // member; tag a slot is indexed by
+
+    private int _size = 0; // member; slots in use
+
+    private int _dead = 0; // member; deleted slots not compacted yet
+
+    private final HashMap<String, Slots> _tags = new HashMap<String, Slots>(); // member
+
+    private IdentityHashMap<IPax, Integer> _slots = null; // member; built on demand
+
+    private TreeMap<String, List<String>> _folded = null; // member; built on demand
 
     private IPax _ancestor = null;
 
@@ -38,7 +61,7 @@ public class Subset implements ISubset {
     @Override
     public IPax First() {
         IPax first = null;
-        if (!_hashMap.isEmpty()) {
+        if (cnt() > 0) {
             first = get(0);
         } // if
         return first;
@@ -46,33 +69,39 @@ public class Subset implements ISubset {
 
     @Override
     public boolean has(String tag) {
-        return _hashMap.containsKey(tag);
+        return _tags.containsKey(tag);
     } // method
 
     @Override
     public boolean has(IPax Pax) {
-        return _hashMap.containsValue(Pax);
+        return slot(Pax) >= 0;
     } // method
 
     @Override
     public IPax get(int i) {
         IPax Pax = null;
-        int currentIndx = 0;
-        for (Map.Entry<String, IPax> entry : _hashMap.entrySet()) {
-            if (currentIndx == i) {
-                Pax = entry.getValue();
-                break;
-            } // if
-            currentIndx++;
-        } // loop
+        compact();
+        if (i >= 0 && i < _size) {
+            Pax = _items[i];
+        } // if
         return Pax;
     } // method
 
     @Override
     public IPax get(String tag) {
+        return get(tag, 0);
+    } // method
+
+    @Override
+    public IPax get(String tag, int n) {
         IPax Pax = null;
-        if (has(tag)) {
-            Pax = _hashMap.get(tag);
+        Slots slots = _tags.get(tag);
+        if (slots != null && n >= 0 && n < slots._live) {
+            if (slots._live < slots._size) { // some siblings were deleted ..
+                compact();
+                slots = _tags.get(tag);
+            } // if
+            Pax = _items[slots._slots[n]];
         } // if
         return Pax;
     } // method
@@ -81,16 +110,9 @@ public class Subset implements ISubset {
     public boolean add(String tag) {
         boolean wasAdded = false;
         if (!tag.isEmpty()) {
-            if (!has(tag)) {
-                IPax Pax = Instances.Factory().produce(tag);
-                Pax.Parent(Ancestor());
-                _hashMap.put(Pax.Tag(), Pax);
-            } else { // a helping hand to put correctly ..
-                String tag_ = tag + Statics.Separation + Statics.Next();
-                IPax Pax = Instances.Factory().produce(tag);
-                Pax.Parent(Ancestor());
-                _hashMap.put(tag_, Pax);
-            } // if
+            IPax Pax = Instances.Factory().produce(tag);
+            Pax.Parent(Ancestor());
+            append(Pax);
             wasAdded = true;
         } // if
         return wasAdded;
@@ -100,16 +122,9 @@ public class Subset implements ISubset {
     public boolean add(String tag, String val) {
         boolean wasAdded = false;
         if (!tag.isEmpty()) {
-            if (!has(tag)) {
-                IPax Pax = Instances.Factory().produce(tag, val);
-                Pax.Parent(Ancestor());
-                _hashMap.put(Pax.Tag(), Pax);
-            } else { // a helping hand to put correctly ..
-                String tag_ = tag + Statics.Separation + Statics.Next();
-                IPax Pax = Instances.Factory().produce(tag, val);
-                Pax.Parent(Ancestor());
-                _hashMap.put(tag_, Pax);
-            } // if
+            IPax Pax = Instances.Factory().produce(tag, val);
+            Pax.Parent(Ancestor());
+            append(Pax);
             wasAdded = true;
         } // if
         return wasAdded;
@@ -120,13 +135,7 @@ public class Subset implements ISubset {
         boolean wasAdded = false;
         if (Pax != null) {
             Pax.Parent(Ancestor());
-            if (!has(Pax.Tag())) {
-                _hashMap.put(Pax.Tag(), Pax);
-            } else { // a helping hand to put correctly ..
-                String tag = Pax.Tag();
-                String tag_ = tag + Statics.Separation + Statics.Next();
-                _hashMap.put(tag_, Pax);
-            } // if
+            append(Pax);
             wasAdded = true;
         } // if
         return wasAdded;
@@ -153,10 +162,19 @@ public class Subset implements ISubset {
         boolean wasSet = false;
         if (pax != null) {
             pax.Parent(Ancestor()); // Set the parent
-            if (_hashMap.containsKey(pax.Tag())) {
-                _hashMap.replace(pax.Tag(), pax); // Replace or add
-            } else {
-                _hashMap.put(pax.Tag(), pax);
+            IPax old = get(pax.Tag());
+            if (old == null) {
+                append(pax);
+            } else if (old != pax) { // replace in place, keeping the order
+                int slot = slot(old);
+                if (_slots != null) {
+                    _slots.remove(old);
+                    _slots.put(pax, slot);
+                } // if
+                _items[slot] = pax;
+                removed(old);
+                old.Parent(null);
+                added(pax);
             } // if
             wasSet = true;
         } // if
@@ -166,9 +184,9 @@ public class Subset implements ISubset {
     @Override
     public boolean del(String key) {
         boolean wasDeleted = false;
-        if (has(key)) {
-            _hashMap.get(key).Parent(null);
-            _hashMap.remove(key);
+        IPax Pax = get(key);
+        if (Pax != null) {
+            kill(slot(Pax));
             wasDeleted = true;
         } // if
         return wasDeleted;
@@ -177,23 +195,10 @@ public class Subset implements ISubset {
     @Override
     public boolean del(IPax Pax) {
         boolean wasDeleted = false;
-        if (has(Pax)) {
-            String key_memento = null;
-            IPax Pax_memento = null;
-            Set<Map.Entry<String, IPax>> entries = _hashMap.entrySet();
-            for (Map.Entry<String, IPax> entry : entries) {
-                IPax Pax_ = entry.getValue();
-                if (Pax == Pax_) {
-                    key_memento = entry.getKey(); // important to take this key ..
-                    Pax_memento = Pax_;
-                    break;
-                } // if
-            } // loop
-            if (key_memento != null && Pax_memento != null) { // do family business ..
-                Pax_memento.Parent(null);
-                _hashMap.remove(key_memento);
-                wasDeleted = true;
-            } // if
+        int slot = slot(Pax);
+        if (slot >= 0) { // do family business ..
+            kill(slot);
+            wasDeleted = true;
         } // if
         return wasDeleted;
     } // method
@@ -201,8 +206,20 @@ public class Subset implements ISubset {
     @Override
     public boolean del() {
         boolean wasDeleted = false;
-        if (!_hashMap.isEmpty()) { // delete em all ..
-            _hashMap.clear();
+        if (cnt() > 0) { // delete em all ..
+            for (int i = 0; i < _size; i++) {
+                if (_items[i] != null) {
+                    removed(_items[i]);
+                    _items[i].Parent(null);
+                } // if
+            } // loop
+            Arrays.fill(_items, 0, _size, null);
+            Arrays.fill(_keys, 0, _size, null);
+            _size = 0;
+            _dead = 0;
+            _tags.clear();
+            _slots = null;
+            _folded = null;
             wasDeleted = true;
         } // if
         return wasDeleted;
@@ -210,25 +227,70 @@ public class Subset implements ISubset {
 
     @Override
     public int cnt() {
-        return _hashMap.size();
+        return _size - _dead;
+    } // method
+
+    @Override
+    public int cnt(String tag) {
+        Slots slots = _tags.get(tag);
+        return slots == null ? 0 : slots._live;
     } // method
 
     @Override
     public List<IPax> all() {
-        List<IPax> all = new ArrayList<>();
-        if (cnt() > 0) {
-            all = _hashMap.values().stream().toList();
-        } // if
-        return all;
+        return Collections.unmodifiableList(Arrays.asList(live()));
     } // method
 
+    /**
+     * Get all members having a tag starting with the given prefix, ignoring the case; in the
+     * order the members were added.
+     * @param tag as the prefix of the tags
+     * @return a list of the matching members
+     */
     @Override
     public List<IPax> all(String tag) {
         List<IPax> filtered = new ArrayList<>();
         if (cnt() > 0) {
-            List<IPax> all = _hashMap.values().stream().toList();
-            for (IPax child : all) {
-                if (child.Tag().toLowerCase().startsWith(tag.toLowerCase())) {
+            if (_folded == null) {
+                _folded = new TreeMap<String, List<String>>();
+                for (String key : _tags.keySet()) {
+                    fold(key);
+                } // loop
+            } // if
+            String prefix = tag.toLowerCase();
+            Slots single = null;
+            int[] many = null;
+            int size = 0;
+            for (Map.Entry<String, List<String>> entry : _folded.tailMap(prefix).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) {
+                    break; // sorted; no more tags having that prefix
+                } // if
+                for (String key : entry.getValue()) {
+                    Slots slots = _tags.get(key);
+                    if (single == null && many == null) {
+                        single = slots;
+                    } else { // gather the slots of several tags ..
+                        if (many == null) {
+                            many = Arrays.copyOf(single._slots, single._size + slots._size);
+                            size = single._size;
+                            single = null;
+                        } else if (size + slots._size > many.length) {
+                            many = Arrays.copyOf(many, Math.max(2 * many.length, size + slots._size));
+                        } // if
+                        System.arraycopy(slots._slots, 0, many, size, slots._size);
+                        size += slots._size;
+                    } // if
+                } // loop
+            } // loop
+            if (single != null) { // the common case: one tag, slots already in order
+                many = single._slots;
+                size = single._size;
+            } else if (many != null) { // .. and bring them in order
+                Arrays.sort(many, 0, size);
+            } // if
+            for (int i = 0; i < size; i++) {
+                IPax child = _items[many[i]];
+                if (child != null) {
                     filtered.add(child);
                 } // if
             } // loop
@@ -239,29 +301,250 @@ public class Subset implements ISubset {
     @Override
     public <T extends IPax> List<T> typed() {
         List<T> filtered = new ArrayList<>();
-        if (cnt() > 0) {
-            List<IPax> all = _hashMap.values().stream().toList();
-            for (IPax child : all) {
-                T typedPax = (T) child;
+        for (int i = 0; i < _size; i++) {
+            if (_items[i] != null) {
+                T typedPax = (T) _items[i];
                 filtered.add(typedPax);
-            } // loop
-        } // if
+            } // if
+        } // loop
         return filtered;
     } // method
 
     @Override
     public <T extends IPax> List<T> typed(String tag) {
-        List<T> filtered = new ArrayList<>();
-        if (cnt() > 0) {
-            List<IPax> all = _hashMap.values().stream().toList();
-            for (IPax child : all) {
-                if (child.Tag().toLowerCase().startsWith(tag.toLowerCase())) {
-                    T typedPax = (T) child;
-                    filtered.add(typedPax);
+        return typed(all(tag));
+    } // method
+
+    /**
+     * @param members as a list of its own, e.g. taken by all()
+     * @return the same list as one of the type asked for; the members are not checked
+     */
+    static <T extends IPax> List<T> typed(List<IPax> members) {
+        return (List<T>) (List<?>) members;
+    } // method
+
+    /**
+     * Re-index a member after its tag was changed.
+     *
+     * @param Pax as the member having a new tag
+     * @return true if the member is kept by this subset
+     */
+    boolean retag(IPax Pax) {
+        boolean wasRetagged = false;
+        int slot = slot(Pax);
+        if (slot >= 0) {
+            Slots old = _tags.get(_keys[slot]);
+            old.remove(slot);
+            if (old._live == 0) {
+                unindex(_keys[slot]);
+            } // if
+            String tag = Pax.Tag();
+            _keys[slot] = tag;
+            index(tag).insert(slot);
+            wasRetagged = true;
+        } // if
+        return wasRetagged;
+    } // method
+
+    private IPax[] live() {
+        IPax[] live;
+        if (_dead == 0) {
+            live = Arrays.copyOf(_items, _size);
+        } else {
+            live = new IPax[cnt()];
+            int j = 0;
+            for (int i = 0; i < _size; i++) {
+                if (_items[i] != null) {
+                    live[j++] = _items[i];
                 } // if
             } // loop
         } // if
-        return filtered;
+        return live;
+    } // method
+
+    private void append(IPax Pax) {
+        if (_size == _items.length) {
+            int size = _size + (_size >> 1) + 1;
+            _items = Arrays.copyOf(_items, size);
+            _keys = Arrays.copyOf(_keys, size);
+        } // if
+        int slot = _size++;
+        String tag = Pax.Tag();
+        _items[slot] = Pax;
+        _keys[slot] = tag;
+        index(tag).add(slot);
+        if (_slots != null) {
+            _slots.put(Pax, slot);
+        } // if
+        added(Pax);
+    } // method
+
+    /**
+     * Called after a member entered the subset; does nothing by default.
+     */
+    protected void added(IPax member) {
+    } // method
+
+    /**
+     * Called after a member left the subset, still keeping its parent; does nothing by default.
+     */
+    protected void removed(IPax member) {
+    } // method
+
+    private int slot(IPax Pax) {
+        int slot = -1;
+        if (Pax != null) {
+            if (_size > LINEAR && _slots == null) { // index once, look up in O(1) ever after
+                _slots = new IdentityHashMap<IPax, Integer>(_size);
+                for (int i = 0; i < _size; i++) {
+                    if (_items[i] != null) {
+                        _slots.put(_items[i], i);
+                    } // if
+                } // loop
+            } // if
+            if (_slots != null) {
+                Integer known = _slots.get(Pax);
+                slot = known == null ? -1 : known;
+            } else {
+                for (int i = 0; i < _size && slot < 0; i++) {
+                    if (_items[i] == Pax) {
+                        slot = i;
+                    } // if
+                } // loop
+            } // if
+        } // if
+        return slot;
+    } // method
+
+    private void kill(int slot) {
+        IPax Pax = _items[slot];
+        String tag = _keys[slot];
+        Slots slots = _tags.get(tag);
+        slots._live--; // the slot itself is dropped when compacting
+        if (slots._live == 0) {
+            unindex(tag);
+        } // if
+        if (_slots != null) {
+            _slots.remove(Pax);
+        } // if
+        _items[slot] = null;
+        _keys[slot] = null;
+        _dead++;
+        removed(Pax);
+        Pax.Parent(null);
+        if (_dead > LINEAR && _dead > _size - _dead) { // keep the waste bounded
+            compact();
+        } // if
+    } // method
+
+    private Slots index(String tag) {
+        Slots slots = _tags.get(tag);
+        if (slots == null) {
+            slots = new Slots();
+            _tags.put(tag, slots);
+            if (_folded != null) {
+                fold(tag);
+            } // if
+        } // if
+        return slots;
     } // method
 
+    private void unindex(String tag) {
+        _tags.remove(tag);
+        if (_folded != null && tag != null) {
+            String folded = tag.toLowerCase();
+            List<String> keys = _folded.get(folded);
+            keys.remove(tag);
+            if (keys.isEmpty()) {
+                _folded.remove(folded);
+            } // if
+        } // if
+    } // method
+
+    private void fold(String tag) {
+        if (tag != null) {
+            String folded = tag.toLowerCase();
+            List<String> keys = _folded.get(folded);
+            if (keys == null) {
+                keys = new ArrayList<String>(1);
+                _folded.put(folded, keys);
+            } // if
+            keys.add(tag);
+        } // if
+    } // method
+
+    /**
+     * Close the gaps of deleted slots; all positions are renumbered in one pass.
+     */
+    private void compact() {
+        if (_dead > 0) {
+            int j = 0;
+            for (int i = 0; i < _size; i++) {
+                if (_items[i] != null) {
+                    _items[j] = _items[i];
+                    _keys[j] = _keys[i];
+                    j++;
+                } // if
+            } // loop
+            Arrays.fill(_items, j, _size, null);
+            Arrays.fill(_keys, j, _size, null);
+            _size = j;
+            _dead = 0;
+            for (Slots slots : _tags.values()) { // the tags stay the same, renumber their slots
+                slots._size = 0;
+                slots._live = 0;
+            } // loop
+            for (int i = 0; i < _size; i++) {
+                _tags.get(_keys[i]).add(i);
+            } // loop
+            if (_slots != null) {
+                _slots.clear();
+                for (int i = 0; i < _size; i++) {
+                    _slots.put(_items[i], i);
+                } // loop
+            } // if
+        } // if
+    } // method
+
+    /**
+     * Ascending slots of the same named siblings; slots of deleted siblings are only counted off
+     * and dropped when the subset is compacted.
+     */
+    private static final class Slots {
+
+        private int[] _slots = new int[1]; // member
+
+        private int _size = 0; // member
+
+        private int _live = 0; // member
+
+        private void add(int slot) {
+            if (_size == _slots.length) {
+                _slots = Arrays.copyOf(_slots, _size * 2);
+            } // if
+            _slots[_size++] = slot;
+            _live++;
+        } // method
+
+        private void insert(int slot) {
+            add(slot);
+            int i = _size - 1;
+            while (i > 0 && _slots[i - 1] > slot) { // keep in document order
+                _slots[i] = _slots[i - 1];
+                i--;
+            } // loop
+            _slots[i] = slot;
+        } // method
+
+        private void remove(int slot) {
+            int i = Arrays.binarySearch(_slots, 0, _size, slot);
+            if (i >= 0) {
+                System.arraycopy(_slots, i + 1, _slots, i, _size - i - 1);
+                _size--;
+                _live--;
+            } // if
+        } // method
+
+    } // class
+
 } // class
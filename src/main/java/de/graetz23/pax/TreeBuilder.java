@@ -0,0 +1,85 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file TreeBuilder.java
+ */
+
+package de.graetz23.pax;
+
+/**
+ * Builds a tree of IPax objects produced by the current factory; one heap object per element.
+ */
+class TreeBuilder implements IBuilder {
+
+  private IPax _root = null; // member
+
+  private IPax _current = null; // member
+
+  private PaxIndex _index = null; // member
+
+  TreeBuilder() {
+  } // constructor
+
+  /**
+   * @param index as null or an index attached to the root once it is opened, and filled while
+   * the tree grows
+   */
+  TreeBuilder(PaxIndex index) {
+    _index = index;
+  } // constructor
+
+  @Override
+  public void open(String tag) {
+    IPax Pax = Instances.Factory().produce(tag); // typed new one, if tag is known
+    if (_current == null) {
+      _root = Pax; // settle this as the root node
+      if (_index != null) {
+        _index.attach(Pax);
+      } // if
+    } else {
+      _current.Child().add(Pax); // new is child of parent
+    } // if
+    _current = Pax; // settle new as the next parent
+  } // method
+
+  @Override
+  public void attrib(String name, String val) {
+    _current.Attrib().add(name, val);
+  } // method
+
+  @Override
+  public void text(String val) {
+    _current.Val(val); // update value of current
+  } // method
+
+  @Override
+  public void comment(String val) {
+    _current.Child().add(Identity.COMMENT, val);
+  } // method
+
+  @Override
+  public void close() {
+    _current = _current.Parent(); // get one up for new ones on level higher
+  } // method
+
+  @Override
+  public void wrap(String tag) {
+    IPax Pax = Instances.Factory().produce(tag);
+    if (_root != null) {
+      Pax.Child().add(_root);
+    } // if
+    _root = Pax;
+    _current = Pax;
+    if (_index != null) {
+      _index.attach(Pax); // index all anew, below the new root
+    } // if
+  } // method
+
+  @Override
+  public IPax Root() {
+    return _root;
+  } // method
+
+} // class
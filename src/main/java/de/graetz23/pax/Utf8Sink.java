@@ -0,0 +1,243 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file Utf8Sink.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appendable encoding chars straight to UTF-8 into a reusable direct ByteBuffer, which is written
+ * through a FileChannel when full. ASCII is copied byte by byte without any encoding step. In the
+ * mapped mode the file is written through memory mapped windows instead; each window is unmapped
+ * when left, and the file is truncated to its size once the last one is, as no platform allows to
+ * cut a file below a live mapping. Serves as backend of XmlGenerator and JsonGenerator; not thread
+ * safe.
+ */
+public final class Utf8Sink implements Appendable, Flushable, Closeable {
+
+  private static final int BUFFER = 64 * 1024; // member
+
+  private static final int WINDOW = 64 * 1024 * 1024; // member
+
+  private final FileChannel _channel; // member
+
+  private final boolean _mapped; // member
+
+  private ByteBuffer _buffer; // member
+
+  private long _base = 0; // member, file position of the current window
+
+  private char _high = 0; // member, pending high surrogate
+
+  private Utf8Sink(FileChannel channel, boolean mapped, int size) throws IOException {
+    _channel = channel;
+    _mapped = mapped;
+    _buffer = mapped ? channel.map(FileChannel.MapMode.READ_WRITE, 0, WINDOW) : ByteBuffer.allocateDirect(size);
+  } // constructor
+
+  /**
+   * @param channel as a channel opened for writing; closed with the sink
+   */
+  public Utf8Sink(FileChannel channel) throws IOException {
+    this(channel, false, BUFFER);
+  } // constructor
+
+  /**
+   * @param channel as a channel opened for writing; closed with the sink
+   * @param size as the size of the buffer in bytes
+   */
+  public Utf8Sink(FileChannel channel, int size) throws IOException {
+    this(channel, false, Math.max(16, size));
+  } // constructor
+
+  /**
+   * @param path as the file to be created or truncated
+   * @return a sink writing through a buffer
+   */
+  public static Utf8Sink open(Path path) throws IOException {
+    return new Utf8Sink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+  } // method
+
+  /**
+   * @param path as the file to be created or truncated
+   * @return a sink writing through memory mapped windows; for very large files
+   */
+  public static Utf8Sink mapped(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    return new Utf8Sink(channel, true, WINDOW);
+  } // method
+
+  public boolean isMapped() {
+    return _mapped;
+  } // method
+
+  /**
+   * @return the number of bytes written so far
+   */
+  public long size() {
+    return _base + _buffer.position();
+  } // method
+
+  @Override
+  public Utf8Sink append(CharSequence csq) throws IOException {
+    return csq == null ? append("null", 0, 4) : append(csq, 0, csq.length());
+  } // method
+
+  @Override
+  public Utf8Sink append(CharSequence csq, int start, int end) throws IOException {
+    if (csq == null) {
+      return append("null", start, end);
+    } // if
+    ByteBuffer buffer = _buffer;
+    int i = start;
+    while (i < end) {
+      if (_high == 0) { // fast path, copy a run of ASCII
+        int stop = i + Math.min(end - i, buffer.remaining());
+        while (i < stop) {
+          char c = csq.charAt(i);
+          if (c >= 0x80) {
+            break;
+          } // if
+          buffer.put((byte) c);
+          i++;
+        } // loop
+        if (i == end) {
+          break;
+        } // if
+        if (!buffer.hasRemaining()) {
+          drain();
+          buffer = _buffer;
+          continue;
+        } // if
+      } // if
+      encode(csq.charAt(i++));
+      buffer = _buffer;
+    } // loop
+    return this;
+  } // method
+
+  @Override
+  public Utf8Sink append(char c) throws IOException {
+    if (c < 0x80 && _high == 0) {
+      if (!_buffer.hasRemaining()) {
+        drain();
+      } // if
+      _buffer.put((byte) c);
+    } else {
+      encode(c);
+    } // if
+    return this;
+  } // method
+
+  private void encode(char c) throws IOException {
+    if (_buffer.remaining() < 4) {
+      drain();
+    } // if
+    ByteBuffer buffer = _buffer;
+    if (_high != 0) {
+      char high = _high;
+      _high = 0;
+      if (Character.isLowSurrogate(c)) {
+        int cp = Character.toCodePoint(high, c);
+        buffer.put((byte) (0xF0 | (cp >> 18)));
+        buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (cp & 0x3F)));
+        return;
+      } // if
+      buffer.put((byte) '?'); // unpaired, as String.getBytes does
+    } // if
+    if (c < 0x80) {
+      buffer.put((byte) c);
+    } else if (c < 0x800) {
+      buffer.put((byte) (0xC0 | (c >> 6)));
+      buffer.put((byte) (0x80 | (c & 0x3F)));
+    } else if (Character.isHighSurrogate(c)) {
+      _high = c; // wait for the low one, maybe in the next call
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.put((byte) '?');
+    } else {
+      buffer.put((byte) (0xE0 | (c >> 12)));
+      buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+      buffer.put((byte) (0x80 | (c & 0x3F)));
+    } // if
+  } // method
+
+  /**
+   * Hand the bytes buffered to the channel, or move on to the next mapped window.
+   */
+  private void drain() throws IOException {
+    if (_mapped) {
+      _base += _buffer.position();
+      unmap(_buffer);
+      _buffer = _channel.map(FileChannel.MapMode.READ_WRITE, _base, WINDOW);
+    } else {
+      _buffer.flip();
+      while (_buffer.hasRemaining()) {
+        _channel.write(_buffer);
+      } // loop
+      _base += _buffer.limit();
+      _buffer.clear();
+    } // if
+  } // method
+
+  @Override
+  public void flush() throws IOException {
+    if (!_mapped) {
+      drain();
+    } // if
+  } // method
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (_high != 0) {
+        _high = 0;
+        append('?');
+      } // if
+      flush();
+      if (_mapped) {
+        long size = size();
+        ByteBuffer window = _buffer;
+        _base = size;
+        _buffer = ByteBuffer.allocate(0);
+        ((MappedByteBuffer) window).force();
+        unmap(window); // not before the window is gone ..
+        _channel.truncate(size); // .. cut off the rest of it
+      } // if
+    } finally {
+      _channel.close();
+    } // try
+  } // method
+
+  /**
+   * Unmap a window right away, by the cleaner of the JDK; a window left to the garbage collector
+   * stays mapped until it is collected.
+   */
+  private static void unmap(ByteBuffer window) throws IOException {
+    try {
+      Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+      Field instance = unsafe.getDeclaredField("theUnsafe");
+      instance.setAccessible(true);
+      Method clean = unsafe.getMethod("invokeCleaner", ByteBuffer.class);
+      clean.invoke(instance.get(null), window);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      throw new IOException("mapped window can not be unmapped", exception);
+    } // try
+  } // method
+
+} // class
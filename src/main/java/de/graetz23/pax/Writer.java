@@ -8,12 +8,8 @@
 
 package de.graetz23.pax;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.CharsetEncoder;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 
 public class Writer {
 
@@ -35,27 +31,94 @@ public class Writer {
     } // method
 
     public boolean XML(IPax root, String fileName) {
+        return XML(root, fileName, RenderContext.pretty());
+    } // method
+
+    /**
+     * Stream a tree into a file, element by element, encoding UTF-8 straight into a bounded buffer,
+     * so memory does not grow by the size of the document.
+     *
+     * @param root as the root of the tree
+     * @param fileName as the name of the file; .xml is added if missing
+     * @param context as the rendering, e.g. RenderContext.compact() for XML_lined
+     * @return true if written
+     */
+    public boolean XML(IPax root, String fileName, RenderContext context) {
+        return XML(root, fileName, context, false);
+    } // method
+
+    /**
+     * @param mapped as true for writing through memory mapped windows; for very large files
+     * @return true if written
+     */
+    public boolean XML(IPax root, String fileName, RenderContext context, boolean mapped) {
         boolean wasWritten = false;
         if (root != null) {
             if (!fileName.toLowerCase().endsWith(".xml")) {
                 fileName += ".xml";
             } // if
 
-            try {
-                OutputStream stream = new FileOutputStream(fileName); // streaming the content
-                CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder(); // get sure to write UTF-8
-                OutputStreamWriter file = new OutputStreamWriter(stream, encoder);
-                String xml = root.XML();
+            try (Utf8Sink file = open(fileName, mapped)) { // streaming the content as UTF-8
                 String header = "<?xml version=\"1.1\" encoding=\"UTF-8\"?>" + Statics.LineSeparator;
-                file.write(header);
-                file.write(xml);
-                file.close();
+                file.append(header);
+                XmlGenerator.generate(root, file, context);
+                wasWritten = true;
+            } catch (IOException e) {
+                wasWritten = false;
+                e.printStackTrace();
+            } // try
+        } // if
+        return wasWritten;
+    } // method
+
+    public boolean JSON(IPax root) {
+        boolean wasWritten = false;
+        if (root != null) {
+            String tag = "__file_noname";
+            if (root.hasTag()) {
+                tag = root.Tag();
+            } // if
+            wasWritten = JSON(root, tag);
+        } // if
+        return wasWritten;
+    } // method
+
+    /**
+     * Stream a tree as JSON into a file, encoding UTF-8 straight into a bounded buffer, so memory
+     * does not grow by the size of the document.
+     *
+     * @param root as the root of the tree
+     * @param fileName as the name of the file; .json is added if missing
+     * @return true if written
+     */
+    public boolean JSON(IPax root, String fileName) {
+        return JSON(root, fileName, false);
+    } // method
+
+    /**
+     * @param mapped as true for writing through memory mapped windows; for very large files
+     * @return true if written
+     */
+    public boolean JSON(IPax root, String fileName, boolean mapped) {
+        boolean wasWritten = false;
+        if (root != null) {
+            if (!fileName.toLowerCase().endsWith(".json")) {
+                fileName += ".json";
+            } // if
+
+            try (Utf8Sink file = open(fileName, mapped)) { // streaming the content as UTF-8
+                JsonGenerator.generate(root, file);
                 wasWritten = true;
             } catch (IOException e) {
+                wasWritten = false;
                 e.printStackTrace();
             } // try
         } // if
         return wasWritten;
     } // method
 
+    private static Utf8Sink open(String fileName, boolean mapped) throws IOException {
+        return mapped ? Utf8Sink.mapped(Paths.get(fileName)) : Utf8Sink.open(Paths.get(fileName));
+    } // method
+
 } // class
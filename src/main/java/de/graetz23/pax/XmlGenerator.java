@@ -8,98 +8,241 @@
 
 package de.graetz23.pax;
 
-import java.util.StringJoiner;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 
 public class XmlGenerator {
 
+  static final int BUFFER = 64 * 1024; // member
+
   public static String generate(IPax pax) {
-    StringBuilder xml = new StringBuilder(Statics.Indent());
-    return generateElement(pax, xml).toString();
+    return generate(pax, RenderContext.pretty());
   } // method
 
   public static String generateLined(IPax pax) {
-    StringJoiner xml = new StringJoiner("");
-    return generateElementLined(pax, xml).toString();
+    return generate(pax, RenderContext.compact());
+  } // method
+
+  /**
+   * @param pax as the root of the tree to be rendered
+   * @param context as the state of this call; not to be shared by concurrent calls
+   * @return the XML of the tree
+   */
+  public static String generate(IPax pax, RenderContext context) {
+    StringBuilder xml = new StringBuilder();
+    try {
+      generate(pax, xml, context);
+    } catch (IOException exception) {
+      exception.printStackTrace(); // never thrown by a StringBuilder
+    } // try
+    return xml.toString();
   } // method
 
-  private static StringBuilder generateElement(IPax pax, StringBuilder xml) {
+  /**
+   * Stream the XML of a tree into some Appendable, element by element, without building the
+   * document as a whole.
+   *
+   * @param pax as the root of the tree to be rendered
+   * @param out as the target, e.g. a StringBuilder or a buffered Writer
+   * @param context as the state of this call; not to be shared by concurrent calls
+   */
+  public static void generate(IPax pax, Appendable out, RenderContext context) throws IOException {
+    generateElement(pax, out, context);
+  } // method
+
+  /**
+   * Stream the XML of a tree into a Writer through a bounded buffer; the writer is flushed, not
+   * closed.
+   */
+  public static void generate(IPax pax, java.io.Writer writer, RenderContext context) throws IOException {
+    BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer, BUFFER);
+    generateElement(pax, out, context);
+    out.flush();
+  } // method
+
+  /**
+   * Stream the XML of a tree as UTF-8 into an OutputStream through a bounded buffer; the stream is
+   * flushed, not closed.
+   */
+  public static void generate(IPax pax, OutputStream stream, RenderContext context) throws IOException {
+    generate(pax, new OutputStreamWriter(stream, StandardCharsets.UTF_8), context);
+  } // method
+
+  private static void generateElement(IPax pax, Appendable xml, RenderContext context) throws IOException {
     if (pax == null || !pax.hasTag()) {
-      return xml;
+      return;
     }
+    context.indent(xml);
     if (!pax.hasChild()) {
       if (pax.hasVal()) {
         if (pax.Tag().startsWith(Identity.COMMENT)) {
-          xml.append("<!--").append(pax.Val()).append("-->").append(Statics.LineSeparator);
+          xml.append("<!--").append(pax.Val()).append("-->");
         } else if (pax.Tag().startsWith(Identity.CDATA)) {
-          xml.append("<![CDATA[").append(pax.Val()).append("]]>").append(Statics.LineSeparator);
+          xml.append("<![CDATA[");
+          escapeCdata(pax.Val(), xml);
+          xml.append("]]>");
         } else {
-          if (pax.hasAttrib()) {
-            xml.append("<").append(pax.Tag()).append(" ").append(pax.Attrib().XML()).append(">").append(pax.Val()).append("</").append(pax.Tag()).append(">").append(Statics.LineSeparator);
-          } else {
-            xml.append("<").append(pax.Tag()).append(">").append(pax.Val()).append("</").append(pax.Tag()).append(">").append(Statics.LineSeparator);
-          }
+          xml.append("<").append(pax.Tag());
+          generateAttributes(pax, xml);
+          xml.append(">");
+          escapeText(pax.Val(), xml);
+          xml.append("</").append(pax.Tag()).append(">");
         }
       } else {
+        xml.append("<").append(pax.Tag());
         if (pax.hasAttrib()) {
-          xml.append("<").append(pax.Tag()).append(" ").append(pax.Attrib().XML()).append("/>").append(Statics.LineSeparator);
+          generateAttributes(pax, xml);
+          xml.append("/>");
         } else {
-          xml.append("<").append(pax.Tag()).append(" />").append(Statics.LineSeparator);
+          xml.append(" />");
         }
       }
+      context.newLine(xml);
     } else {
-      if (pax.hasAttrib()) {
-        xml.append("<").append(pax.Tag()).append(" ").append(pax.Attrib().XML()).append(">").append(Statics.LineSeparator);
-      } else {
-        xml.append("<").append(pax.Tag()).append(">").append(Statics.LineSeparator);
-      }
-      Statics.incIndent();
+      xml.append("<").append(pax.Tag());
+      generateAttributes(pax, xml);
+      xml.append(">");
+      context.newLine(xml);
+      context.deeper();
       for (IPax child : pax.Child().all()) {
-        generateElement(child, xml);
+        generateElement(child, xml, context);
       }
-      Statics.decindent();
-      xml.append(Statics.Indent()).append("</").append(pax.Tag()).append(">").append(Statics.LineSeparator);
+      context.shallower();
+      context.indent(xml);
+      xml.append("</").append(pax.Tag()).append(">");
+      context.newLine(xml);
     }
-    return xml;
   } // method
 
-  private static StringJoiner generateElementLined(IPax pax, StringJoiner xml) {
-    if (pax == null || !pax.hasTag()) {
-      return xml;
-    }
-    if (!pax.hasChild()) {
-      if (pax.hasVal()) {
-        if (pax.Tag().startsWith(Identity.COMMENT)) {
-          xml.add("<!--").add(pax.Val()).add("-->");
-        } else if (pax.Tag().startsWith(Identity.CDATA)) {
-          xml.add("<![CDATA[").add(pax.Val()).add("]]>");
-        } else {
-          if (pax.hasAttrib()) {
-            xml.add("<").add(pax.Tag()).add(" ").add(pax.Attrib().XML()).add(">").add(pax.Val()).add("</").add(pax.Tag()).add(">");
-          } else {
-            xml.add("<").add(pax.Tag()).add(">").add(pax.Val()).add("</").add(pax.Tag()).add(">");
-          }
-        }
-      } else {
-        if (pax.hasAttrib()) {
-          xml.add("<").add(pax.Tag()).add(" ").add(pax.Attrib().XML()).add("/>");
-        } else {
-          xml.add("<").add(pax.Tag()).add(" />");
-        }
-      }
-    } else {
-      if (pax.hasAttrib()) {
-        xml.add("<").add(pax.Tag()).add(" ").add(pax.Attrib().XML()).add(">");
-      } else {
-        xml.add("<").add(pax.Tag()).add(">");
-      }
-      Statics.incIndent();
-      for (IPax child : pax.Child().all()) {
-        generateElementLined(child, xml);
+  /**
+   * Append the attributes as IAttributes.XML() renders them, with a leading space.
+   */
+  private static void generateAttributes(IPax pax, Appendable xml) throws IOException {
+    if (pax.hasAttrib()) {
+      for (IPax attrib : pax.Attrib().all()) {
+        xml.append(" ").append(attrib.Tag()).append("=\"");
+        escapeAttrib(attrib.Val(), xml);
+        xml.append("\"");
       }
-      Statics.decindent();
-      xml.add("</").add(pax.Tag()).add(">");
     }
-    return xml;
+  } // method
+
+  /**
+   * Append text content escaping &amp;, &lt; and &gt;; the string itself is appended if there is
+   * nothing to escape, which is the common case.
+   */
+  static void escapeText(String text, Appendable xml) throws IOException {
+    escape(text, xml, false);
+  } // method
+
+  /**
+   * Append an attribute value escaping &amp;, &lt;, &gt;, &quot; and the white space a parser
+   * would normalize; the string itself is appended if there is nothing to escape.
+   */
+  static void escapeAttrib(String val, Appendable xml) throws IOException {
+    escape(val, xml, true);
+  } // method
+
+  /**
+   * @return the escaped attribute value, or the value itself if there is nothing to escape
+   */
+  static String escapeAttrib(String val) {
+    if (val == null || escapes(val, true) < 0) {
+      return val;
+    } // if
+    StringBuilder xml = new StringBuilder(val.length() + 16);
+    try {
+      escape(val, xml, true);
+    } catch (IOException exception) {
+      exception.printStackTrace(); // never thrown by a StringBuilder
+    } // try
+    return xml.toString();
+  } // method
+
+  /**
+   * Append the content of a CDATA section, splitting any ]]&gt; into two sections.
+   */
+  static void escapeCdata(String data, Appendable xml) throws IOException {
+    if (data == null) {
+      xml.append(data);
+      return;
+    } // if
+    int from = 0;
+    for (int end = data.indexOf("]]>"); end >= 0; end = data.indexOf("]]>", from)) {
+      xml.append(data, from, end + 2).append("]]><![CDATA[");
+      from = end + 2;
+    } // loop
+    if (from == 0) {
+      xml.append(data);
+    } else {
+      xml.append(data, from, data.length());
+    } // if
+  } // method
+
+  /**
+   * Single pass over the string, appending the runs between the characters to be escaped as they
+   * are; nothing is copied if there is nothing to escape.
+   */
+  private static void escape(String text, Appendable xml, boolean attrib) throws IOException {
+    if (text == null) {
+      xml.append(text);
+      return;
+    } // if
+    int length = text.length();
+    int from = 0;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c > '>') {
+        continue; // all characters to be escaped are below, so most are passed by this test
+      } // if
+      String entity = entity(c, attrib);
+      if (entity != null) {
+        xml.append(text, from, i).append(entity);
+        from = i + 1;
+      } // if
+    } // loop
+    if (from == 0) {
+      xml.append(text);
+    } else {
+      xml.append(text, from, length);
+    } // if
+  } // method
+
+  /**
+   * @return the position of the first character to be escaped, or -1
+   */
+  private static int escapes(String text, boolean attrib) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c <= '>' && entity(c, attrib) != null) {
+        return i;
+      } // if
+    } // loop
+    return -1;
+  } // method
+
+  private static String entity(char c, boolean attrib) {
+    switch (c) {
+      case '&':
+        return "&amp;";
+      case '<':
+        return "&lt;";
+      case '>':
+        return "&gt;";
+      case '"':
+        return attrib ? "&quot;" : null;
+      case '\t':
+        return attrib ? "&#9;" : null;
+      case '\n':
+        return attrib ? "&#10;" : null;
+      case '\r':
+        return "&#13;"; // a parser would turn it into a line feed
+      default:
+        return null;
+    } // switch
   } // method
 
 } // class
@@ -0,0 +1,485 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file XmlIndex.java
+ */
+
+package de.graetz23.pax;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Offset index of the elements of UTF-8 bytes, e.g. of a memory mapped file: a single pass records
+ * the tag, the byte range, the first child, and the next sibling of each element in plain arrays,
+ * neither decoding any text nor attribute. The structure is the one XmlTokenizer recovers, so a
+ * node loaded from its range by the tokenizer looks like the one of a tolerant parse. Serves the
+ * nodes of LazyPax; not thread safe.
+ */
+final class XmlIndex {
+
+  private static final int NONE = -1; // member
+
+  private static final int NAMES = 1024; // member, slots of the name cache
+
+  private static final byte[] CHILD = "<_/>".getBytes(StandardCharsets.US_ASCII); // member, stands in for a child
+
+  private final ByteBuffer _in; // member
+
+  private final int _end; // member
+
+  private final byte[][] _nameBytes = new byte[NAMES][]; // member
+
+  private final String[] _names = new String[NAMES]; // member
+
+  private String[] _tags = new String[256]; // member
+
+  private int[] _starts = new int[256]; // member, offset of the start tag, or NONE for Identity.LIST
+
+  private int[] _ends = new int[256]; // member, offset behind the element
+
+  private int[] _firsts = new int[256]; // member, first child or NONE
+
+  private int[] _nexts = new int[256]; // member, next sibling or NONE
+
+  private int _cnt = 0; // member
+
+  private int _root = NONE; // member
+
+  private int _pos; // member
+
+  private int[] _open = new int[16]; // member, the open elements
+
+  private int[] _lasts = new int[16]; // member, last child of each open element
+
+  private int _depth = 0; // member
+
+  private Loader _loader = null; // member
+
+  private XmlIndex(ByteBuffer in) {
+    _in = in;
+    _end = in.limit();
+  } // constructor
+
+  /**
+   * Index all elements of the bytes from position 0 to the limit; the buffer is kept and read
+   * again, whenever a node is loaded.
+   *
+   * @param in as UTF-8 bytes, on heap, direct, or mapped
+   * @param skipWhitespace as true for not keeping whitespace-only text
+   * @return null if there is no element at all, or the root not loaded yet
+   */
+  static LazyPax of(ByteBuffer in, boolean skipWhitespace) {
+    XmlIndex index = new XmlIndex(in);
+    index.scan();
+    if (index._root == NONE) {
+      return null;
+    } // if
+    index._loader = new Loader(index, skipWhitespace);
+    return new LazyPax(index, index._root);
+  } // method
+
+  /**
+   * @return the number of elements indexed
+   */
+  int cnt() {
+    return _cnt;
+  } // method
+
+  String Tag(int node) {
+    return _tags[node];
+  } // method
+
+  private void scan() {
+    _pos = 0;
+    if (_end >= 3 && (_in.get(0) & 0xFF) == 0xEF && (_in.get(1) & 0xFF) == 0xBB && (_in.get(2) & 0xFF) == 0xBF) {
+      _pos = 3; // byte order mark
+    } // if
+    while (_pos < _end) {
+      if (_in.get(_pos) == '<') {
+        markup();
+      } else {
+        while (_pos < _end && _in.get(_pos) != '<') { // text, not looked at
+          _pos++;
+        } // loop
+      } // if
+    } // loop
+    while (_depth > 0) { // close all left open
+      close(_end);
+    } // loop
+  } // method
+
+  private void markup() {
+    int next = _pos + 1 < _end ? _in.get(_pos + 1) : -1;
+    if (next == '/') {
+      endTag();
+    } else if (next == '?') {
+      _pos = skipPast(_pos + 2, '?', '>');
+    } else if (next == '!') {
+      if (startsWith(_pos, "<!--")) {
+        int stop = find(_pos + 4, '-', '-', '>');
+        _pos = stop < 0 ? _end : stop + 3;
+      } else if (startsWith(_pos, "<![CDATA[")) {
+        int stop = find(_pos + 9, ']', ']', '>');
+        _pos = stop < 0 ? _end : stop + 3;
+      } else {
+        skipDeclaration();
+      } // if
+    } else if (isNameStart(next)) {
+      startTag();
+    } else {
+      _pos++; // a stray <, kept as text
+    } // if
+  } // method
+
+  private void startTag() {
+    int start = _pos++;
+    while (_pos < _end && !isNameEnd(_in.get(_pos))) {
+      _pos++;
+    } // loop
+    String tag = name(start + 1, _pos);
+    if (_depth == 0 && _root != NONE) {
+      if (_starts[_root] != NONE) { // a 2nd root, put all below one
+        int list = add(Identity.LIST, NONE);
+        _firsts[list] = _root;
+        _root = list;
+      } // if
+      push(_root, last(_root));
+    } // if
+    int node = add(tag, start);
+    if (_depth == 0) {
+      _root = node;
+    } else {
+      link(node);
+    } // if
+    push(node, NONE);
+    while (_pos < _end) {
+      byte b = _in.get(_pos);
+      if (b == '>') {
+        _pos++;
+        return;
+      } else if (b == '/') {
+        _pos++;
+        if (_pos < _end && _in.get(_pos) == '>') {
+          _pos++;
+          close(_pos); // empty element
+          return;
+        } // if
+      } else if (b == '<') {
+        return; // unclosed start tag, the next one begins
+      } else if (isSpace(b)) {
+        _pos++;
+      } else {
+        attribute();
+      } // if
+    } // loop
+  } // method
+
+  /**
+   * Skip an attribute, the same way XmlTokenizer reads it.
+   */
+  private void attribute() {
+    while (_pos < _end && !isNameEnd(_in.get(_pos)) && _in.get(_pos) != '=') {
+      _pos++;
+    } // loop
+    skipSpaces();
+    if (_pos < _end && _in.get(_pos) == '=') {
+      _pos++;
+      skipSpaces();
+      if (_pos < _end && (_in.get(_pos) == '"' || _in.get(_pos) == '\'')) {
+        byte quote = _in.get(_pos++);
+        while (_pos < _end && _in.get(_pos) != quote) {
+          _pos++;
+        } // loop
+        if (_pos < _end) {
+          _pos++; // closing quote
+        } // if
+      } else { // unquoted
+        while (_pos < _end && !isSpace(_in.get(_pos)) && _in.get(_pos) != '>') {
+          _pos++;
+        } // loop
+      } // if
+    } // if
+  } // method
+
+  private void endTag() {
+    int start = _pos;
+    _pos += 2;
+    while (_pos < _end && !isNameEnd(_in.get(_pos))) {
+      _pos++;
+    } // loop
+    String tag = name(start + 2, _pos);
+    _pos = skipPast(_pos, '>');
+    for (int level = _depth - 1; level >= 0; level--) {
+      if (_tags[_open[level]].equals(tag)) {
+        while (_depth > level + 1) { // close all inner ones left open, in front of this tag
+          close(start);
+        } // loop
+        close(_pos);
+        return;
+      } // if
+    } // loop
+    // not open at all, skipped
+  } // method
+
+  private int add(String tag, int start) {
+    if (_cnt == _tags.length) {
+      int size = _cnt * 2;
+      _tags = Arrays.copyOf(_tags, size);
+      _starts = Arrays.copyOf(_starts, size);
+      _ends = Arrays.copyOf(_ends, size);
+      _firsts = Arrays.copyOf(_firsts, size);
+      _nexts = Arrays.copyOf(_nexts, size);
+    } // if
+    int node = _cnt++;
+    _tags[node] = tag;
+    _starts[node] = start;
+    _ends[node] = _end;
+    _firsts[node] = NONE;
+    _nexts[node] = NONE;
+    return node;
+  } // method
+
+  private void link(int node) {
+    int last = _lasts[_depth - 1];
+    if (last == NONE) {
+      _firsts[_open[_depth - 1]] = node;
+    } else {
+      _nexts[last] = node;
+    } // if
+    _lasts[_depth - 1] = node;
+  } // method
+
+  private int last(int node) {
+    int last = _firsts[node];
+    while (last != NONE && _nexts[last] != NONE) {
+      last = _nexts[last];
+    } // loop
+    return last;
+  } // method
+
+  private void push(int node, int last) {
+    if (_depth == _open.length) {
+      _open = Arrays.copyOf(_open, _depth * 2);
+      _lasts = Arrays.copyOf(_lasts, _depth * 2);
+    } // if
+    _open[_depth] = node;
+    _lasts[_depth] = last;
+    _depth++;
+  } // method
+
+  private void close(int end) {
+    _depth--;
+    _ends[_open[_depth]] = end;
+  } // method
+
+  /**
+   * Load the attributes, the value, and the comments of a node from its range, while its children
+   * are added unloaded; the ranges of the children are cut out, each standing in as an empty tag.
+   */
+  void load(LazyPax pax, int node) {
+    if (_starts[node] == NONE) { // Identity.LIST of several roots
+      for (int child = _firsts[node]; child != NONE; child = _nexts[child]) {
+        pax.Child().add(new LazyPax(this, child));
+      } // loop
+      return;
+    } // if
+    int length = _ends[node] - _starts[node];
+    for (int child = _firsts[node]; child != NONE; child = _nexts[child]) {
+      length -= _ends[child] - _starts[child] - CHILD.length;
+    } // loop
+    byte[] bytes = new byte[length];
+    int from = _starts[node];
+    int at = 0;
+    for (int child = _firsts[node]; child != NONE; child = _nexts[child]) {
+      _in.get(from, bytes, at, _starts[child] - from);
+      at += _starts[child] - from;
+      System.arraycopy(CHILD, 0, bytes, at, CHILD.length);
+      at += CHILD.length;
+      from = _ends[child];
+    } // loop
+    _in.get(from, bytes, at, _ends[node] - from);
+    _loader.load(pax, _firsts[node], bytes);
+  } // method
+
+  private void skipDeclaration() {
+    int nesting = 0; // of an internal subset
+    _pos += 2;
+    while (_pos < _end) {
+      byte b = _in.get(_pos++);
+      if (b == '[') {
+        nesting++;
+      } else if (b == ']') {
+        nesting--;
+      } else if (b == '>' && nesting <= 0) {
+        return;
+      } // if
+    } // loop
+  } // method
+
+  private void skipSpaces() {
+    while (_pos < _end && isSpace(_in.get(_pos))) {
+      _pos++;
+    } // loop
+  } // method
+
+  private int skipPast(int from, char a) {
+    while (from < _end && _in.get(from) != a) {
+      from++;
+    } // loop
+    return Math.min(from + 1, _end);
+  } // method
+
+  private int skipPast(int from, char a, char b) {
+    while (from + 1 < _end && !(_in.get(from) == a && _in.get(from + 1) == b)) {
+      from++;
+    } // loop
+    return Math.min(from + 2, _end);
+  } // method
+
+  /**
+   * @return the position of the three bytes, or -1
+   */
+  private int find(int from, char a, char b, char c) {
+    for (int i = from; i + 2 < _end; i++) {
+      if (_in.get(i) == a && _in.get(i + 1) == b && _in.get(i + 2) == c) {
+        return i;
+      } // if
+    } // loop
+    return -1;
+  } // method
+
+  private boolean startsWith(int from, String prefix) {
+    if (from + prefix.length() > _end) {
+      return false;
+    } // if
+    for (int i = 0; i < prefix.length(); i++) {
+      if (_in.get(from + i) != prefix.charAt(i)) {
+        return false;
+      } // if
+    } // loop
+    return true;
+  } // method
+
+  /**
+   * @return the name of the bytes, taken from a cache as names repeat all over a document
+   */
+  private String name(int from, int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + _in.get(i);
+    } // loop
+    int slot = (hash ^ (hash >>> 16)) & (NAMES - 1);
+    byte[] bytes = _nameBytes[slot];
+    if (bytes != null && bytes.length == to - from) {
+      int i = 0;
+      while (i < bytes.length && bytes[i] == _in.get(from + i)) {
+        i++;
+      } // loop
+      if (i == bytes.length) {
+        return _names[slot];
+      } // if
+    } // if
+    bytes = new byte[to - from];
+    _in.get(from, bytes);
+    String name = new String(bytes, StandardCharsets.UTF_8);
+    _nameBytes[slot] = bytes;
+    _names[slot] = name;
+    return name;
+  } // method
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+  } // method
+
+  private static boolean isNameStart(int b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b == ':' || b < 0;
+  } // method
+
+  private static boolean isNameEnd(byte b) {
+    return isSpace(b) || b == '>' || b == '/' || b == '<';
+  } // method
+
+  /**
+   * Builder taking what XmlTokenizer reads of a single node into it; the children standing in are
+   * added as unloaded nodes, in the order of the index.
+   */
+  private static final class Loader implements IBuilder {
+
+    private final XmlIndex _index; // member
+
+    private final XmlTokenizer _tokenizer; // member, reused for its name cache
+
+    private LazyPax _pax; // member
+
+    private int _child; // member, next child to be added
+
+    private int _depth; // member
+
+    private Loader(XmlIndex index, boolean skipWhitespace) {
+      _index = index;
+      _tokenizer = new XmlTokenizer(this, skipWhitespace);
+    } // constructor
+
+    private void load(LazyPax pax, int first, byte[] bytes) {
+      _pax = pax;
+      _child = first;
+      _depth = 0;
+      try {
+        _tokenizer.parse(bytes, 0, bytes.length);
+      } finally {
+        _pax = null;
+      } // try
+    } // method
+
+    @Override
+    public void open(String tag) {
+      if (_depth == 1 && _child != NONE) {
+        _pax.Child().add(new LazyPax(_index, _child));
+        _child = _index._nexts[_child];
+      } // if
+      _depth++;
+    } // method
+
+    @Override
+    public void attrib(String name, String val) {
+      if (_depth == 1) {
+        _pax.Attrib().add(name, val);
+      } // if
+    } // method
+
+    @Override
+    public void text(String val) {
+      if (_depth == 1) {
+        _pax.Val(val);
+      } // if
+    } // method
+
+    @Override
+    public void comment(String val) {
+      if (_depth == 1) {
+        _pax.Child().add(Identity.COMMENT, val);
+      } // if
+    } // method
+
+    @Override
+    public void close() {
+      _depth--;
+    } // method
+
+    @Override
+    public void wrap(String tag) {
+      // a single node is loaded, having a single root
+    } // method
+
+    @Override
+    public IPax Root() {
+      return _pax;
+    } // method
+
+  } // class
+
+} // class
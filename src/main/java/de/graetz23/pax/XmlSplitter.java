@@ -0,0 +1,298 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file XmlSplitter.java
+ */
+
+package de.graetz23.pax;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a file of records, the children of its root, into chunks of whole records by a single
+ * pass counting the depth of the elements only; comments, CDATA, and quoted attribute values are
+ * skipped, so a &lt; in there does not count. Offsets are long, so files of any size are split,
+ * reading through a window. Serves Reader.parallel(..); the chunks are parsed on their own.
+ */
+final class XmlSplitter {
+
+  private static final int WINDOW = 1 << 20; // member
+
+  private static final Pattern ENCODING = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']"); // member
+
+  private final FileChannel _channel; // member
+
+  private final long _size; // member
+
+  private final long _target; // member, least bytes of a chunk
+
+  private final byte[] _window = new byte[WINDOW]; // member
+
+  private long _base = 0; // member, offset of the window
+
+  private int _filled = 0; // member, bytes in the window
+
+  private long[] _chunks = new long[64]; // member, offsets of the first record of each chunk
+
+  private int _cnt = 0; // member
+
+  private long _last = -1; // member, offset behind the last record
+
+  private boolean _isSplittable = false; // member
+
+  private String _encoding = "UTF-8"; // member
+
+  private XmlSplitter(FileChannel channel, long target) throws IOException {
+    _channel = channel;
+    _size = channel.size();
+    _target = target;
+  } // constructor
+
+  /**
+   * @param channel as the file, read from position 0 to its size
+   * @param target as the least bytes of a chunk; records are never split
+   * @return the chunks found
+   */
+  static XmlSplitter of(FileChannel channel, long target) throws IOException {
+    XmlSplitter splitter = new XmlSplitter(channel, target);
+    splitter.scan();
+    return splitter;
+  } // method
+
+  /**
+   * @return false if the chunks cannot be parsed on their own, e.g. for a DOCTYPE declaring
+   * entities, for UTF-16, or for no records at all; the file is parsed as a whole then
+   */
+  boolean isSplittable() {
+    return _isSplittable;
+  } // method
+
+  /**
+   * @return the number of chunks
+   */
+  int cnt() {
+    return _cnt;
+  } // method
+
+  /**
+   * @return the offset of the first byte of the chunk
+   */
+  long from(int chunk) {
+    return _chunks[chunk];
+  } // method
+
+  /**
+   * @return the offset behind the last byte of the chunk; the text and comments between records of
+   * two chunks belong to the first
+   */
+  long to(int chunk) {
+    return chunk + 1 < _cnt ? _chunks[chunk + 1] : _last;
+  } // method
+
+  /**
+   * @return the offset behind the last record
+   */
+  long last() {
+    return _last;
+  } // method
+
+  long size() {
+    return _size;
+  } // method
+
+  String encoding() {
+    return _encoding;
+  } // method
+
+  private void scan() throws IOException {
+    long pos = 0;
+    int depth = 0;
+    boolean isPlain = true; // neither a DOCTYPE nor anything but UTF-8 and alike
+    if (_size >= 2 && ((at(0) == (byte) 0xFE && at(1) == (byte) 0xFF) || (at(0) == (byte) 0xFF && at(1) == (byte) 0xFE))) {
+      return; // UTF-16
+    } // if
+    while (pos < _size && depth >= 0) {
+      pos = next(pos);
+      if (pos >= _size) {
+        break;
+      } // if
+      byte kind = pos + 1 < _size ? at(pos + 1) : 0;
+      if (kind == '/') {
+        depth--;
+        pos = find(pos + 2, '>', '\0', '\0') + 1;
+        if (depth == 1) {
+          _last = pos;
+        } // if
+      } else if (kind == '?') {
+        long stop = find(pos + 2, '?', '>', '\0');
+        if (pos <= 3) { // the XML declaration, maybe behind a byte order mark
+          isPlain &= plain(declaration(pos, stop));
+        } // if
+        pos = stop + 2;
+      } else if (kind == '!') {
+        if (startsWith(pos, "<!--")) {
+          pos = find(pos + 4, '-', '-', '>') + 3;
+        } else if (startsWith(pos, "<![CDATA[")) {
+          pos = find(pos + 9, ']', ']', '>') + 3;
+        } else {
+          isPlain = false; // a DOCTYPE, may be declaring entities
+          pos = skipDeclaration(pos + 2);
+        } // if
+      } else {
+        long start = pos;
+        depth++;
+        pos = tagEnd(pos + 1);
+        if (depth == 2) { // a record
+          if (_cnt == 0 || start - _chunks[_cnt - 1] >= _target) {
+            add(start);
+          } // if
+        } // if
+        if (at(pos - 2) == '/') { // empty element
+          depth--;
+          if (depth == 1) {
+            _last = pos;
+          } // if
+        } // if
+      } // if
+    } // loop
+    _isSplittable = isPlain && depth == 0 && _cnt > 0;
+  } // method
+
+  private void add(long offset) {
+    if (_cnt == _chunks.length) {
+      _chunks = Arrays.copyOf(_chunks, _cnt * 2);
+    } // if
+    _chunks[_cnt++] = offset;
+  } // method
+
+  private String declaration(long from, long to) throws IOException {
+    byte[] bytes = new byte[(int) Math.min(to - from, 256)];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = at(from + i);
+    } // loop
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  } // method
+
+  /**
+   * @return true if the encoding declared, if any, is read byte by byte as UTF-8 is
+   */
+  private boolean plain(String declaration) {
+    Matcher matcher = ENCODING.matcher(declaration);
+    if (matcher.find()) {
+      _encoding = matcher.group(1);
+      String encoding = _encoding.toUpperCase();
+      return !encoding.startsWith("UTF-16") && !encoding.startsWith("UTF-32") && !encoding.startsWith("UCS");
+    } // if
+    return true;
+  } // method
+
+  /**
+   * @return the offset behind the &gt; of a tag, skipping quoted attribute values
+   */
+  private long tagEnd(long pos) throws IOException {
+    byte quote = 0;
+    while (pos < _size) {
+      byte b = at(pos++);
+      if (quote != 0) {
+        if (b == quote) {
+          quote = 0;
+        } // if
+      } else if (b == '"' || b == '\'') {
+        quote = b;
+      } else if (b == '>') {
+        break;
+      } // if
+    } // loop
+    return pos;
+  } // method
+
+  private long skipDeclaration(long pos) throws IOException {
+    int nesting = 0; // of an internal subset
+    while (pos < _size) {
+      byte b = at(pos++);
+      if (b == '[') {
+        nesting++;
+      } else if (b == ']') {
+        nesting--;
+      } else if (b == '>' && nesting <= 0) {
+        break;
+      } // if
+    } // loop
+    return pos;
+  } // method
+
+  /**
+   * @return the offset of the next &lt; from the offset on, or the size; scans the window directly
+   */
+  private long next(long pos) throws IOException {
+    while (pos < _size) {
+      at(pos); // the window holds pos
+      int i = (int) (pos - _base);
+      byte[] window = _window;
+      int filled = _filled;
+      while (i < filled && window[i] != '<') {
+        i++;
+      } // loop
+      pos = _base + i;
+      if (i < filled) {
+        break;
+      } // if
+    } // loop
+    return pos;
+  } // method
+
+  /**
+   * @return the offset of the bytes, of 1 to 3 given, or the size if not found
+   */
+  private long find(long pos, char a, char b, char c) throws IOException {
+    int length = b == 0 ? 1 : c == 0 ? 2 : 3;
+    for (; pos + length <= _size; pos++) {
+      if (at(pos) == a && (length < 2 || at(pos + 1) == b) && (length < 3 || at(pos + 2) == c)) {
+        return pos;
+      } // if
+    } // loop
+    return _size;
+  } // method
+
+  private boolean startsWith(long pos, String prefix) throws IOException {
+    if (pos + prefix.length() > _size) {
+      return false;
+    } // if
+    for (int i = 0; i < prefix.length(); i++) {
+      if (at(pos + i) != prefix.charAt(i)) {
+        return false;
+      } // if
+    } // loop
+    return true;
+  } // method
+
+  /**
+   * @return the byte at the offset, reading the window anew if it does not hold it
+   */
+  private byte at(long pos) throws IOException {
+    long at = pos - _base;
+    if (at < 0 || at >= _filled) {
+      _base = pos;
+      _filled = 0;
+      ByteBuffer buffer = ByteBuffer.wrap(_window, 0, (int) Math.min(WINDOW, _size - pos));
+      while (buffer.hasRemaining() && _channel.read(buffer, pos + buffer.position()) >= 0) {
+        _filled = buffer.position();
+      } // loop
+      if (_filled == 0) {
+        throw new EOFException("file shrunk while being split");
+      } // if
+      at = 0;
+    } // if
+    return _window[(int) at];
+  } // method
+
+} // class
@@ -0,0 +1,439 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file XmlTokenizer.java
+ */
+
+package de.graetz23.pax;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tolerant XML tokenizer working on UTF-8 bytes directly, without any validation or entity
+ * machinery. It recovers instead of throwing: unmatched end tags are skipped, an end tag of an
+ * outer element closes all inner ones, elements open at the end of input are closed, a stray &amp;
+ * is kept as text, and several roots are put below one of Identity.LIST. Only the predefined and
+ * the numeric entities are resolved; DOCTYPEs and processing instructions are skipped.
+ */
+final class XmlTokenizer {
+
+  private static final int NAMES = 1024; // member, slots of the name cache
+
+  private final IBuilder _builder; // member
+
+  private final boolean _skipWhitespace; // member
+
+  private final byte[][] _nameBytes = new byte[NAMES][]; // member
+
+  private final String[] _names = new String[NAMES]; // member
+
+  private byte[] _in; // member
+
+  private int _pos; // member
+
+  private int _end; // member
+
+  private String[] _open = new String[16]; // member, tags of the open elements
+
+  private String[] _texts = new String[16]; // member, text of the open elements
+
+  private int _depth = 0; // member
+
+  private boolean _wasRootFound = false; // member
+
+  private boolean _wasWrapped = false; // member
+
+  XmlTokenizer(IBuilder builder, boolean skipWhitespace) {
+    _builder = builder;
+    _skipWhitespace = skipWhitespace;
+  } // constructor
+
+  /**
+   * @return null or the root of the tree built; may be called again, reusing the name cache
+   */
+  IPax parse(byte[] in, int offset, int length) {
+    _in = in;
+    _pos = offset;
+    _end = offset + length;
+    _depth = 0;
+    _wasRootFound = false;
+    _wasWrapped = false;
+    if (_end - _pos >= 3 && (in[_pos] & 0xFF) == 0xEF && (in[_pos + 1] & 0xFF) == 0xBB && (in[_pos + 2] & 0xFF) == 0xBF) {
+      _pos += 3; // byte order mark
+    } // if
+    while (_pos < _end) {
+      if (_in[_pos] == '<') {
+        markup();
+      } else {
+        text();
+      } // if
+    } // loop
+    while (_depth > 0) { // close all left open
+      close();
+    } // loop
+    return _builder.Root();
+  } // method
+
+  private void markup() {
+    int next = _pos + 1 < _end ? _in[_pos + 1] : -1;
+    if (next == '/') {
+      endTag();
+    } else if (next == '?') {
+      _pos = skipPast(_pos + 2, '?', '>');
+    } else if (next == '!') {
+      if (startsWith(_pos, "<!--")) {
+        int start = _pos + 4;
+        int stop = find(start, '-', '-', '>');
+        if (_depth > 0) {
+          _builder.comment(decode(start, stop < 0 ? _end : stop));
+        } // if
+        _pos = stop < 0 ? _end : stop + 3;
+      } else if (startsWith(_pos, "<![CDATA[")) {
+        int start = _pos + 9;
+        int stop = find(start, ']', ']', '>');
+        addText(decode(start, stop < 0 ? _end : stop));
+        _pos = stop < 0 ? _end : stop + 3;
+      } else {
+        skipDeclaration();
+      } // if
+    } else if (isNameStart(next)) {
+      startTag();
+    } else {
+      int start = _pos++; // a stray <, kept as text
+      addText(decode(start, _pos));
+    } // if
+  } // method
+
+  private void startTag() {
+    int start = ++_pos;
+    while (_pos < _end && !isNameEnd(_in[_pos])) {
+      _pos++;
+    } // loop
+    String tag = name(start, _pos);
+    if (_depth == 0 && _wasRootFound && !_wasWrapped) {
+      _builder.wrap(Identity.LIST); // a 2nd root, put all below one
+      _wasWrapped = true;
+      push(Identity.LIST);
+    } // if
+    _wasRootFound = true;
+    _builder.open(tag);
+    push(tag);
+    while (_pos < _end) {
+      byte b = _in[_pos];
+      if (b == '>') {
+        _pos++;
+        return;
+      } else if (b == '/') {
+        _pos++;
+        if (_pos < _end && _in[_pos] == '>') {
+          _pos++;
+          close(); // empty element
+          return;
+        } // if
+      } else if (b == '<') {
+        return; // unclosed start tag, the next one begins
+      } else if (isSpace(b)) {
+        _pos++;
+      } else {
+        attribute();
+      } // if
+    } // loop
+  } // method
+
+  private void attribute() {
+    int start = _pos;
+    while (_pos < _end && !isNameEnd(_in[_pos]) && _in[_pos] != '=') {
+      _pos++;
+    } // loop
+    String name = start < _pos ? name(start, _pos) : null;
+    skipSpaces();
+    String val = "";
+    if (_pos < _end && _in[_pos] == '=') {
+      _pos++;
+      skipSpaces();
+      if (_pos < _end && (_in[_pos] == '"' || _in[_pos] == '\'')) {
+        byte quote = _in[_pos++];
+        int from = _pos;
+        boolean plain = true; // neither to be resolved nor to be decoded
+        byte b;
+        while (_pos < _end && (b = _in[_pos]) != quote) {
+          plain &= b > '&' || (b >= ' ' && b != '&'); // a single test for most bytes
+          _pos++;
+        } // loop
+        val = plain ? ascii(from, _pos) : attribValue(from, _pos);
+        if (_pos < _end) {
+          _pos++; // closing quote
+        } // if
+      } else { // unquoted
+        int from = _pos;
+        while (_pos < _end && !isSpace(_in[_pos]) && _in[_pos] != '>') {
+          _pos++;
+        } // loop
+        val = attribValue(from, _pos);
+      } // if
+    } // if
+    if (name != null) {
+      _builder.attrib(name, val);
+    } // if
+  } // method
+
+  private void endTag() {
+    int start = _pos + 2;
+    _pos = start;
+    while (_pos < _end && !isNameEnd(_in[_pos])) {
+      _pos++;
+    } // loop
+    String tag = name(start, _pos);
+    _pos = skipPast(_pos, '>');
+    for (int level = _depth - 1; level >= 0; level--) {
+      if (_open[level].equals(tag)) {
+        while (_depth > level) { // close all inner ones left open
+          close();
+        } // loop
+        return;
+      } // if
+    } // loop
+    // not open at all, skipped
+  } // method
+
+  private void push(String tag) {
+    if (_depth == _open.length) {
+      _open = Arrays.copyOf(_open, _depth * 2);
+      _texts = Arrays.copyOf(_texts, _depth * 2);
+    } // if
+    _open[_depth] = tag;
+    _texts[_depth] = null;
+    _depth++;
+  } // method
+
+  private void close() {
+    _depth--;
+    String text = _texts[_depth];
+    _texts[_depth] = null;
+    if (text != null) {
+      _builder.text(text);
+    } // if
+    _builder.close();
+  } // method
+
+  private void text() {
+    int start = _pos;
+    boolean blank = true;
+    boolean plain = true; // neither to be resolved nor to be decoded
+    byte b;
+    while (_pos < _end && (b = _in[_pos]) != '<') {
+      if (b <= ' ') {
+        blank &= isSpace(b);
+      } else {
+        blank = false;
+        plain &= b != '&';
+      } // if
+      plain &= b >= 0;
+      _pos++;
+    } // loop
+    if (_depth > 0 && !(blank && _skipWhitespace)) { // whitespace-only runs are skipped early
+      addText(plain ? ascii(start, _pos) : decodeText(start, _pos));
+    } // if
+  } // method
+
+  private void addText(String text) {
+    if (_depth > 0) {
+      String before = _texts[_depth - 1];
+      _texts[_depth - 1] = before == null ? text : before + text; // mixed content is joined
+    } // if
+  } // method
+
+  private void skipDeclaration() {
+    int nesting = 0; // of an internal subset
+    _pos += 2;
+    while (_pos < _end) {
+      byte b = _in[_pos++];
+      if (b == '[') {
+        nesting++;
+      } else if (b == ']') {
+        nesting--;
+      } else if (b == '>' && nesting <= 0) {
+        return;
+      } // if
+    } // loop
+  } // method
+
+  private void skipSpaces() {
+    while (_pos < _end && isSpace(_in[_pos])) {
+      _pos++;
+    } // loop
+  } // method
+
+  private int skipPast(int from, char a) {
+    while (from < _end && _in[from] != a) {
+      from++;
+    } // loop
+    return Math.min(from + 1, _end);
+  } // method
+
+  private int skipPast(int from, char a, char b) {
+    while (from + 1 < _end && !(_in[from] == a && _in[from + 1] == b)) {
+      from++;
+    } // loop
+    return Math.min(from + 2, _end);
+  } // method
+
+  /**
+   * @return the position of the three bytes, or -1
+   */
+  private int find(int from, char a, char b, char c) {
+    for (int i = from; i + 2 < _end; i++) {
+      if (_in[i] == a && _in[i + 1] == b && _in[i + 2] == c) {
+        return i;
+      } // if
+    } // loop
+    return -1;
+  } // method
+
+  private boolean startsWith(int from, String prefix) {
+    if (from + prefix.length() > _end) {
+      return false;
+    } // if
+    for (int i = 0; i < prefix.length(); i++) {
+      if (_in[from + i] != prefix.charAt(i)) {
+        return false;
+      } // if
+    } // loop
+    return true;
+  } // method
+
+  /**
+   * @return the name of the bytes, taken from a cache as names repeat all over a document
+   */
+  private String name(int from, int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + _in[i];
+    } // loop
+    int slot = (hash ^ (hash >>> 16)) & (NAMES - 1);
+    byte[] bytes = _nameBytes[slot];
+    if (bytes != null && Arrays.equals(bytes, 0, bytes.length, _in, from, to)) {
+      return _names[slot];
+    } // if
+    String name = decode(from, to);
+    _nameBytes[slot] = Arrays.copyOfRange(_in, from, to);
+    _names[slot] = name;
+    return name;
+  } // method
+
+  /**
+   * @return the text of bytes known to be ASCII
+   */
+  private String ascii(int from, int to) {
+    return new String(_in, from, to - from, StandardCharsets.ISO_8859_1); // no decoding at all
+  } // method
+
+  /**
+   * @return the text of the bytes; plain ASCII is copied as it is
+   */
+  private String decode(int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (_in[i] < 0) {
+        return new String(_in, from, to - from, StandardCharsets.UTF_8);
+      } // if
+    } // loop
+    return new String(_in, from, to - from, StandardCharsets.ISO_8859_1); // no decoding at all
+  } // method
+
+  private String attribValue(int from, int to) {
+    for (int i = from; i < to; i++) {
+      byte b = _in[i];
+      if (b == '&' || b == '\t' || b == '\n' || b == '\r') {
+        return resolve(from, to, true);
+      } // if
+    } // loop
+    return decode(from, to);
+  } // method
+
+  private String decodeText(int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (_in[i] == '&') {
+        return resolve(from, to, false);
+      } // if
+    } // loop
+    return decode(from, to);
+  } // method
+
+  /**
+   * Resolve entities, and normalize white space of attribute values as any XML parser does; any &amp;
+   * not starting a known entity is kept.
+   */
+  private String resolve(int from, int to, boolean attrib) {
+    StringBuilder text = new StringBuilder(to - from);
+    int run = from;
+    for (int i = from; i < to; i++) {
+      byte b = _in[i];
+      if (attrib && (b == '\t' || b == '\n' || b == '\r')) {
+        text.append(decode(run, i)).append(' ');
+        run = i + 1;
+      } else if (b == '&') {
+        int semi = i + 1;
+        while (semi < to && semi - i <= 10 && _in[semi] != ';' && _in[semi] != '&' && !isSpace(_in[semi])) {
+          semi++;
+        } // loop
+        int cp = semi < to && _in[semi] == ';' ? entity(i + 1, semi) : -1;
+        if (cp >= 0) {
+          text.append(decode(run, i)).appendCodePoint(cp);
+          i = semi;
+          run = semi + 1;
+        } // if
+      } // if
+    } // loop
+    return text.append(decode(run, to)).toString();
+  } // method
+
+  /**
+   * @return the code point of the entity between &amp; and ;, or -1 if not known
+   */
+  private int entity(int from, int to) {
+    int length = to - from;
+    if (length >= 2 && _in[from] == '#') {
+      int cp = 0;
+      boolean hex = _in[from + 1] == 'x' || _in[from + 1] == 'X';
+      int i = hex ? from + 2 : from + 1;
+      if (i == to) {
+        return -1;
+      } // if
+      for (; i < to; i++) {
+        int digit = Character.digit(_in[i], hex ? 16 : 10);
+        if (digit < 0 || cp > Character.MAX_CODE_POINT) {
+          return -1;
+        } // if
+        cp = cp * (hex ? 16 : 10) + digit;
+      } // loop
+      return cp <= Character.MAX_CODE_POINT ? cp : -1;
+    } else if (startsWith(from, "amp;") && length == 3) {
+      return '&';
+    } else if (startsWith(from, "lt;") && length == 2) {
+      return '<';
+    } else if (startsWith(from, "gt;") && length == 2) {
+      return '>';
+    } else if (startsWith(from, "quot;") && length == 4) {
+      return '"';
+    } else if (startsWith(from, "apos;") && length == 4) {
+      return '\'';
+    } // if
+    return -1;
+  } // method
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+  } // method
+
+  private static boolean isNameStart(int b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b == ':' || b < 0;
+  } // method
+
+  private static boolean isNameEnd(byte b) {
+    return isSpace(b) || b == '>' || b == '/' || b == '<';
+  } // method
+
+} // class
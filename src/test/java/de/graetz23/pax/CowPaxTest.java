@@ -0,0 +1,96 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file CowPaxTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CowPaxTest {
+
+  private IPax template;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+    IPax library = Instances.Factory().produce("library");
+    library.Attrib().add("name", "City Library");
+    for (int b = 1; b <= 3; b++) {
+      IPax book = Instances.Factory().produce("book");
+      book.Attrib().add("id", "b" + b);
+      book.Child().add("title", "Title " + b);
+      IPax chapter = Instances.Factory().produce("chapter");
+      chapter.Child().add("page", "1");
+      book.Child().add(chapter);
+      library.Child().add(book);
+    }
+    template = CowPax.of(library);
+  }
+
+  @Test
+  void testCopyKeepsContent() {
+    IPax copy = Instances.Factory().copy(template);
+    assertTrue(copy instanceof CowPax);
+    assertNotSame(template, copy);
+    assertEquals(template.XML(), copy.XML());
+    assertEquals(template.JSON(), copy.JSON());
+    assertEquals("/library/book/title", copy.Child().get("book", 2).Child().get("title").Path());
+    assertSame(copy, copy.Child().get(0).Parent());
+  }
+
+  @Test
+  void testChangesStayInTheirCopy() {
+    String xml = template.XML();
+    IPax copy = Instances.Factory().copy(template);
+    copy.Child().get("book", 1).Child().get("title").Val("Changed");
+    copy.Child().get("book", 2).Attrib().get("id").Val("b9");
+    copy.Attrib().set("name", "Town Library");
+    copy.Child().get("book").Child().get("chapter").Child().add("page", "2");
+    copy.Child().del("book");
+
+    assertEquals(xml, template.XML());
+    assertEquals(2, copy.Child().cnt());
+    assertEquals("Changed", copy.Child().get(0).Child().get("title").Val());
+    assertEquals("b9", copy.Child().get(1).Attrib().get("id").Val());
+    assertEquals("Town Library", copy.Attrib().get("name").Val());
+    assertEquals(3, template.Child().cnt("book"));
+  }
+
+  @Test
+  void testCopyOfChangedCopy() {
+    IPax first = Instances.Factory().copy(template);
+    first.Child().get("book", 1).Child().get("title").Val("First");
+    IPax second = Instances.Factory().copy(first);
+    assertEquals(first.XML(), second.XML());
+
+    first.Child().get("book", 1).Child().get("title").Val("Again");
+    assertEquals("First", second.Child().get("book", 1).Child().get("title").Val());
+    IPax third = Instances.Factory().copy(first);
+    assertEquals("Again", third.Child().get("book", 1).Child().get("title").Val());
+
+    IPax plain = Instances.Factory().produce("plain");
+    first.Child().add(plain);
+    assertEquals("plain", Instances.Factory().copy(first).Child().get(3).Tag());
+    plain.Attrib().add("late", "yes"); // changed below a plain node
+    assertEquals("yes", Instances.Factory().copy(first).Child().get(3).Attrib().get("late").Val());
+  }
+
+  @Test
+  void testSubtreeCopyAndPlainCopy() {
+    IPax copy = Instances.Factory().copy(template);
+    IPax book = Instances.Factory().copy(copy.Child().get("book", 2));
+    assertFalse(book.hasParent());
+    assertEquals("Title 3", book.Child().get("title").Val());
+
+    IPax deep = new Pax(template);
+    assertFalse(deep instanceof CowPax);
+    assertEquals(template.XML(), deep.XML());
+  }
+}
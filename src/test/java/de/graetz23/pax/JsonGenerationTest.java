@@ -396,4 +396,49 @@ class JsonGenerationTest {
     assertNotNull(paragraph);
     assertEquals("This is the introduction paragraph.", paragraph.Val());
   }
+
+  @Test
+  void testJsonScalarClassification() {
+    for (String number : new String[] {"0", "42", "-7", "19.99", "-0.5", "1e10", "1.5E-3", "2e+8"}) {
+      assertEquals(JsonGenerator.NUMBER, JsonGenerator.classify(number), number);
+    }
+    for (String text : new String[] {"abc", "007", "+1", "1.", ".5", "1e", "-", "NaN", "Infinity", "1d", " 1", "0x10", "True"}) {
+      assertEquals(JsonGenerator.STRING, JsonGenerator.classify(text), text);
+    }
+    assertEquals(JsonGenerator.LITERAL, JsonGenerator.classify("true"));
+    assertEquals(JsonGenerator.LITERAL, JsonGenerator.classify("false"));
+    assertEquals(JsonGenerator.NULL, JsonGenerator.classify(null));
+
+    IPax root = Instances.Factory().produce("data");
+    root.Attrib().add("zip", "007");
+    root.Attrib().add("count", "42");
+    String json = root.JSON();
+    assertTrue(json.contains("{\"name\": \"zip\", \"value\": \"007\"}"));
+    assertTrue(json.contains("{\"name\": \"count\", \"value\": 42}"));
+  }
+
+  @Test
+  void testJsonEscaping() {
+    IPax root = Instances.Factory().produce("text", "say \"hi\"\\\n\tbye\u0001");
+    assertEquals("{\"__tag__\": \"text\", \"__value__\": \"say \\\"hi\\\"\\\\\\n\\tbye\\u0001\"}", root.JSON());
+    IPax parsed = JsonReader.Instance.parseJson(root.JSON());
+    assertEquals(root.Val(), parsed.Val());
+  }
+
+  @Test
+  void testJsonCachedClassification() {
+    IPax root = Instances.Factory().produce("data");
+    IPax count = Instances.Factory().produce("count", "42");
+    root.Child().add(count);
+    root.Attrib().add("flag", "true");
+    assertEquals(root.JSON(), JsonGenerator.generate(root, true));
+    assertEquals(root.JSON(), JsonGenerator.generate(root, true));
+
+    count.Val("forty two"); // classified anew
+    root.Attrib().get("flag").Val("yes");
+    String json = JsonGenerator.generate(root, true);
+    assertEquals(root.JSON(), json);
+    assertTrue(json.contains("\"forty two\""));
+    assertTrue(json.contains("\"value\": \"yes\""));
+  }
 }
@@ -215,4 +215,131 @@ class JsonReaderTest {
       assertNotNull(item.Attrib().get("index"));
     }
   }
+
+  @Test
+  void testParseDeeplyNested() {
+    int depth = 100000;
+    String json = "[".repeat(depth) + "{\"__tag__\": \"leaf\", \"__value__\": \"deep\"}" + "]".repeat(depth);
+    IPax result = JsonReader.Instance.parseJson(json);
+
+    assertEquals("array", result.Tag());
+    IPax node = result;
+    int levels = 0;
+    while (node.hasChild()) {
+      node = node.Child().all().get(0);
+      levels++;
+    }
+    assertEquals(depth, levels);
+    assertEquals("deep", node.Val());
+  }
+
+  @Test
+  void testReadLargeInputInChunks() {
+    int records = 20000;
+    java.io.Reader reader = new java.io.Reader() { // produces the JSON piece by piece, never as a whole
+      private int record = -1;
+      private String piece = "{\"__tag__\": \"export\", \"__children__\": [";
+      private int pos = 0;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        if (pos == piece.length()) {
+          if (record++ == records) {
+            return -1;
+          }
+          piece = record < records ? (record > 0 ? ", " : "") + "{\"__tag__\": \"record\", \"__value__\": \"" + record + "\"}" : "]}";
+          pos = 0;
+        }
+        int cnt = Math.min(length, piece.length() - pos);
+        piece.getChars(pos, pos + cnt, buffer, offset);
+        pos += cnt;
+        return cnt;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    IPax result = JsonReader.Instance.read(reader);
+
+    assertEquals("export", result.Tag());
+    assertEquals(records, result.Child().cnt());
+    assertEquals("12345", result.Child().all().get(12345).Val());
+  }
+
+  @Test
+  void testParseMalformed() {
+    assertThrows(RuntimeException.class, () -> JsonReader.Instance.parseJson("{\"a\": [1, 2,]}"));
+    assertThrows(RuntimeException.class, () -> JsonReader.Instance.parseJson("{\"a\": \"open"));
+    assertThrows(RuntimeException.class, () -> JsonReader.Instance.parseJson("{\"a\" 1}"));
+    assertThrows(RuntimeException.class, () -> JsonReader.Instance.parseJson("{\"__attributes__\": [:]}"));
+    assertNull(JsonReader.Instance.parseJson("  \n "));
+  }
+
+  @Test
+  void testGroupScatteredKeys() {
+    IPax result = JsonReader.Instance.parseJson("{\"a\": 1, \"b\": {\"c\": true}, \"a\": 3, \"d\": null}");
+
+    assertEquals(4, result.Child().cnt());
+    assertEquals("a", result.Child().get(0).Tag());
+    assertEquals("3", result.Child().get(1).Val());
+    assertEquals("a", result.Child().get(1).Tag());
+    assertEquals("true", result.Child().get(2).Child().get("c").Val());
+    assertFalse(result.Child().get(3).hasVal());
+  }
+
+  @Test
+  void testParseGeneratedJson() {
+    IPax root = Instances.Factory().produce("record");
+    root.Attrib().add("id", "7");
+    root.Val("text");
+    root.Child().add("x", "1");
+    root.Child().add("y", "2");
+    root.Child().add("x", "3");
+    IPax result = JsonReader.Instance.parseJson(root.JSON());
+
+    assertEquals("record", result.Tag());
+    assertEquals("text", result.Val());
+    assertEquals("7", result.Attrib().get("id").Val());
+    assertEquals(1, result.Attrib().cnt());
+    assertEquals(2, result.Child().cnt("x"));
+    assertEquals("3", result.Child().get("x", 1).Val());
+    assertFalse(result.Child().get("x", 1).hasAttrib()); // no index of the array written
+    assertEquals("y", result.Child().get(2).Tag()); // grouped by tag, as written
+  }
+
+  @Test
+  void testParseUtf8Bytes() {
+    String json = "\uFEFF{\"__tag__\": \"gr\u00fc\u00dfe\", \"__value__\": \"\u20ac \\u00e4\\uD83D\\uDE00 \uD83D\uDE00\",\u3000"
+        + "\"__attributes__\": [{\"name\": \"k\\u00f6\", \"value\": \"\\\"q\\\"\"}], \"stra\u00dfe\": 1e3}";
+    byte[] bytes = json.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    IPax result = JsonReader.Instance.parseJson(bytes);
+
+    assertEquals("gr\u00fc\u00dfe", result.Tag());
+    assertEquals("\u20ac \u00e4\uD83D\uDE00 \uD83D\uDE00", result.Val());
+    assertEquals("\"q\"", result.Attrib().get("k\u00f6").Val());
+    assertEquals("1e3", result.Child().get("stra\u00dfe").Val());
+    assertEquals(result.XML(), JsonReader.Instance.stream(new ByteArrayInputStream(bytes)).XML());
+    assertEquals(result.XML(), JsonReader.Instance.read(new java.io.StringReader(json)).XML());
+    assertThrows(RuntimeException.class, () -> JsonReader.Instance.parseJson("{\"a\": \u00e4}".getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testParseByteBuffer() {
+    StringBuilder json = new StringBuilder("{\"__tag__\": \"export\", \"__children__\": [");
+    for (int i = 0; i < 5000; i++) { // larger than the window, so strings are split across reads
+      json.append(i > 0 ? ", " : "").append("{\"__tag__\": \"record\", \"__value__\": \"\u00e4 ").append(i).append("\"}");
+    }
+    byte[] bytes = ("  " + json.append("]}") + "  ").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    java.nio.ByteBuffer heap = java.nio.ByteBuffer.wrap(bytes, 2, bytes.length - 4).slice();
+    java.nio.ByteBuffer direct = java.nio.ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    for (java.nio.ByteBuffer buffer : new java.nio.ByteBuffer[] {heap, direct, heap.asReadOnlyBuffer()}) {
+      IPax result = JsonReader.Instance.parseJson(buffer);
+
+      assertEquals("export", result.Tag());
+      assertEquals(5000, result.Child().cnt());
+      assertEquals("\u00e4 4321", result.Child().all().get(4321).Val());
+      assertEquals(0, buffer.position()); // left as it is
+    }
+  }
 }
@@ -0,0 +1,90 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxBatchTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaxBatchTest {
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Instances.resetFactory();
+    Files.createDirectories(tempDir.resolve("sub"));
+    for (int i = 0; i < 50; i++) {
+      Files.writeString(tempDir.resolve("item" + i + ".xml"), "<item id=\"" + i + "\"><name>Item " + i + "</name></item>");
+    }
+    IPax json = Instances.Factory().produce("order");
+    json.Attrib().add("id", "7");
+    json.Child().add("line", "one");
+    Files.writeString(tempDir.resolve("sub/order.json"), json.JSON());
+    Files.writeString(tempDir.resolve("sub/broken.xml"), "<item><name>open</item>");
+    Files.writeString(tempDir.resolve("sub/broken.json"), "{\"__tag__\": ");
+    Files.writeString(tempDir.resolve("sub/empty.xml"), "");
+    Files.writeString(tempDir.resolve("notes.txt"), "not parsed");
+  }
+
+  @Test
+  void testParseDirectory() throws Exception {
+    PaxBatch batch = PaxBatch.of(tempDir).concurrency(4);
+    assertEquals(54, batch.cnt());
+
+    Map<String, PaxBatch.Result> results = new HashMap<>();
+    PaxBatch.Stats stats = batch.parse(result -> results.put(result.Path().getFileName().toString(), result));
+    assertEquals(54, results.size());
+    assertEquals(54, stats.Files());
+    assertEquals(3, stats.Failed());
+    assertTrue(stats.Bytes() > 0);
+    assertTrue(stats.filesPerSecond() > 0);
+    assertTrue(stats.toString().contains("54 files (3 failed)"));
+
+    assertTrue(results.get("item7.xml").isParsed());
+    assertEquals("Item 7", results.get("item7.xml").Root().Child().get("name").Val());
+    assertEquals("one", results.get("order.json").Root().Child().get("line").Val());
+    assertEquals("7", results.get("order.json").Root().Attrib().get("id").Val());
+
+    for (String name : new String[] {"broken.xml", "broken.json", "empty.xml"}) {
+      PaxBatch.Result failed = results.get(name);
+      assertFalse(failed.isParsed(), name);
+      assertNull(failed.Root(), name);
+      assertNotNull(failed.Error(), name);
+    }
+  }
+
+  @Test
+  void testParseGivenPathsByAnyReader() {
+    Path missing = tempDir.resolve("missing.xml");
+    List<PaxBatch.Result> results = PaxBatch.of(List.of(tempDir.resolve("sub/broken.xml"), missing))
+        .reader(Reader.builder().engine(Reader.Engine.TOLERANT).build())
+        .concurrency(1)
+        .parse();
+    assertEquals(2, results.size());
+    for (PaxBatch.Result result : results) {
+      if (result.Path().equals(missing)) {
+        assertTrue(result.Error() instanceof java.nio.file.NoSuchFileException);
+        assertEquals(0, result.Bytes());
+      } else {
+        assertTrue(result.isParsed()); // recovered
+        assertEquals("open", result.Root().Child().get("name").Val());
+      }
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxDocumentTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaxDocumentTest {
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+  }
+
+  @Test
+  void testBuildDocument() {
+    PaxDocument doc = new PaxDocument();
+    IPax root = doc.Root("library");
+    root.Attrib().add("name", "City Library");
+    root.Child().add("book", "Effective Java");
+    root.Child().add("book", "Clean Code");
+
+    assertEquals("library", doc.Root().Tag());
+    assertEquals(2, root.Child().cnt());
+    assertEquals("Effective Java", root.Child().get("book").Val());
+    assertEquals("Clean Code", root.Child().get(1).Val());
+    assertEquals("City Library", root.Attrib().get("name").Val());
+    assertEquals("/library/book", root.Child().get(1).Path());
+    assertEquals(root, root.Child().get(0).Parent());
+  }
+
+  @Test
+  void testGeneratesSameXmlAndJsonAsPax() {
+    IPax book = Instances.Factory().produce("book");
+    book.Attrib().add("id", "1");
+    book.Child().add("title", "Effective Java");
+    IPax chapter = Instances.Factory().produce("chapter");
+    chapter.Child().add("page", "1");
+    chapter.Child().add("page", "2");
+    book.Child().add(chapter);
+
+    PaxDocument doc = PaxDocument.of(book);
+
+    assertEquals(book.XML(), doc.XML());
+    assertEquals(book.XML_lined(), doc.Root().XML_lined());
+    assertEquals(book.JSON(), doc.JSON());
+  }
+
+  @Test
+  void testReaderBuildsDocument() {
+    String xml = "<library><!-- shelf --><book id=\"1\"><title>Java</title></book><book id=\"2\"/></library>";
+    PaxDocument doc = Reader.Instance.document(new ByteArrayInputStream(xml.getBytes()));
+    IPax tree = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
+
+    assertNotNull(doc);
+    IPax root = doc.Root();
+    assertEquals(3, root.Child().cnt());
+    assertEquals(Identity.COMMENT, root.Child().get(0).Tag());
+    assertEquals("2", root.Child().get(2).Attrib().get("id").Val());
+    assertEquals(tree.XML(), doc.XML());
+  }
+
+  @Test
+  void testDeleteAndMove() {
+    PaxDocument doc = new PaxDocument();
+    IPax root = doc.Root("root");
+    root.Child().add("a");
+    root.Child().add("b");
+    root.Child().add("c");
+
+    IPax b = root.Child().get("b");
+    assertTrue(root.Child().del(b));
+    assertFalse(b.hasParent());
+    assertEquals(2, root.Child().cnt());
+    assertEquals("c", root.Child().get(1).Tag());
+
+    IPax a = root.Child().get("a");
+    a.Child().add(root.Child().get("c"));
+    assertEquals(1, root.Child().cnt());
+    assertEquals("/root/a/c", a.Child().First().Path());
+
+    assertTrue(root.Child().del("a"));
+    assertFalse(root.hasChild());
+  }
+
+  @Test
+  void testValueRules() {
+    PaxDocument doc = new PaxDocument();
+    IPax root = doc.Root("root");
+    root.Val("   ");
+    assertFalse(root.hasVal());
+    root.Val("content");
+    assertEquals("content", root.Val());
+    root.Attrib().set("id", "1");
+    root.Attrib().set("id", "2");
+    assertEquals(1, root.Attrib().cnt());
+    assertEquals("2", root.Attrib().get("id").Val());
+    assertTrue(root.Attrib().del("id"));
+    assertFalse(root.hasAttrib());
+  }
+
+  @Test
+  void testOverwriteReusesTextRows() {
+    PaxDocument doc = new PaxDocument();
+    IPax root = doc.Root("root");
+    root.Attrib().set("id", "0");
+    int texts = doc.texts();
+    for (int i = 1; i < 1000; i++) {
+      root.Attrib().set("id", String.valueOf(i));
+    }
+    assertEquals(texts, doc.texts());
+    assertEquals("999", root.Attrib().get("id").Val());
+
+    root.Attrib().set("id", null); // the row is freed ..
+    assertFalse(root.Attrib().get("id").hasVal());
+    root.Attrib().add("name", "pax"); // .. and taken by the next value
+    root.Val("content");
+    assertEquals(texts + 1, doc.texts());
+    assertEquals("pax", root.Attrib().get("name").Val());
+    assertEquals("content", root.Val());
+  }
+
+  @Test
+  void testSearch() {
+    PaxDocument doc = new PaxDocument();
+    IPax root = doc.Root("root");
+    root.Child().add("child1");
+    root.Child().get("child1").Child().add("child4", "found");
+
+    assertEquals("found", root.Child().search("/root/child1/child4").Val());
+    assertEquals("found", root.Child().search("./child1/child4").Val());
+    assertNull(root.Child().search("/root/child1/child5"));
+  }
+
+  @Test
+  void testFreeze() {
+    IPax library = Instances.Factory().produce("library");
+    library.Attrib().add("name", "City Library");
+    for (int b = 1; b <= 3; b++) {
+      IPax book = Instances.Factory().produce("book");
+      book.Attrib().add("id", "b" + b);
+      book.Child().add("title", "Title " + b);
+      book.Child().add("state", "available");
+      library.Child().add(book);
+    }
+
+    PaxDocument frozen = PaxDocument.frozen(library);
+    assertTrue(frozen.isFrozen());
+    assertSame(frozen, frozen.freeze());
+    assertEquals(library.XML(), frozen.XML());
+    assertEquals(library.JSON(), frozen.JSON());
+
+    IPax root = frozen.Root();
+    assertEquals(3, root.Child().cnt());
+    IPax book = root.Child().get(2);
+    assertEquals("b3", book.Attrib().get("id").Val());
+    assertEquals("/library/book/title", book.Child().get(0).Path());
+    assertEquals(root, book.Parent());
+    assertNull(root.Child().get(3));
+    assertEquals("Title 2", root.Child().select("//book[@id='b2']/title").Val());
+
+    assertThrows(UnsupportedOperationException.class, () -> root.Tag("shelf"));
+    assertThrows(UnsupportedOperationException.class, () -> root.Val("x"));
+    assertThrows(UnsupportedOperationException.class, () -> root.Child().add("book"));
+    assertThrows(UnsupportedOperationException.class, () -> root.Child().del());
+    assertThrows(UnsupportedOperationException.class, () -> root.Child().set("book", "x"));
+    assertThrows(UnsupportedOperationException.class, () -> book.Attrib().del("id"));
+    assertThrows(UnsupportedOperationException.class, () -> book.Attrib().get("id").Val("b9"));
+    assertThrows(UnsupportedOperationException.class, () -> book.Parent(null));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.Root("shelf"));
+    assertEquals(library.XML(), frozen.XML());
+
+    PaxDocument doc = PaxDocument.of(library);
+    PaxDocument snapshot = doc.freeze();
+    doc.Root().Child().del();
+    assertEquals(3, snapshot.Root().Child().cnt());
+  }
+}
+
@@ -0,0 +1,141 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxIndexTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaxIndexTest {
+
+  private IPax library;
+
+  private PaxIndex index;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+    library = Instances.Factory().produce("library");
+    for (int b = 1; b <= 3; b++) {
+      IPax book = Instances.Factory().produce("book");
+      book.Attrib().add("id", "b" + b);
+      book.Child().add("title", "Title " + b);
+      library.Child().add(book);
+    }
+    index = new PaxIndex(true, "id", "ref").attach(library);
+  }
+
+  @Test
+  void testFindAfterAttach() {
+    assertSame(library, index.Root());
+    assertEquals("Title 2", index.find("b2").Child().get("title").Val());
+    assertSame(index.find("b3"), index.find("id", "b3"));
+    assertNull(index.find("b9"));
+    assertNull(index.find("name", "b1"));
+    assertEquals(3, index.tagged("book").size());
+    assertEquals(3, index.tagged("title").size());
+    assertEquals(1, index.tagged("library").size());
+  }
+
+  @Test
+  void testFollowsAddSetAndDel() {
+    IPax book = Instances.Factory().produce("book");
+    book.Attrib().add("id", "b4");
+    IPax chapter = Instances.Factory().produce("chapter");
+    chapter.Attrib().add("id", "c1");
+    book.Child().add(chapter);
+    library.Child().add(book);
+    assertSame(book, index.find("b4"));
+    assertSame(chapter, index.find("c1"));
+
+    chapter.Attrib().add("ref", "b1");
+    assertSame(chapter, index.find("ref", "b1"));
+
+    assertTrue(library.Child().del(book));
+    assertNull(index.find("b4"));
+    assertNull(index.find("c1"));
+    assertNull(index.find("ref", "b1"));
+    assertEquals(3, index.tagged("book").size());
+
+    IPax other = Instances.Factory().produce("book");
+    other.Attrib().add("id", "x1");
+    library.Child().set(other); // replaces the first book
+    assertNull(index.find("b1"));
+    assertSame(other, index.find("x1"));
+
+    library.Child().del();
+    assertNull(index.find("x1"));
+    assertTrue(index.tagged("book").isEmpty());
+  }
+
+  @Test
+  void testFollowsValueAndTagChanges() {
+    IPax book = index.find("b1");
+    book.Attrib().get("id").Val("first");
+    assertNull(index.find("b1"));
+    assertSame(book, index.find("first"));
+
+    book.Attrib().set("id", "again");
+    assertSame(book, index.find("again"));
+
+    book.Attrib().get("id").Tag("ref");
+    assertNull(index.find("again"));
+    assertSame(book, index.find("ref", "again"));
+
+    book.Tag("novel");
+    assertEquals(2, index.tagged("book").size());
+    assertSame(book, index.tagged("novel").get(0));
+
+    assertTrue(book.Attrib().del("ref"));
+    assertNull(index.find("ref", "again"));
+  }
+
+  @Test
+  void testDuplicateValues() {
+    IPax twin = Instances.Factory().produce("book");
+    twin.Attrib().add("id", "b2");
+    library.Child().add(twin);
+    assertEquals(2, index.all("id", "b2").size());
+    assertSame(library.Child().get("book", 1), index.find("b2"));
+
+    library.Child().del(library.Child().get("book", 1));
+    assertEquals(1, index.all("id", "b2").size());
+    assertSame(twin, index.find("b2"));
+  }
+
+  @Test
+  void testDetach() {
+    IPax book = index.find("b1");
+    index.detach();
+    assertFalse(index.hasRoot());
+    assertNull(index.find("b1"));
+    book.Attrib().add("ref", "b2");
+    assertNull(index.find("ref", "b2"));
+  }
+
+  @Test
+  void testBuiltWhileReading() {
+    String xml = "<library><book id=\"b1\"><title>Java</title></book><book id=\"b2\"/></library>";
+    PaxIndex xmlIndex = new PaxIndex("id");
+    IPax root = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()), xmlIndex);
+    assertSame(root, xmlIndex.Root());
+    assertEquals("Java", xmlIndex.find("b1").Child().get("title").Val());
+    assertSame(root.Child().get(1), xmlIndex.find("b2"));
+
+    PaxIndex jsonIndex = new PaxIndex("id");
+    IPax tree = JsonReader.Instance.parseJson(library.JSON(), jsonIndex);
+    assertNotNull(tree);
+    assertSame(tree, jsonIndex.Root());
+    assertNotNull(jsonIndex.find("b3"));
+    assertSame(jsonIndex.find("b3"), tree.Child().select("//book[@id='b3']"));
+  }
+}
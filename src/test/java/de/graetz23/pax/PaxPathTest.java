@@ -0,0 +1,200 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxPathTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaxPathTest {
+
+  private IPax library;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+    library = Instances.Factory().produce("library");
+    for (int b = 1; b <= 3; b++) {
+      IPax book = Instances.Factory().produce("book");
+      book.Attrib().add("id", "b" + b);
+      book.Child().add("title", "Title " + b);
+      IPax chapter = Instances.Factory().produce("chapter");
+      chapter.Child().add("title", "Chapter of " + b);
+      book.Child().add(chapter);
+      library.Child().add(book);
+    }
+    library.Child().add("magazine", "Monthly");
+  }
+
+  @Test
+  void testAbsolutePath() {
+    IPax title = library.Child().select("/library/book/title");
+    assertNotNull(title);
+    assertEquals("Title 1", title.Val());
+    assertSame(library, library.Child().select("/library"));
+    assertNull(library.Child().select("/library/missing"));
+    assertNull(library.Child().select("/other/book"));
+  }
+
+  @Test
+  void testRelativePath() {
+    IPax book = library.Child().get("book", 1);
+    assertEquals("Title 2", book.Child().select("./title").Val());
+    assertEquals("Title 2", book.Child().select("title").Val());
+    assertEquals("Chapter of 2", book.Child().select("chapter/title").Val());
+    assertSame(library, book.Child().select(".."));
+    assertSame(book, book.Child().select("."));
+  }
+
+  @Test
+  void testPositionalPredicate() {
+    assertEquals("Title 3", library.Child().select("/library/book[3]/title").Val());
+    assertEquals("b2", library.Child().select("./book[2]").Attrib().get("id").Val());
+    assertNull(library.Child().select("/library/book[4]"));
+  }
+
+  @Test
+  void testAttributePredicate() {
+    assertEquals("Title 2", library.Child().select("//book[@id='b2']/title").Val());
+    assertEquals("Title 3", library.Child().select("/library/book[@id=\"b3\"]/title").Val());
+    assertNull(library.Child().select("//book[@id='b9']"));
+    assertEquals(3, PaxPath.compile("/library/book[@id]").all(library).size());
+  }
+
+  @Test
+  void testWildcardAndDescendant() {
+    List<IPax> titles = PaxPath.compile("//title").all(library);
+    assertEquals(6, titles.size());
+    assertEquals("Title 1", titles.get(0).Val());
+    assertEquals("Chapter of 1", titles.get(1).Val());
+
+    assertEquals(4, PaxPath.compile("/library/*").all(library).size());
+    assertEquals(3, PaxPath.compile("/library/*/chapter/title").all(library).size());
+    assertEquals(3, PaxPath.compile("/library//chapter//title").all(library).size());
+    assertEquals("Monthly", PaxPath.compile("/*/magazine").first(library).Val());
+  }
+
+  @Test
+  void testDescendantWithPosition() {
+    List<IPax> firsts = PaxPath.compile("//title[1]").all(library);
+    assertEquals(6, firsts.size());
+    List<IPax> second = PaxPath.compile("/library//book[2]/title").all(library);
+    assertEquals(1, second.size());
+    assertEquals("Title 2", second.get(0).Val());
+  }
+
+  @Test
+  void testDescendantWithPositionInTreeOrder() {
+    IPax lib = Instances.Factory().produce("lib");
+    IPax s = Instances.Factory().produce("s");
+    lib.Child().add(s);
+    for (int id = 1; id <= 4; id++) {
+      IPax book = Instances.Factory().produce("book");
+      book.Attrib().add("id", String.valueOf(id));
+      (id <= 2 ? s : lib).Child().add(book);
+    }
+    for (IPax root : new IPax[] {lib, PaxDocument.of(lib).Root()}) {
+      assertEquals("2", PaxPath.compile("//book[2]").first(root).Attrib().get("id").Val());
+      List<IPax> seconds = PaxPath.compile("//book[2]").all(root);
+      assertEquals(2, seconds.size());
+      assertEquals("2", seconds.get(0).Attrib().get("id").Val());
+      assertEquals("4", seconds.get(1).Attrib().get("id").Val());
+      List<IPax> firsts = PaxPath.compile("/lib//book[1]").all(root);
+      assertEquals("1", firsts.get(0).Attrib().get("id").Val());
+      assertEquals("3", firsts.get(1).Attrib().get("id").Val());
+    }
+  }
+
+  @Test
+  void testLegacyPathsStillWork() {
+    IPax child4 = Instances.Factory().produce("child4");
+    IPax root = Instances.Factory().produce("root");
+    root.Child().add("child1");
+    root.Child().get("child1").Child().add(child4);
+
+    assertSame(child4, root.Child().search("/root/child1/child4/"));
+    assertSame(child4, root.Child().search("./child1/child4/"));
+    assertSame(root, child4.Child().search("/root"));
+    assertSame(root.Child().get("child1"), child4.Child().search("///root///////child1////"));
+    assertNull(root.Child().search("/root/child1/child5/"));
+    assertNull(root.Child().search(null));
+  }
+
+  @Test
+  void testSearchKeepsLegacyWalk() {
+    IPax lib = Instances.Factory().produce("lib");
+    IPax s = Instances.Factory().produce("s");
+    IPax book = Instances.Factory().produce("book");
+    s.Child().add(book);
+    lib.Child().add(s);
+
+    assertSame(book, lib.Child().search("/s/book")); // the root's tag may be left out
+    assertSame(book, lib.Child().search("/lib/s/book"));
+    assertSame(book, lib.Child().search("./s/book"));
+    assertSame(book, book.Child().search("//s//book//"));
+    assertNull(lib.Child().search("book")); // relative paths need ./
+    assertNull(lib.Child().search("s/book"));
+    assertNull(lib.Child().search("a[")); // no expression, so nothing thrown
+    assertNull(lib.Child().search("/s/missing"));
+
+    assertSame(book, lib.Child().select("s/book")); // path queries are selected instead
+    assertNull(lib.Child().select("/s/book"));
+    assertThrows(IllegalArgumentException.class, () -> lib.Child().select("a["));
+  }
+
+  @Test
+  void testCompiledPathIsCachedAndReusable() {
+    PaxPath path = PaxPath.compile("/library/book[2]/title");
+    assertSame(path, PaxPath.compile("/library/book[2]/title"));
+    assertTrue(path.isAbsolute());
+    assertEquals("/library/book[2]/title", path.toString());
+
+    IPax copy = Instances.Factory().copy(library);
+    assertEquals("Title 2", path.first(library).Val());
+    assertEquals("Title 2", path.first(copy).Val());
+    assertNotSame(path.first(library), path.first(copy));
+  }
+
+  @Test
+  void testSameNamedSiblingsOfDocument() {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 10; i++) {
+      IPax row = Instances.Factory().produce(i % 2 == 0 ? "row" : "other");
+      row.Attrib().add("id", String.valueOf(i));
+      root.Child().add(row);
+    }
+    for (PaxDocument doc : new PaxDocument[] {PaxDocument.of(root), PaxDocument.frozen(root)}) {
+      List<IPax> rows = PaxPath.compile("/root/row").all(doc.Root());
+      assertEquals(5, rows.size());
+      assertEquals("8", rows.get(4).Attrib().get("id").Val());
+      assertEquals("6", PaxPath.compile("/root/row[4]").first(doc.Root()).Attrib().get("id").Val());
+      assertEquals("4", PaxPath.compile("/root/row[@id='4']").first(doc.Root()).Attrib().get("id").Val());
+    }
+
+    PaxDocument doc = PaxDocument.of(root);
+    IChildren children = doc.Root().Child();
+    assertEquals("4", children.get("row", 2).Attrib().get("id").Val());
+    children.del(children.get("row", 1)); // the cursor of the view is stale now
+    assertEquals("6", children.get("row", 2).Attrib().get("id").Val());
+    children.get(0).Tag("other");
+    assertEquals("4", children.get("row", 0).Attrib().get("id").Val());
+  }
+
+  @Test
+  void testInvalidExpressions() {
+    assertThrows(IllegalArgumentException.class, () -> PaxPath.compile(""));
+    assertThrows(IllegalArgumentException.class, () -> PaxPath.compile("/book[0]"));
+    assertThrows(IllegalArgumentException.class, () -> PaxPath.compile("/book[x]"));
+    assertThrows(IllegalArgumentException.class, () -> PaxPath.compile("/book[@id=x]"));
+    assertThrows(IllegalArgumentException.class, () -> PaxPath.compile("/book[1"));
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file PaxRangeTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaxRangeTest {
+
+  private IPax trades;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+    trades = Instances.Factory().produce("trades");
+    int[] stamps = {50, 10, 40, 20, 30, 20};
+    for (int t = 0; t < stamps.length; t++) {
+      IPax trade = Instances.Factory().produce("trade", "T" + t);
+      trade.Attrib().add("ts", String.valueOf(stamps[t]));
+      trade.Child().add("price", String.valueOf(100 + stamps[t] * 2.5));
+      trades.Child().add(trade);
+    }
+    IPax odd = Instances.Factory().produce("trade", "odd");
+    odd.Attrib().add("ts", "n/a");
+    trades.Child().add(odd);
+    trades.Child().add("note", "no trade at all");
+  }
+
+  @Test
+  void testNumericByAttribute() {
+    PaxRange range = PaxRange.numeric(trades, "trade", "@ts");
+    assertEquals(6, range.cnt());
+    List<IPax> hits = range.between(20, 40);
+    assertEquals(4, hits.size());
+    assertEquals("T3", hits.get(0).Val()); // equal keys keep the document order
+    assertEquals("T5", hits.get(1).Val());
+    assertEquals("T4", hits.get(2).Val());
+    assertEquals("T2", hits.get(3).Val());
+    assertEquals(1, range.greater(40).size());
+    assertEquals(1, range.less(20).size());
+    assertEquals("T1", range.all().get(0).Val());
+    assertTrue(range.between(41, 49).isEmpty());
+    assertTrue(range.between(40, 20).isEmpty());
+  }
+
+  @Test
+  void testNumericKeysByJsonGrammar() {
+    IPax values = Instances.Factory().produce("values");
+    String[] keys = {" 7 ", "-0.5e3", "NaN", "Infinity", "+5", "1d", "", "0x10"};
+    for (String key : keys) {
+      IPax value = Instances.Factory().produce("value");
+      value.Attrib().add("v", key);
+      values.Child().add(value);
+    }
+    PaxRange range = PaxRange.numeric(values, "@v");
+    assertEquals(2, range.cnt());
+    assertEquals("-0.5e3", range.all().get(0).Attrib().get("v").Val());
+    assertEquals(1, range.between(7, 7).size());
+  }
+
+  @Test
+  void testNumericByChildValue() {
+    PaxRange range = PaxRange.numeric(trades, "price");
+    assertEquals(6, range.cnt());
+    assertEquals(2, range.greater(175).size());
+    assertEquals("T0", range.greater(175).get(1).Val());
+  }
+
+  @Test
+  void testLexical() {
+    PaxRange range = PaxRange.lexical(trades, ".");
+    assertEquals(8, range.cnt());
+    assertEquals(6, range.between("T0", "T9").size());
+    assertEquals("T0", range.all().get(0).Val());
+    assertEquals(2, range.greater("T9").size());
+    assertEquals("odd", range.all().get(7).Val());
+    assertThrows(IllegalArgumentException.class, () -> range.greater(1.0));
+  }
+
+  @Test
+  void testRefresh() {
+    PaxRange range = PaxRange.numeric(trades, "trade", "@ts");
+    IPax late = Instances.Factory().produce("trade", "late");
+    late.Attrib().add("ts", "99");
+    trades.Child().add(late);
+    assertTrue(range.greater(90).isEmpty());
+    range.refresh();
+    assertSame(late, range.greater(90).get(0));
+  }
+}
@@ -250,6 +250,49 @@ class PaxTest {
     assertFalse(xml.contains("\n"));
   }
 
+  @Test
+  void testXMLIndentation() {
+    root.Tag("book");
+    root.Attrib().add("id", "1");
+    IPax chapter = Instances.Factory().produce("chapter");
+    chapter.Child().add("title", "Effective Java");
+    root.Child().add(chapter);
+
+    String nl = Statics.LineSeparator;
+    assertEquals("<book id=\"1\">" + nl + "  <chapter>" + nl + "    <title>Effective Java</title>" + nl
+        + "  </chapter>" + nl + "</book>" + nl, root.XML());
+    assertEquals("<book id=\"1\"><chapter><title>Effective Java</title></chapter></book>", root.XML_lined());
+    assertEquals("<book id=\"1\">|    <chapter>|        <title>Effective Java</title>|    </chapter>|</book>|",
+        XmlGenerator.generate(root, new RenderContext(4, "|")));
+  }
+
+  @Test
+  void testXMLConcurrently() throws InterruptedException {
+    root.Tag("root");
+    for (int i = 0; i < 20; i++) {
+      IPax child = Instances.Factory().produce("child");
+      child.Child().add("leaf", "v" + i);
+      root.Child().add(child);
+    }
+    final String expected = root.XML();
+    final boolean[] failed = new boolean[1];
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 200; i++) {
+          if (!expected.equals(root.XML())) {
+            failed[0] = true;
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(failed[0]);
+  }
+
   @Test
   void testXMLWithComment() {
     root.Tag(Identity.COMMENT);
@@ -324,4 +367,29 @@ class PaxTest {
     assertTrue(xml.contains("<author>"));
     assertTrue(xml.contains("Joshua Bloch"));
   }
+
+  @Test
+  void testXMLEscaping() {
+    IPax book = Instances.Factory().produce("book", "Tom & Jerry <3 > \"cats\"");
+    book.Attrib().add("title", "Say \"hi\" & <bye>");
+    book.Attrib().add("lines", "one\ntwo\tthree");
+    String xml = book.XML();
+    assertTrue(xml.contains(">Tom &amp; Jerry &lt;3 &gt; \"cats\"</book>"));
+    assertTrue(xml.contains("title=\"Say &quot;hi&quot; &amp; &lt;bye&gt;\""));
+    assertEquals("title=\"Say &quot;hi&quot; &amp; &lt;bye&gt;\" lines=\"one&#10;two&#9;three\"", book.Attrib().XML());
+
+    IPax parsed = Reader.Instance.stream(new java.io.ByteArrayInputStream(xml.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+    assertEquals(book.Val(), parsed.Val());
+    assertEquals(book.Attrib().get("title").Val(), parsed.Attrib().get("title").Val());
+    assertEquals(book.Attrib().get("lines").Val(), parsed.Attrib().get("lines").Val());
+
+    IPax data = Instances.Factory().produce("data");
+    data.Child().add(Identity.CDATA, "if (a[b[0]]>1) x = \"<&>\";");
+    String cdata = data.XML();
+    assertTrue(cdata.contains("<![CDATA[if (a[b[0]]]]><![CDATA[>1) x = \"<&>\";]]>"));
+    assertNotNull(Reader.Instance.stream(new java.io.ByteArrayInputStream(cdata.getBytes(java.nio.charset.StandardCharsets.UTF_8))));
+
+    String plain = "nothing to escape here";
+    assertSame(plain, XmlGenerator.escapeAttrib(plain));
+  }
 }
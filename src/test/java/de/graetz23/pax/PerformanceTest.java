@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -310,4 +311,643 @@ class PerformanceTest {
     System.out.println("Complex document (100 books, 10 chapters each): " + duration + "ms");
     assertTrue(duration < 2000, "Should build and parse complex document in under 2 seconds");
   }
+
+  @Test
+  void testIndexedIterationOverSiblings() {
+    IPax root = Instances.Factory().produce("root");
+
+    for (int i = 0; i < 50000; i++) {
+      root.Child().add("row", "value" + i);
+    }
+
+    long start = System.nanoTime();
+
+    int cnt = root.Child().cnt("row");
+    for (int i = 0; i < cnt; i++) {
+      root.Child().get(i);
+      root.Child().get("row", i);
+    }
+    List<IPax> rows = root.Child().all();
+    for (int i = 0; i < cnt; i += 2) {
+      root.Child().del(rows.get(i));
+    }
+
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    assertEquals(25000, root.Child().cnt());
+    System.out.println("Indexed iteration and deletion (50000 siblings): " + duration + "ms");
+    assertTrue(duration < 1000, "Should iterate and delete 50000 siblings by index in under 1 second");
+  }
+
+  @Test
+  void testPathOverSiblingsOfDocument() {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 50000; i++) {
+      IPax row = Instances.Factory().produce("row");
+      row.Child().add("id", String.valueOf(i));
+      root.Child().add(row);
+    }
+    PaxPath rows = PaxPath.compile("/root/row");
+    PaxPath ids = PaxPath.compile("/root/row/id");
+
+    for (PaxDocument doc : new PaxDocument[] {PaxDocument.of(root), PaxDocument.frozen(root)}) {
+      long start = System.nanoTime();
+      List<IPax> all = rows.all(doc.Root());
+      for (int i = 0; i < 1000; i++) {
+        ids.first(doc.Root());
+      }
+      IPax last = PaxPath.compile("/root/row[50000]/id").first(doc.Root());
+      long duration = (System.nanoTime() - start) / 1_000_000;
+
+      System.out.println("Path over 50000 siblings of a " + (doc.isFrozen() ? "frozen" : "mutable") + " document: " + duration + "ms");
+      assertEquals(50000, all.size());
+      assertEquals("49999", last.Val());
+      assertTrue(duration < 1000, "Should walk 50000 siblings of a document and search 1000 times in under 1 second");
+    }
+  }
+
+  @Test
+  void testPrefixQueriesOnWideNode() {
+    IPax root = Instances.Factory().produce("root");
+
+    for (int i = 0; i < 10000; i++) {
+      root.Child().add("field" + (i % 100), "value" + i);
+    }
+    root.Child().add("Wanted", "a");
+    root.Child().add("wanted", "b");
+
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(2, root.Child().all("want").size());
+    }
+
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("10000 prefix queries (10002 children): " + duration + "ms");
+    assertTrue(duration < 1000, "Should answer 10000 prefix queries in under 1 second");
+  }
+
+  @Test
+  void testRangeQueriesOnWideNode() {
+    IPax root = Instances.Factory().produce("trades");
+
+    for (int i = 0; i < 100000; i++) {
+      IPax trade = Instances.Factory().produce("trade");
+      trade.Attrib().add("ts", String.valueOf((i * 7919L) % 100000));
+      root.Child().add(trade);
+    }
+
+    long start = System.nanoTime();
+    PaxRange range = PaxRange.numeric(root, "trade", "@ts");
+    long built = System.nanoTime();
+
+    int found = 0;
+    for (int i = 0; i < 10000; i++) {
+      found += range.between(i * 10, i * 10 + 9).size();
+    }
+
+    long end = System.nanoTime();
+    long build = (built - start) / 1_000_000;
+    long duration = (end - built) / 1_000_000;
+
+    System.out.println("Range index over 100000 children: " + build + "ms, 10000 range queries: " + duration + "ms");
+    assertEquals(100000, found);
+    assertTrue(duration < 1000, "Should answer 10000 range queries in under 1 second");
+  }
+
+  @Test
+  void testConcurrentReadsOnFrozenDocument() throws InterruptedException {
+    IPax root = Instances.Factory().produce("catalog");
+    for (int i = 0; i < 10000; i++) {
+      IPax item = Instances.Factory().produce("item");
+      item.Attrib().add("id", "i" + i);
+      item.Child().add("name", "Item " + i);
+      root.Child().add(item);
+    }
+
+    long start = System.nanoTime();
+    final PaxDocument frozen = PaxDocument.frozen(root);
+    long built = System.nanoTime();
+
+    final int[] errors = new int[1];
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int offset = t;
+      threads[t] = new Thread(() -> {
+        IPax catalog = frozen.Root();
+        for (int i = offset; i < 10000; i += 7) {
+          IPax item = catalog.Child().get(i);
+          if (!("Item " + i).equals(item.Child().get("name").Val()) || !"/catalog/item".equals(item.Path())) {
+            synchronized (errors) {
+              errors[0]++;
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    long end = System.nanoTime();
+    long freeze = (built - start) / 1_000_000;
+    long duration = (end - built) / 1_000_000;
+
+    System.out.println("Freeze of 30001 elements: " + freeze + "ms, 8 reading threads: " + duration + "ms");
+    assertEquals(0, errors[0]);
+    assertTrue(duration < 2000, "Should read a frozen document concurrently in under 2 seconds");
+  }
+
+  @Test
+  void testCopyOnWriteTemplate() {
+    IPax root = Instances.Factory().produce("template");
+    for (int i = 0; i < 1000; i++) {
+      IPax group = Instances.Factory().produce("group");
+      group.Attrib().add("id", "g" + i);
+      for (int j = 0; j < 100; j++) {
+        group.Child().add("field", "value" + j);
+      }
+      root.Child().add(group);
+    }
+    IPax template = CowPax.of(root);
+
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 1000; i++) {
+      IPax copy = Instances.Factory().copy(template);
+      copy.Child().get(i).Child().get(7).Val("changed");
+      copy.Child().get(999 - i).Attrib().set("id", "x");
+    }
+
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("1000 copy-on-write copies of 101001 nodes with 2 changes each: " + duration + "ms");
+    assertEquals("value7", template.Child().get(0).Child().get(7).Val());
+    assertTrue(duration < 2000, "Should copy and change 1000 templates in under 2 seconds");
+  }
+
+  @Test
+  void testStreamingLargeXmlToFile() throws IOException {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 200000; i++) {
+      IPax child = Instances.Factory().produce("item", "value" + i);
+      child.Attrib().add("id", String.valueOf(i));
+      root.Child().add(child);
+    }
+    java.io.File file = java.io.File.createTempFile("pax", ".xml");
+    file.deleteOnExit();
+
+    long start = System.nanoTime();
+    boolean written = Writer.Instance.XML(root, file.getPath());
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("Streaming 200000 elements (" + file.length() / 1024 + " KiB) to a file: " + duration + "ms");
+    assertTrue(written);
+    assertTrue(file.length() > 200000 * 20);
+    assertTrue(duration < 3000, "Should stream 200000 elements in under 3 seconds");
+    file.delete();
+  }
+
+  @Test
+  void testStreamingLargeJsonToFile() throws IOException {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 200000; i++) {
+      IPax child = Instances.Factory().produce(i % 2 == 0 ? "item" : "entry", "value" + i);
+      child.Attrib().add("id", String.valueOf(i));
+      root.Child().add(child);
+    }
+    java.io.File file = java.io.File.createTempFile("pax", ".json");
+    file.deleteOnExit();
+
+    long start = System.nanoTime();
+    boolean written = Writer.Instance.JSON(root, file.getPath());
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("Streaming 200000 elements (" + file.length() / 1024 + " KiB) as JSON to a file: " + duration + "ms");
+    assertTrue(written);
+    assertTrue(file.length() > 200000 * 40);
+    assertTrue(duration < 5000, "Should stream 200000 elements as JSON in under 5 seconds");
+    file.delete();
+  }
+
+  @Test
+  void testBufferedVersusMappedSink() throws IOException {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 200000; i++) {
+      IPax child = Instances.Factory().produce("item", i % 10 == 0 ? "wert " + i + " äöü" : "value" + i);
+      child.Attrib().add("id", String.valueOf(i));
+      root.Child().add(child);
+    }
+    java.io.File buffered = java.io.File.createTempFile("pax", ".xml");
+    java.io.File mapped = java.io.File.createTempFile("pax", ".xml");
+    buffered.deleteOnExit();
+    mapped.deleteOnExit();
+
+    long start = System.nanoTime();
+    assertTrue(Writer.Instance.XML(root, buffered.getPath(), RenderContext.pretty(), false));
+    long middle = System.nanoTime();
+    assertTrue(Writer.Instance.XML(root, mapped.getPath(), RenderContext.pretty(), true));
+    long end = System.nanoTime();
+    long durationBuffered = (middle - start) / 1_000_000;
+    long durationMapped = (end - middle) / 1_000_000;
+
+    System.out.println("Writing 200000 elements (" + buffered.length() / 1024 + " KiB) as UTF-8 through a channel: " + durationBuffered + "ms, mapped: " + durationMapped + "ms");
+    assertEquals(buffered.length(), mapped.length());
+    assertTrue(durationBuffered < 5000, "Should write 200000 elements through a channel in under 5 seconds");
+    assertTrue(durationMapped < 5000, "Should write 200000 elements mapped in under 5 seconds");
+    buffered.delete();
+    mapped.delete();
+  }
+
+  @Test
+  void testEscapingSerialization() {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 200000; i++) {
+      IPax child = Instances.Factory().produce("item", i % 10 == 0 ? "a < b & c " + i : "plain value " + i);
+      child.Attrib().add("name", i % 10 == 0 ? "\"quoted\" " + i : "name" + i);
+      root.Child().add(child);
+    }
+    root.XML(); // warm up
+
+    long start = System.nanoTime();
+    String xml = root.XML();
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("Serializing 200000 elements, every tenth escaped: " + duration + "ms");
+    assertTrue(xml.contains("<item name=\"&quot;quoted&quot; 0\">a &lt; b &amp; c 0</item>"));
+    assertTrue(xml.contains("<item name=\"name1\">plain value 1</item>"));
+    assertTrue(duration < 2000, "Should serialize 200000 escaped elements in under 2 seconds");
+  }
+
+  @Test
+  void testJsonTextHeavySerialization() {
+    IPax root = Instances.Factory().produce("root");
+    for (int i = 0; i < 200000; i++) {
+      IPax child = Instances.Factory().produce("item", i % 10 == 0 ? "line \"" + i + "\"\n" : "some text value " + i);
+      child.Attrib().add("name", "n" + i);
+      root.Child().add(child);
+    }
+    JsonGenerator.generate(root, true); // warm up, classifying all values once
+
+    long start = System.nanoTime();
+    String json = JsonGenerator.generate(root);
+    long middle = System.nanoTime();
+    String cached = JsonGenerator.generate(root, true);
+    long end = System.nanoTime();
+    long duration = (middle - start) / 1_000_000;
+    long durationCached = (end - middle) / 1_000_000;
+
+    System.out.println("Serializing 200000 text values as JSON: " + duration + "ms, cached: " + durationCached + "ms");
+    assertEquals(json, cached);
+    assertTrue(json.contains("\"__value__\": \"line \\\"0\\\"\\n\""));
+    assertTrue(duration < 2000, "Should serialize 200000 text values in under 2 seconds");
+    assertTrue(durationCached < 2000, "Should serialize 200000 cached text values in under 2 seconds");
+  }
+
+  @Test
+  void testPooledParserPerMessage() {
+    int messages = 20000;
+    byte[][] xml = new byte[messages][];
+    for (int i = 0; i < messages; i++) {
+      xml[i] = ("<msg id=\"" + i + "\"><from>a</from><to>b</to><body>hello " + i + "</body></msg>").getBytes();
+    }
+    Reader unpooled = Reader.builder().pooled(false).build();
+    for (int i = 0; i < 2000; i++) { // warm up both
+      unpooled.stream(new ByteArrayInputStream(xml[i]));
+      Reader.Instance.stream(new ByteArrayInputStream(xml[i]));
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < messages; i++) {
+      unpooled.stream(new ByteArrayInputStream(xml[i]));
+    }
+    long middle = System.nanoTime();
+    IPax last = null;
+    for (int i = 0; i < messages; i++) {
+      last = Reader.Instance.stream(new ByteArrayInputStream(xml[i]));
+    }
+    long end = System.nanoTime();
+    double before = (middle - start) / 1000.0 / messages;
+    double after = (end - middle) / 1000.0 / messages;
+
+    System.out.printf("Parsing %d small messages, per message: new parser %.1fus, pooled parser %.1fus%n", messages, before, after);
+    assertEquals("hello " + (messages - 1), last.Child().get("body").Val());
+    assertTrue((end - middle) / 1_000_000 < 5000, "Should parse 20000 small messages in under 5 seconds");
+  }
+
+  @Test
+  void testParseLargeTextNodes() {
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 50000) {
+      text.append("lorem ipsum dolor sit amet &amp; more ");
+    }
+    StringBuilder xml = new StringBuilder("<root>\n");
+    for (int i = 0; i < 500; i++) {
+      xml.append("  <doc id=\"").append(i).append("\">").append(text).append("</doc>\n");
+    }
+    xml.append("</root>");
+    byte[] bytes = xml.toString().getBytes();
+    Reader.Instance.stream(new ByteArrayInputStream(bytes)); // warm up
+
+    long start = System.nanoTime();
+    IPax root = Reader.Instance.stream(new ByteArrayInputStream(bytes));
+    long end = System.nanoTime();
+    long duration = (end - start) / 1_000_000;
+
+    System.out.println("Parsing 500 text nodes of " + text.length() / 1024 + " KiB each: " + duration + "ms");
+    String expected = text.toString().replace("&amp;", "&");
+    assertEquals(expected, root.Child().get("doc", 499).Val());
+    assertEquals(expected.length(), root.Child().get("doc", 0).Val().length());
+    assertTrue(duration < 5000, "Should parse 500 large text nodes in under 5 seconds");
+  }
+
+  @Test
+  void testSaxVersusStaxEngine() {
+    StringBuilder large = new StringBuilder("<catalog>\n");
+    for (int i = 0; i < 50000; i++) {
+      large.append("  <item id=\"").append(i).append("\" type=\"t").append(i % 7).append("\">");
+      large.append("<name>Item ").append(i).append(" &amp; more</name><price>").append(i % 100).append(".99</price>");
+      large.append("<!-- note ").append(i).append(" --></item>\n");
+    }
+    large.append("</catalog>");
+    byte[] document = large.toString().getBytes();
+    byte[][] messages = new byte[10000][];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = ("<msg id=\"" + i + "\"><from>a</from><to>b</to><body>hello " + i + "</body></msg>").getBytes();
+    }
+
+    for (Reader.Engine engine : Reader.Engine.values()) { // warm up
+      Reader.Instance.stream(new ByteArrayInputStream(document), engine);
+      for (int i = 0; i < 2000; i++) {
+        Reader.Instance.stream(new ByteArrayInputStream(messages[i]), engine);
+      }
+    }
+
+    String reference = null;
+    for (Reader.Engine engine : Reader.Engine.values()) {
+      long start = System.nanoTime();
+      IPax root = Reader.Instance.stream(new ByteArrayInputStream(document), engine);
+      long middle = System.nanoTime();
+      for (byte[] message : messages) {
+        Reader.Instance.stream(new ByteArrayInputStream(message), engine);
+      }
+      long end = System.nanoTime();
+      long durationDocument = (middle - start) / 1_000_000;
+      long durationMessages = (end - middle) / 1_000_000;
+
+      System.out.println(engine + ": 50000 items (" + document.length / 1024 + " KiB) " + durationDocument + "ms, 10000 small messages " + durationMessages + "ms");
+      String xml = root.XML();
+      if (reference == null) {
+        reference = xml;
+      }
+      assertEquals(reference, xml);
+      assertTrue(durationDocument < 5000, "Should parse 50000 items in under 5 seconds");
+      assertTrue(durationMessages < 5000, "Should parse 10000 small messages in under 5 seconds");
+    }
+  }
+
+  @Test
+  void testTolerantVersusSaxOnAttributes() {
+    StringBuilder xml = new StringBuilder("<rows>\n");
+    for (int i = 0; i < 100000; i++) {
+      xml.append("  <row id=\"").append(i).append("\" name=\"alpha").append(i % 10).append("\" kind=\"beta\" size=\"").append(i * 3);
+      xml.append("\" note=\"delta &amp; co\" x=\"1\" y=\"2\" z=\"z").append(i % 5).append("\"/>\n");
+    }
+    xml.append("</rows>");
+    byte[] bytes = xml.toString().getBytes();
+    Reader sax = Reader.builder().engine(Reader.Engine.SAX).build();
+    Reader tolerant = Reader.builder().engine(Reader.Engine.TOLERANT).build();
+    for (int i = 0; i < 3; i++) { // warm up
+      sax.document(new ByteArrayInputStream(bytes));
+      tolerant.document(new ByteArrayInputStream(bytes));
+    }
+
+    long start = System.nanoTime();
+    PaxDocument bySax = sax.document(new ByteArrayInputStream(bytes));
+    long middle = System.nanoTime();
+    PaxDocument byTolerant = tolerant.document(new ByteArrayInputStream(bytes));
+    long end = System.nanoTime();
+    long durationSax = (middle - start) / 1_000_000;
+    long durationTolerant = (end - middle) / 1_000_000;
+
+    System.out.println("Reading 100000 rows of 8 attributes (" + bytes.length / 1024 + " KiB): SAX " + durationSax + "ms, tolerant " + durationTolerant + "ms");
+    assertEquals(bySax.cnt(), byTolerant.cnt());
+    assertEquals(bySax.Root().Child().get("row", 99999).Attrib().XML(), byTolerant.Root().Child().get("row", 99999).Attrib().XML());
+    assertTrue(durationTolerant < 5000, "Should read 100000 attribute-heavy rows in under 5 seconds");
+  }
+
+  @Test
+  void testStreamingRecordsOfHugeFile() throws IOException {
+    java.io.File file = java.io.File.createTempFile("pax", ".xml");
+    file.deleteOnExit();
+    try (java.io.Writer out = new java.io.BufferedWriter(new java.io.FileWriter(file))) {
+      out.write("<feed><meta><note>skipped</note></meta>\n");
+      for (int i = 0; i < 200000; i++) {
+        out.write("  <item id=\"" + i + "\"><title>Title " + i + "</title><body>Some text of the item, not too short.</body></item>\n");
+      }
+      out.write("</feed>");
+    }
+
+    long[] sum = {0};
+    long start = System.nanoTime();
+    long cnt = Reader.Instance.records(file.getPath(), "/feed/item", item -> sum[0] += Integer.parseInt(item.Attrib().get("id").Val()));
+    long duration = (System.nanoTime() - start) / 1_000_000;
+
+    System.out.println("Streaming 200000 records (" + file.length() / 1024 + " KiB) by path: " + duration + "ms");
+    assertEquals(200000, cnt);
+    assertEquals(199999L * 200000 / 2, sum[0]);
+    assertTrue(duration < 10000, "Should stream 200000 records in under 10 seconds");
+  }
+
+  @Test
+  void testLazyVersusFullParseOfLargeFile() throws IOException {
+    java.io.File file = java.io.File.createTempFile("pax", ".xml");
+    file.deleteOnExit();
+    try (java.io.Writer out = new java.io.BufferedWriter(new java.io.FileWriter(file))) {
+      out.write("<catalog>\n");
+      for (int i = 0; i < 200000; i++) {
+        out.write("  <item id=\"" + i + "\" kind=\"k" + i % 7 + "\"><title>Title " + i + "</title><price>" + i % 100 + ".99</price>");
+        out.write("<tags><tag>a</tag><tag>b</tag></tags></item>\n");
+      }
+      out.write("</catalog>");
+    }
+    Runtime runtime = Runtime.getRuntime();
+
+    System.gc();
+    long before = runtime.totalMemory() - runtime.freeMemory();
+    long start = System.nanoTime();
+    IPax full = Reader.Instance.parse(file.getPath());
+    String fullTitle = full.Child().get("item", 123456).Child().get("title").Val();
+    long durationFull = (System.nanoTime() - start) / 1_000_000;
+    System.gc();
+    long heapFull = runtime.totalMemory() - runtime.freeMemory() - before;
+    assertEquals("catalog", full.Tag()); // held until measured
+    full = null;
+
+    System.gc();
+    before = runtime.totalMemory() - runtime.freeMemory();
+    start = System.nanoTime();
+    IPax lazy = Reader.Instance.lazy(file.getPath());
+    long durationIndex = (System.nanoTime() - start) / 1_000_000;
+    String lazyTitle = lazy.Child().get("item", 123456).Child().get("title").Val();
+    long durationLazy = (System.nanoTime() - start) / 1_000_000;
+    System.gc();
+    long heapLazy = runtime.totalMemory() - runtime.freeMemory() - before;
+    assertEquals("catalog", lazy.Tag());
+
+    System.out.println("First query into 200000 items (" + file.length() / 1024 + " KiB): full parse " + durationFull + "ms, "
+        + heapFull / (1024 * 1024) + " MiB; lazy " + durationLazy + "ms (index " + durationIndex + "ms), " + heapLazy / (1024 * 1024) + " MiB");
+    assertEquals(fullTitle, lazyTitle);
+    assertEquals("Title 123456", lazy.Child().get("item", 123456).Child().get("title").Val());
+    assertTrue(durationLazy < 5000, "Should answer the first query on a lazy tree in under 5 seconds");
+  }
+
+  @Test
+  void testParallelParsingScaling() throws IOException {
+    java.io.File file = java.io.File.createTempFile("pax", ".xml");
+    file.deleteOnExit();
+    try (java.io.Writer out = new java.io.BufferedWriter(new java.io.FileWriter(file))) {
+      out.write("<export>\n");
+      for (int i = 0; i < 200000; i++) {
+        out.write("  <record id=\"" + i + "\" kind=\"k" + i % 7 + "\"><name>Name " + i + "</name><value>" + i % 100 + ".5</value></record>\n");
+      }
+      out.write("</export>");
+    }
+    Reader.Instance.parallel(file.getPath(), 2); // warm up
+    long start = System.nanoTime();
+    IPax sequential = Reader.Instance.parse(file.getPath());
+    long durationSequential = (System.nanoTime() - start) / 1_000_000;
+    System.out.println("Parsing 200000 records (" + file.length() / 1024 + " KiB) on " + Runtime.getRuntime().availableProcessors()
+        + " cores: sequential " + durationSequential + "ms");
+    String expected = sequential.XML();
+    sequential = null;
+
+    for (int threads = 1; threads <= 32; threads *= 2) {
+      start = System.nanoTime();
+      IPax parallel = Reader.Instance.parallel(file.getPath(), threads);
+      long duration = (System.nanoTime() - start) / 1_000_000;
+      System.out.println("  " + threads + " threads: " + duration + "ms");
+      assertEquals(expected, parallel.XML());
+      assertTrue(duration < 10000, "Should parse 200000 records in parallel in under 10 seconds");
+    }
+  }
+
+  @Test
+  void testBatchOfSmallFiles() throws IOException {
+    java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("pax");
+    List<java.nio.file.Path> paths = new java.util.ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      java.nio.file.Path path = directory.resolve("file" + i + (i % 5 == 0 ? ".json" : ".xml"));
+      IPax root = Instances.Factory().produce("record");
+      root.Attrib().add("id", String.valueOf(i));
+      root.Child().add("name", "Name " + i);
+      root.Child().add("value", String.valueOf(i % 100));
+      java.nio.file.Files.writeString(path, i % 5 == 0 ? root.JSON() : root.XML());
+      path.toFile().deleteOnExit();
+      paths.add(path);
+    }
+    directory.toFile().deleteOnExit();
+
+    long start = System.nanoTime();
+    for (java.nio.file.Path path : paths) {
+      if (path.toString().endsWith(".json")) {
+        JsonReader.Instance.parse(path.toString());
+      } else {
+        Reader.Instance.parse(path.toString());
+      }
+    }
+    long durationLoop = (System.nanoTime() - start) / 1_000_000;
+
+    int[] parsed = {0};
+    PaxBatch.Stats stats = PaxBatch.of(paths).concurrency(64).parse(result -> parsed[0] += result.isParsed() ? 1 : 0);
+
+    System.out.println("Parsing 5000 small files: loop " + durationLoop + "ms, batch (" + (PaxBatch.isVirtual() ? "virtual" : "platform")
+        + " threads) " + stats);
+    assertEquals(5000, parsed[0]);
+    assertEquals(0, stats.Failed());
+    assertTrue(stats.Nanos() / 1_000_000 < 10000, "Should parse 5000 small files in a batch in under 10 seconds");
+  }
+
+  @Test
+  void testStreamingLargeJsonFile() throws IOException {
+    java.io.File file = java.io.File.createTempFile("pax", ".json");
+    file.deleteOnExit();
+    try (java.io.Writer out = new java.io.BufferedWriter(new java.io.FileWriter(file, java.nio.charset.StandardCharsets.UTF_8))) {
+      out.write("{\"__tag__\": \"export\", \"__children__\": [\n");
+      for (int i = 0; i < 200000; i++) {
+        out.write((i > 0 ? ",\n" : "") + "  {\"__tag__\": \"record\", \"__attributes__\": [{\"name\": \"id\", \"value\": \"" + i
+            + "\"}], \"name\": \"Name " + i + "\", \"value\": " + i % 100 + ".5}");
+      }
+      out.write("\n]}");
+    }
+    long start = System.nanoTime();
+    IPax root = JsonReader.Instance.parse(file.getPath());
+    long duration = (System.nanoTime() - start) / 1_000_000;
+    System.out.println("Streaming 200000 JSON records (" + file.length() / 1024 + " KiB): " + duration + "ms");
+    assertEquals(200000, root.Child().cnt());
+    assertEquals("199999", root.Child().all().get(199999).Attrib().get("id").Val());
+    assertTrue(duration < 10000, "Should stream 200000 JSON records in under 10 seconds");
+  }
+
+  @Test
+  void testJsonAllocationPerRecord() {
+    IPax export = Instances.Factory().produce("export");
+    for (int i = 0; i < 50000; i++) {
+      IPax record = Instances.Factory().produce("record");
+      record.Attrib().add("id", String.valueOf(i));
+      record.Child().add("name", "Name " + i);
+      record.Child().add("value", String.valueOf(i % 100));
+      export.Child().add(record);
+    }
+    String json = export.JSON();
+    JsonReader.Instance.parseJson(json); // warm up
+
+    java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+    boolean isMeasured = threads instanceof com.sun.management.ThreadMXBean;
+    long before = isMeasured ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() : 0;
+    long start = System.nanoTime();
+    IPax root = JsonReader.Instance.parseJson(json);
+    long duration = (System.nanoTime() - start) / 1_000_000;
+    long allocated = isMeasured ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() - before : 0;
+
+    System.out.println("Parsing 50000 JSON records (" + json.length() / 1024 + " KiB): " + duration + "ms, "
+        + (isMeasured ? allocated / 50000 + " bytes allocated per record" : "allocation not measured"));
+    assertEquals(50000, root.Child().cnt());
+    assertEquals("49999", root.Child().get(49999).Attrib().get("id").Val());
+    if (isMeasured) { // nodes of the tree only, no throwaway nodes per scalar, array item, or attribute
+      assertTrue(allocated / 50000 < 3072, "Should allocate less than 3 KiB per JSON record");
+    }
+    assertTrue(duration < 5000, "Should parse 50000 JSON records in under 5 seconds");
+  }
+
+  @Test
+  void testJsonBytesThroughput() {
+    IPax export = Instances.Factory().produce("export");
+    for (int i = 0; i < 100000; i++) {
+      IPax record = Instances.Factory().produce("record");
+      record.Attrib().add("id", String.valueOf(i));
+      record.Child().add("name", "Name \u00e4 " + i);
+      record.Child().add("value", String.valueOf(i % 100));
+      export.Child().add(record);
+    }
+    byte[] json = export.JSON().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    JsonReader.Instance.parseJson(json); // warm up
+
+    long start = System.nanoTime();
+    IPax root = JsonReader.Instance.parseJson(json);
+    long duration = (System.nanoTime() - start) / 1_000_000;
+    System.out.println("Parsing 100000 JSON records from UTF-8 bytes (" + json.length / 1024 + " KiB): " + duration + "ms, "
+        + json.length / 1024 * 1000 / Math.max(1, duration) / 1024 + " MiB/s");
+    assertEquals(100000, root.Child().cnt());
+    assertEquals("Name \u00e4 99999", root.Child().get(99999).Child().get("name").Val());
+    assertTrue(duration < 5000, "Should parse 100000 JSON records from bytes in under 5 seconds");
+  }
 }
@@ -42,7 +42,7 @@ class ReaderEdgeCaseTest {
     IPax result = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
 
     assertNotNull(result);
-    assertNotNull(result.Val());
+    assertEquals("Test & More", result.Val());
   }
 
   @Test
@@ -100,4 +100,32 @@ class ReaderEdgeCaseTest {
 
     assertNotNull(result);
   }
+
+  @Test
+  void testParseLongValueAcrossBuffers() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      text.append("word").append(i).append(i % 100 == 0 ? " &amp; " : " ");
+    }
+    String xml = "<root><long>" + text + "</long><short>x</short></root>";
+    IPax result = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
+
+    assertEquals(text.toString().replace("&amp;", "&"), result.Child().get("long").Val());
+    assertEquals("x", result.Child().get("short").Val());
+    assertFalse(result.hasVal());
+  }
+
+  @Test
+  void testParseMixedContentAndWhitespace() throws IOException {
+    String xml = "<root>\n  <a>one <b>two</b> three</a>\n  <c>   </c>\n</root>";
+    IPax result = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
+
+    assertEquals("one  three", result.Child().get("a").Val());
+    assertEquals("two", result.Child().get("a").Child().get("b").Val());
+    assertFalse(result.Child().get("c").hasVal());
+    assertFalse(result.hasVal());
+
+    IPax kept = Reader.builder().skipWhitespace(false).build().stream(new ByteArrayInputStream(xml.getBytes()));
+    assertEquals(result.XML(), kept.XML());
+  }
 }
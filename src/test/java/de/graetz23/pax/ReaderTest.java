@@ -14,8 +14,13 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -198,4 +203,270 @@ class ReaderTest {
     assertEquals("1", book1.Attrib().get("id").Val());
     assertEquals("Book Title", book1.Child().get("title").Val());
   }
+
+  @Test
+  void testParserReusedAfterFailure() {
+    for (int i = 0; i < 100; i++) {
+      String xml = "<msg id=\"" + i + "\"><body>text " + i + "</body></msg>";
+      IPax msg = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
+      assertEquals(String.valueOf(i), msg.Attrib().get("id").Val());
+      assertEquals("text " + i, msg.Child().get("body").Val());
+    }
+    assertNull(Reader.Instance.stream(new ByteArrayInputStream("<broken><tag></broken>".getBytes())));
+    IPax after = Reader.Instance.stream(new ByteArrayInputStream("<ok>fine</ok>".getBytes()));
+    assertEquals("fine", after.Val());
+  }
+
+  @Test
+  void testBuilderFeatures() throws IOException {
+    String xml = "<?xml version=\"1.0\"?><!DOCTYPE root SYSTEM \"missing.dtd\"><root>value</root>";
+    Reader strict = Reader.builder().secure(true).loadDtd(false).externalEntities(false).build();
+    IPax root = strict.stream(new ByteArrayInputStream(xml.getBytes()));
+    assertNotNull(root);
+    assertEquals("value", root.Val());
+    Path file = tempDir.resolve("dtd.xml"); // the missing DTD is looked up next to the file
+    Files.writeString(file, xml);
+    assertNull(Reader.builder().loadDtd(true).build().parse(file.toString()));
+    assertNotNull(strict.parse(file.toString()));
+
+    Path dtd = Files.writeString(tempDir.resolve("x.dtd"), "<!ELEMENT r (#PCDATA)>");
+    Path external = tempDir.resolve("external.xml");
+    Files.writeString(external, "<?xml version=\"1.0\"?><!DOCTYPE r SYSTEM \"" + dtd.toUri() + "\"><r>value</r>");
+    assertEquals("value", Reader.Instance.parse(external.toString()).Val()); // the JDK's defaults
+    assertEquals("value", Reader.Instance.parse(external.toString(), Reader.Engine.STAX).Val());
+    assertNull(Reader.builder().secure(true).build().parse(external.toString()));
+
+    String ns = "<a:root xmlns:a=\"urn:a\"><a:child>x</a:child></a:root>";
+    IPax aware = Reader.builder().namespaces(true).build().stream(new ByteArrayInputStream(ns.getBytes()));
+    assertEquals("a:root", aware.Tag());
+    assertEquals("x", aware.Child().get("a:child").Val());
+
+    IPax unpooled = Reader.builder().pooled(false).build().stream(new ByteArrayInputStream(ns.getBytes()));
+    assertEquals(Reader.Instance.stream(new ByteArrayInputStream(ns.getBytes())).XML(), unpooled.XML());
+  }
+
+  @Test
+  void testParseConcurrently() throws Exception {
+    Thread[] threads = new Thread[4];
+    boolean[] ok = new boolean[threads.length];
+    for (int t = 0; t < threads.length; t++) {
+      int id = t;
+      threads[t] = new Thread(() -> {
+        boolean all = true;
+        for (int i = 0; i < 200; i++) {
+          String xml = "<msg thread=\"" + id + "\"><n>" + i + "</n></msg>";
+          IPax msg = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()));
+          all &= msg != null && String.valueOf(id).equals(msg.Attrib().get("thread").Val()) && String.valueOf(i).equals(msg.Child().get("n").Val());
+        }
+        ok[id] = all;
+      });
+      threads[t].start();
+    }
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].join();
+      assertTrue(ok[t]);
+    }
+  }
+
+  @Test
+  void testStaxEngineBuildsSameTree() throws IOException {
+    String xml = "<?xml version=\"1.0\"?><!-- before root -->\n"
+        + "<library xmlns:x=\"urn:x\" name=\"City &amp; Co\">\n"
+        + "  <!-- the books -->\n"
+        + "  <book id=\"1\" x:rating=\"5\"><title>Tom &amp; Jerry</title><code><![CDATA[a < b]]></code></book>\n"
+        + "  <book id=\"2\"><title>Second</title><empty/></book>\n"
+        + "  <x:note>mixed <b>bold</b> text</x:note>\n"
+        + "</library>";
+    IPax sax = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()), Reader.Engine.SAX);
+    IPax stax = Reader.Instance.stream(new ByteArrayInputStream(xml.getBytes()), Reader.Engine.STAX);
+    assertNotNull(stax);
+    assertEquals(sax.XML(), stax.XML());
+    assertEquals("the books", stax.Child().get(Identity.COMMENT).Val().trim());
+    assertEquals("a < b", stax.Child().get("book").Child().get("code").Val());
+    assertEquals("5", stax.Child().get("book").Attrib().get("x:rating").Val());
+
+    Path file = tempDir.resolve("library.xml");
+    Files.writeString(file, xml);
+    Reader pulling = Reader.builder().engine(Reader.Engine.STAX).namespaces(true).build();
+    IPax aware = pulling.parse(file.toString());
+    assertEquals(Reader.builder().namespaces(true).build().parse(file.toString()).XML(), aware.XML());
+    assertEquals(sax.XML(), Reader.Instance.parse(file.toString(), Reader.Engine.STAX).XML());
+
+    assertNull(Reader.Instance.stream(new ByteArrayInputStream("<a><b></a>".getBytes()), Reader.Engine.STAX));
+    assertNull(Reader.Instance.stream(new ByteArrayInputStream("<a/><b/>".getBytes()), Reader.Engine.STAX));
+  }
+
+  @Test
+  void testTolerantEngineBuildsSameTree() {
+    String xml = "<?xml version=\"1.0\"?><!DOCTYPE library [<!ELEMENT library ANY>]><!-- before root -->\n"
+        + "<library xmlns:x=\"urn:x\" name=\"City &amp; Co\" lines=\"a\tb\nc\">\n"
+        + "  <!-- the books -->\n"
+        + "  <book id=\"1\" x:rating='5'><title>Tom &amp; Jerry &#x41;&#66; \u00e4\u20ac\ud83d\ude00</title><code><![CDATA[a < b]]></code></book>\n"
+        + "  <book id=\"2\"><title>Second</title><empty/></book>\n"
+        + "  <x:note>mixed <b>bold</b> text</x:note>\n"
+        + "</library>";
+    byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+    IPax sax = Reader.Instance.stream(new ByteArrayInputStream(bytes));
+    IPax tolerant = Reader.Instance.tolerant(bytes);
+    assertEquals(sax.XML(), tolerant.XML());
+    assertEquals(sax.XML(), Reader.Instance.stream(new ByteArrayInputStream(bytes), Reader.Engine.TOLERANT).XML());
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    assertEquals(sax.XML(), Reader.Instance.tolerant(direct).XML());
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  void testTolerantEngineRecovers() {
+    IPax unclosed = Reader.Instance.tolerant("<root><a>one<b>two</root>".getBytes());
+    assertEquals("root", unclosed.Tag());
+    assertEquals("one", unclosed.Child().get("a").Val());
+    assertEquals("two", unclosed.Child().get("a").Child().get("b").Val());
+
+    IPax open = Reader.Instance.tolerant("<root><item id=1 flag>Fish & Chips &bogus; &amp;</item><item>".getBytes());
+    assertEquals(2, open.Child().cnt("item"));
+    assertEquals("Fish & Chips &bogus; &", open.Child().get("item").Val());
+    assertEquals("1", open.Child().get("item").Attrib().get("id").Val());
+    assertNotNull(open.Child().get("item").Attrib().get("flag"));
+
+    IPax stray = Reader.Instance.tolerant("<root>a < b</x></root>".getBytes());
+    assertEquals("a < b", stray.Val());
+
+    IPax roots = Reader.Instance.tolerant("<?xml version=\"1.0\"?><a>1</a>\n<b>2</b><c/>".getBytes());
+    assertEquals(Identity.LIST, roots.Tag());
+    assertEquals(3, roots.Child().cnt());
+    assertEquals("2", roots.Child().get("b").Val());
+    assertNull(roots.Parent());
+
+    PaxDocument document = Reader.builder().engine(Reader.Engine.TOLERANT).build().document(new ByteArrayInputStream("<a>1</a><b>2</b>".getBytes()));
+    assertEquals(Identity.LIST, document.Root().Tag());
+    assertEquals("2", document.Root().Child().get("b").Val());
+
+    PaxIndex index = new PaxIndex("id");
+    IPax indexed = Reader.builder().engine(Reader.Engine.TOLERANT).build().stream(new ByteArrayInputStream("<a id=\"1\"/><b id=\"2\"/>".getBytes()), index);
+    assertSame(indexed, index.Root());
+    assertSame(indexed.Child().get("b"), index.find("2"));
+    assertSame(indexed.Child().get("a"), index.find("1"));
+  }
+
+  @Test
+  void testRecordsByPath() throws IOException {
+    String xml = "<feed><title>news</title>"
+      + "<item id=\"1\"><name>one</name></item>"
+      + "<archive><item id=\"0\"/></archive>"
+      + "<item id=\"2\"><name>two</name><item id=\"nested\"/></item>"
+      + "</feed>";
+    List<IPax> items = new ArrayList<>();
+    long cnt = Reader.Instance.records(new ByteArrayInputStream(xml.getBytes()), "/feed/item", items::add);
+    assertEquals(2, cnt);
+    assertEquals(2, items.size());
+    assertEquals("1", items.get(0).Attrib().get("id").Val());
+    assertEquals("two", items.get(1).Child().get("name").Val());
+    assertEquals("nested", items.get(1).Child().get("item").Attrib().get("id").Val());
+    assertNull(items.get(0).Parent());
+
+    List<String> ids = new ArrayList<>();
+    assertEquals(2, Reader.Instance.records(new ByteArrayInputStream(xml.getBytes()), "/feed/*/item", r -> ids.add(r.Attrib().get("id").Val())));
+    assertEquals(List.of("0", "nested"), ids);
+
+    Path file = tempDir.resolve("feed.xml");
+    Files.writeString(file, xml);
+    List<IPax> none = new ArrayList<>();
+    assertEquals(0, Reader.Instance.records(file.toString(), "/rss/item", none::add));
+    assertTrue(none.isEmpty());
+    assertEquals(-1, Reader.Instance.records(new ByteArrayInputStream("<feed><item></feed>".getBytes()), "/feed/item", r -> { }));
+    assertThrows(IllegalArgumentException.class, () -> Reader.Instance.records(file.toString(), "/feed//item", r -> { }));
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> Reader.Instance.records(file.toString(), "/feed/item", r -> {
+      throw new IllegalStateException("consumer");
+    }));
+    assertEquals("consumer", thrown.getMessage());
+  }
+
+  @Test
+  void testLazyBuildsSameTree() throws IOException {
+    String xml = "<?xml version=\"1.0\"?><!-- before root -->\n"
+        + "<library name=\"City &amp; Co\">\n"
+        + "  <!-- the books -->\n"
+        + "  <book id=\"1\" rating='5'><title>Tom &amp; Jerry \u00e4\u20ac</title><code><![CDATA[<a> & </b>]]></code></book>\n"
+        + "  <book id=\"2\" note=\"a > b\"><title>Second</title><empty/></book>\n"
+        + "  <note>mixed <b>bold</b> text <!-- inner --> end</note>\n"
+        + "</library>";
+    byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+    IPax tolerant = Reader.Instance.tolerant(bytes);
+    assertEquals(tolerant.XML(), Reader.Instance.lazy(ByteBuffer.wrap(bytes)).XML());
+
+    Path file = tempDir.resolve("lazy.xml");
+    Files.write(file, bytes);
+    LazyPax root = (LazyPax) Reader.Instance.lazy(file.toString());
+    assertEquals("library", root.Tag());
+    assertFalse(root.isLoaded());
+    LazyPax second = (LazyPax) root.Child().get("book", 1);
+    assertTrue(root.isLoaded());
+    assertFalse(second.isLoaded());
+    assertFalse(((LazyPax) root.Child().get("book")).isLoaded());
+    assertEquals("a > b", second.Attrib().get("note").Val());
+    assertEquals("/library/book/title", second.Child().get("title").Path());
+    assertFalse(((LazyPax) second.Child().get("title")).isLoaded());
+    assertEquals("Second", second.Child().get("title").Val());
+
+    second.Child().get("title").Val("changed");
+    assertTrue(root.XML().contains("<title>changed</title>"));
+
+    String[] sloppy = {"<root><a>one<b>two</root>", "<root><item id=1 flag>Fish & Chips &bogus;</item><item>",
+        "<root>a < b</x></root>", "<a>1</a>\n<b>2</b><c/>", "<a><b attr=\"<c>\">x</b></a>"};
+    for (String input : sloppy) {
+      assertEquals(Reader.Instance.tolerant(input.getBytes()).XML(), Reader.Instance.lazy(ByteBuffer.wrap(input.getBytes())).XML());
+    }
+    assertNull(Reader.Instance.lazy(ByteBuffer.wrap("no markup".getBytes())));
+  }
+
+  @Test
+  void testParallelBuildsSameTree() throws IOException {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- export -->\n<records count=\"30000\">\n  <!-- first -->\n");
+    for (int i = 0; i < 30000; i++) {
+      xml.append("  <record id=\"").append(i).append("\" note=\"a &gt; b, <\u00e4> '/>'\">");
+      xml.append("<name>Name \u20ac ").append(i).append("</name><![CDATA[</record>]]><!-- <record> --><empty/></record>\n");
+      if (i % 1000 == 0) {
+        xml.append("  <!-- between ").append(i).append(" -->\n  <flag/>\n");
+      }
+    }
+    xml.append("  <!-- last -->\n</records>\n<!-- after -->");
+    Path file = tempDir.resolve("records.xml");
+    Files.writeString(file, xml.toString().replace("<\u00e4>", "&lt;\u00e4&gt;"));
+
+    try (FileChannel channel = FileChannel.open(file)) { // split indeed, not parsed as a whole
+      XmlSplitter splitter = XmlSplitter.of(channel, 1 << 20);
+      assertTrue(splitter.isSplittable());
+      assertTrue(splitter.cnt() > 1);
+    }
+
+    IPax sequential = Reader.Instance.parse(file.toString());
+    for (int threads : new int[] {1, 3}) {
+      IPax parallel = Reader.Instance.parallel(file.toString(), threads);
+      assertEquals(sequential.XML(), parallel.XML());
+      assertNull(parallel.Parent());
+      assertSame(parallel, parallel.Child().get("record", 29999).Parent());
+    }
+
+    Path mixed = tempDir.resolve("mixed.xml");
+    Files.writeString(mixed, "<root>text <a>1</a> more <b>2</b> end</root>");
+    assertEquals(Reader.Instance.parse(mixed.toString()).XML(), Reader.Instance.parallel(mixed.toString(), 2).XML());
+
+    Path broken = tempDir.resolve("broken.xml");
+    Files.writeString(broken, "<root><a>1</a><b>2</root>");
+    assertNull(Reader.Instance.parallel(broken.toString(), 2));
+  }
+
+  @Test
+  void testParallelChunksStayBounded() {
+    long size = 10L << 30; // a file of 10 GiB
+    for (int threads : new int[] {1, 2, 4, 8, 16, 32}) {
+      long target = Reader.target(size, threads);
+      assertTrue(target <= 1 << 28, "chunks of at most 256 MiB for " + threads + " threads");
+      assertTrue(size / target >= 4L * threads, "some chunks per thread for " + threads + " threads");
+    }
+    assertEquals(1 << 20, Reader.target(1000, 32)); // no tiny chunks
+    assertEquals(1 << 20, Reader.target(0, 0));
+  }
 }
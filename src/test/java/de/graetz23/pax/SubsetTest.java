@@ -0,0 +1,180 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file SubsetTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubsetTest {
+
+  private IPax root;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+    root = Instances.Factory().produce("root");
+  }
+
+  @Test
+  void testSameNamedSiblings() {
+    root.Child().add("row", "1");
+    root.Child().add("other");
+    root.Child().add("row", "2");
+    root.Child().add("row", "3");
+
+    assertEquals(4, root.Child().cnt());
+    assertEquals(3, root.Child().cnt("row"));
+    assertEquals("1", root.Child().get("row").Val());
+    assertEquals("2", root.Child().get("row", 1).Val());
+    assertEquals("3", root.Child().get("row", 2).Val());
+    assertNull(root.Child().get("row", 3));
+    assertEquals("other", root.Child().get(1).Tag());
+  }
+
+  @Test
+  void testDeleteKeepsOrderAndIndex() {
+    for (int i = 0; i < 100; i++) {
+      root.Child().add("row", String.valueOf(i));
+    }
+    List<IPax> rows = root.Child().all();
+    for (int i = 0; i < 100; i += 2) {
+      assertTrue(root.Child().del(rows.get(i)));
+      assertFalse(rows.get(i).hasParent());
+    }
+
+    assertEquals(50, root.Child().cnt());
+    assertEquals(50, root.Child().cnt("row"));
+    for (int i = 0; i < 50; i++) {
+      assertEquals(String.valueOf(2 * i + 1), root.Child().get(i).Val());
+      assertEquals(String.valueOf(2 * i + 1), root.Child().get("row", i).Val());
+    }
+    assertFalse(root.Child().del(rows.get(0)));
+  }
+
+  @Test
+  void testDeleteByTagRemovesFirstSibling() {
+    root.Child().add("book", "a");
+    root.Child().add("book", "b");
+
+    assertTrue(root.Child().del("book"));
+    assertTrue(root.Child().has("book"));
+    assertEquals("b", root.Child().get("book").Val());
+
+    assertTrue(root.Child().del("book"));
+    assertFalse(root.Child().has("book"));
+    assertEquals(0, root.Child().cnt("book"));
+  }
+
+  @Test
+  void testSetReplacesInPlace() {
+    root.Child().add("a");
+    root.Child().add("b");
+    root.Child().add("c");
+    IPax old = root.Child().get("b");
+    IPax b = Instances.Factory().produce("b", "new");
+
+    assertTrue(root.Child().set(b));
+    assertEquals(3, root.Child().cnt());
+    assertSame(b, root.Child().get(1));
+    assertFalse(old.hasParent());
+    assertTrue(root.Child().has(b));
+    assertFalse(root.Child().has(old));
+  }
+
+  @Test
+  void testSetHandsRemovedMemberWithParent() {
+    final IPax[] parents = new IPax[1];
+    Subset subset = new Subset(root) {
+      @Override
+      protected void removed(IPax member) {
+        parents[0] = member.Parent();
+      }
+    };
+    IPax old = Instances.Factory().produce("a", "old");
+    subset.add(old);
+
+    assertTrue(subset.set(Instances.Factory().produce("a", "new")));
+    assertSame(root, parents[0]); // as del() does
+    assertFalse(old.hasParent());
+  }
+
+  @Test
+  void testRetagFollowsIndex() {
+    root.Child().add("a");
+    IPax child = root.Child().get("a");
+    child.Tag("b");
+
+    assertFalse(root.Child().has("a"));
+    assertSame(child, root.Child().get("b"));
+
+    root.Attrib().add("id", "1");
+    root.Attrib().get("id").Tag("key");
+    assertEquals("1", root.Attrib().get("key").Val());
+  }
+
+  @Test
+  void testAllIsSnapshot() {
+    root.Child().add("a");
+    root.Child().add("b");
+    List<IPax> all = root.Child().all();
+    for (IPax child : all) {
+      root.Child().del(child);
+    }
+    assertEquals(2, all.size());
+    assertEquals(0, root.Child().cnt());
+    assertNull(root.Child().First());
+  }
+
+  @Test
+  void testPrefixQueryIgnoresCaseAndKeepsOrder() {
+    root.Child().add("Book", "1");
+    root.Child().add("author", "2");
+    root.Child().add("booklet", "3");
+    root.Child().add("BOOK", "4");
+    root.Child().add("book", "5");
+
+    List<IPax> books = root.Child().all("book");
+    assertEquals(4, books.size());
+    assertEquals("1", books.get(0).Val());
+    assertEquals("3", books.get(1).Val());
+    assertEquals("4", books.get(2).Val());
+    assertEquals("5", books.get(3).Val());
+    assertEquals(1, root.Child().all("AUTH").size());
+    assertEquals(5, root.Child().all("").size());
+    assertEquals(0, root.Child().all("z").size());
+
+    List<IPax> typed = root.Child().typed("bookl");
+    assertEquals(1, typed.size());
+  }
+
+  @Test
+  void testPrefixQueryFollowsChanges() {
+    root.Child().add("item", "1");
+    assertEquals(1, root.Child().all("it").size());
+
+    root.Child().add("itemize", "2");
+    IPax item = root.Child().get("item");
+    root.Child().del(item);
+    assertEquals(1, root.Child().all("it").size());
+    assertEquals("2", root.Child().all("it").get(0).Val());
+
+    root.Child().get("itemize").Tag("other");
+    assertEquals(0, root.Child().all("it").size());
+    assertEquals(1, root.Child().all("oth").size());
+
+    root.Child().del();
+    assertEquals(0, root.Child().all("oth").size());
+    root.Child().add("item", "3");
+    assertEquals(1, root.Child().all("it").size());
+  }
+}
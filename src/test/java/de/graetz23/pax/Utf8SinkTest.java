@@ -0,0 +1,112 @@
+/**
+ * @brief pax
+ * @details A Java written generator for plain old XML (POX) data domains
+ * @copyright Copyright (c) 2017-2026 Christian (graetz23@gmail.com)
+ * @author Christian (graetz23@gmail.com)
+ * @file Utf8SinkTest.java
+ */
+
+package de.graetz23.pax;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Utf8SinkTest {
+
+  private static final String MIXED = "plain ascii, äöü ß, € 中文, emoji 😀 and 𝄞 end";
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  void setUp() {
+    Instances.resetFactory();
+  }
+
+  @Test
+  void testEncodesLikeString() throws Exception {
+    Path file = tempDir.resolve("mixed.txt");
+    try (Utf8Sink sink = Utf8Sink.open(file)) {
+      sink.append(MIXED).append('-').append('ä').append(MIXED, 6, 11);
+      assertEquals((MIXED + "-ä" + MIXED.substring(6, 11)).getBytes(StandardCharsets.UTF_8).length, sink.size());
+    }
+    assertArrayEquals((MIXED + "-ä" + MIXED.substring(6, 11)).getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+  }
+
+  @Test
+  void testSmallBufferAndSplitSurrogates() throws Exception {
+    Path file = tempDir.resolve("small.txt");
+    StringBuilder expected = new StringBuilder();
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    try (Utf8Sink sink = new Utf8Sink(channel, 16)) { // every multi byte char crosses a boundary sometime
+      for (int i = 0; i < 200; i++) {
+        sink.append(MIXED, 0, i % MIXED.length());
+        expected.append(MIXED, 0, i % MIXED.length());
+      }
+      String emoji = "😀";
+      sink.append(emoji.charAt(0)).append(emoji.charAt(1)); // a pair given char by char
+      sink.append("\uD800x\uDC00"); // unpaired ones
+      expected.append(emoji).append("\uD800x\uDC00");
+    }
+    assertFalse(channel.isOpen());
+    assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+  }
+
+  @Test
+  void testMappedIsTruncated() throws Exception {
+    Path file = tempDir.resolve("mapped.txt");
+    try (Utf8Sink sink = Utf8Sink.mapped(file)) {
+      assertTrue(sink.isMapped());
+      sink.append(MIXED);
+    }
+    assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+  }
+
+  @Test
+  void testMappedFileReopenedAfterClose() throws Exception {
+    Path file = tempDir.resolve("reopened.txt");
+    for (int i = 1; i <= 3; i++) { // no window of the sink before is left mapped
+      try (Utf8Sink sink = Utf8Sink.mapped(file)) {
+        sink.append(MIXED, 0, i * 10);
+      }
+      assertEquals(MIXED.substring(0, i * 10).getBytes(StandardCharsets.UTF_8).length, Files.size(file));
+      assertEquals(MIXED.substring(0, i * 10), Files.readString(file));
+    }
+    try (Utf8Sink sink = Utf8Sink.open(file)) {
+      sink.append("plain");
+    }
+    assertEquals("plain", Files.readString(file));
+    Files.delete(file);
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  void testGeneratorsIntoSink() throws Exception {
+    IPax root = Instances.Factory().produce("root");
+    root.Attrib().add("lang", "中文");
+    for (int i = 0; i < 1000; i++) {
+      root.Child().add("item", "€ " + i + " 😀");
+    }
+
+    Path xml = tempDir.resolve("root.xml");
+    try (Utf8Sink sink = Utf8Sink.open(xml)) {
+      XmlGenerator.generate(root, sink, RenderContext.pretty());
+    }
+    assertEquals(root.XML(), Files.readString(xml));
+
+    assertTrue(Writer.Instance.JSON(root, tempDir.resolve("mapped").toString(), true));
+    assertEquals(root.JSON(), Files.readString(tempDir.resolve("mapped.json")));
+
+    assertTrue(Writer.Instance.XML(root, tempDir.resolve("lined").toString(), RenderContext.compact(), true));
+    assertTrue(Files.readString(tempDir.resolve("lined.xml")).endsWith(root.XML_lined()));
+  }
+}
@@ -12,9 +12,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -145,4 +149,56 @@ class WriterTest {
     String content = Files.readString(file);
     assertTrue(content.contains("UTF-8"));
   }
+
+  @Test
+  void testStreamedXmlEqualsString() throws Exception {
+    IPax root = Instances.Factory().produce("root");
+    root.Attrib().add("id", "1");
+    for (int i = 0; i < 100; i++) {
+      root.Child().add("child", "äöü " + i);
+    }
+
+    Path file = tempDir.resolve("streamed.xml");
+    assertTrue(Writer.Instance.XML(root, file.toString()));
+    String content = Files.readString(file);
+    assertTrue(content.endsWith(root.XML()));
+
+    Path lined = tempDir.resolve("lined.xml");
+    assertTrue(Writer.Instance.XML(root, lined.toString(), RenderContext.compact()));
+    assertTrue(Files.readString(lined).endsWith(root.XML_lined()));
+
+    StringWriter writer = new StringWriter();
+    XmlGenerator.generate(root, writer, RenderContext.pretty());
+    assertEquals(root.XML(), writer.toString());
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    XmlGenerator.generate(root, stream, RenderContext.compact());
+    assertEquals(root.XML_lined(), stream.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testWriteJson() throws Exception {
+    IPax library = Instances.Factory().produce("library");
+    for (int i = 0; i < 50; i++) {
+      IPax book = Instances.Factory().produce("book", "Title " + i);
+      book.Attrib().add("id", String.valueOf(i));
+      library.Child().add(book);
+    }
+    library.Child().add("owner", "City");
+
+    Path file = tempDir.resolve("library");
+    assertTrue(Writer.Instance.JSON(library, file.toString()));
+    Path written = tempDir.resolve("library.json");
+    assertTrue(Files.exists(written));
+    assertEquals(library.JSON(), Files.readString(written));
+
+    IPax parsed = JsonReader.Instance.parse(written.toString());
+    assertEquals(50, parsed.Child().cnt("book"));
+    assertFalse(Writer.Instance.JSON(null));
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    JsonGenerator.generate(library, stream);
+    assertEquals(library.JSON(), stream.toString(StandardCharsets.UTF_8));
+  }
 }
+